@@ -0,0 +1,159 @@
+package it.unive.scsr.final_project;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Lattice operations of a small finite lattice, given by its Hasse diagram.
+ *
+ * The spec is the list of the elements and the list of the edges {lower, upper} of the diagram. The order is
+ * the reflexive and transitive closure of the edges, stored as one bit mask per element (so at most 64 elements),
+ * and lub and glb are precomputed tables indexed by the positions of the elements in the spec.
+ * The constructor checks that the spec is a lattice (no cycles, every pair has a lub and a glb) and throws
+ * IllegalArgumentException otherwise. It runs at build time, in LatticeGenerator, which writes these tables
+ * in the source of the domain: a spec that is not a lattice fails the build.
+ */
+public final class FiniteLattice {
+
+    private final String[] elements;
+
+    // bit j of above[i] is set iff elements[i] <= elements[j]
+    private final long[] above;
+
+    private final byte[][] lub;
+
+    private final byte[][] glb;
+
+    private final int top;
+
+    private final int bottom;
+
+    // length of the longest strictly ascending chain
+    private final int height;
+
+    public FiniteLattice(String[] elements, String[][] edges) {
+        if (elements.length == 0 || elements.length > 64)
+            throw new IllegalArgumentException("A finite lattice must have between 1 and 64 elements");
+        this.elements = elements.clone();
+        int n = elements.length;
+
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < n; i++)
+            if (indexes.put(elements[i], i) != null)
+                throw new IllegalArgumentException("Duplicate element " + elements[i]);
+
+        above = new long[n];
+        for (int i = 0; i < n; i++)
+            above[i] = 1L << i;
+        for (String[] edge : edges) {
+            Integer lower = indexes.get(edge[0]);
+            Integer upper = indexes.get(edge[1]);
+            if (lower == null || upper == null)
+                throw new IllegalArgumentException("Unknown element in edge " + Arrays.toString(edge));
+            above[lower] |= 1L << upper;
+        }
+        // transitive closure
+        for (int k = 0; k < n; k++)
+            for (int i = 0; i < n; i++)
+                if ((above[i] & 1L << k) != 0)
+                    above[i] |= above[k];
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++)
+                if (lessOrEqual(i, j) && lessOrEqual(j, i))
+                    throw new IllegalArgumentException("Cycle between " + elements[i] + " and " + elements[j]);
+
+        // bit j of below[i] is set iff elements[j] <= elements[i]
+        long[] below = new long[n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                if (lessOrEqual(i, j))
+                    below[j] |= 1L << i;
+
+        lub = new byte[n][n];
+        glb = new byte[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                lub[i][j] = (byte) extreme(above[i] & above[j], above, "lub", i, j);
+                glb[i][j] = (byte) extreme(below[i] & below[j], below, "glb", i, j);
+            }
+        top = fold(lub);
+        bottom = fold(glb);
+
+        // the elements with fewer elements below come first, so chain[j] is final before any element above j
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        Arrays.sort(order, (i, j) -> Long.bitCount(below[i]) - Long.bitCount(below[j]));
+        int[] chain = new int[n];
+        int longest = 0;
+        for (int i : order) {
+            for (int j = 0; j < n; j++)
+                if (j != i && lessOrEqual(j, i))
+                    chain[i] = Math.max(chain[i], chain[j] + 1);
+            longest = Math.max(longest, chain[i]);
+        }
+        height = longest;
+    }
+
+    // the candidate k such that all the candidates are in side[k]: the least upper bound (side = above)
+    // or the greatest lower bound (side = below)
+    private int extreme(long candidates, long[] side, String operation, int i, int j) {
+        for (int k = 0; k < elements.length; k++)
+            if ((candidates & 1L << k) != 0 && (candidates & ~side[k]) == 0)
+                return k;
+        throw new IllegalArgumentException("No " + operation + " of " + elements[i] + " and " + elements[j]);
+    }
+
+    private static int fold(byte[][] table) {
+        int result = 0;
+        for (int i = 1; i < table.length; i++)
+            result = table[result][i];
+        return result;
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    // position of element in the spec
+    public int indexOf(String element) {
+        for (int i = 0; i < elements.length; i++)
+            if (elements[i].equals(element))
+                return i;
+        throw new IllegalArgumentException("Unknown element " + element);
+    }
+
+    public String element(int index) {
+        return elements[index];
+    }
+
+    public int top() {
+        return top;
+    }
+
+    public int bottom() {
+        return bottom;
+    }
+
+    public int lub(int left, int right) {
+        return lub[left][right];
+    }
+
+    public int glb(int left, int right) {
+        return glb[left][right];
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public boolean lessOrEqual(int left, int right) {
+        return (above[left] & 1L << right) != 0;
+    }
+
+    // the elements greater than or equal to element, one bit per position
+    public long above(int element) {
+        return above[element];
+    }
+}
@@ -0,0 +1,237 @@
+package it.unive.scsr.final_project;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Build-time generator of the lattice tables of the finite domains, run by the generateLattices task of the build
+ * on the specs in src/main/lattices. A spec declares the lattice with one declaration per line:
+ *
+ *   package it.unive.scsr.final_project
+ *   class ParityLattice
+ *   elements TOP BOTTOM ODD EVEN
+ *   BOTTOM < ODD EVEN
+ *   ODD < TOP
+ *   EVEN < TOP
+ *   EVEN if % 2 == 0
+ *   ODD if % 2 != 0
+ *
+ * The lines with < are the edges of the Hasse diagram, from an element to the ones covering it. The lines with if
+ * are the abstraction of the integer constants: a constant is abstracted by the element of the first rule it
+ * satisfies, by the top if it satisfies none. Lines starting with # are comments.
+ * The generated class has a constant with the position of each element, the order as one bit mask per element
+ * and the lub and glb as tables. The build fails if the spec is not a lattice, if the tables break a lattice law
+ * or if a rule abstracts constants to the bottom.
+ */
+public final class LatticeGenerator {
+
+    private static final List<String> COMPARISONS = Arrays.asList("<", "<=", "==", "!=", ">", ">=");
+
+    private LatticeGenerator() {
+    }
+
+    // arguments: the directory of the specs and the directory of the generated sources
+    public static void main(String[] args) throws IOException {
+        Path output = Paths.get(args[1]);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(args[0]), "*.lattice")) {
+            for (Path file : files) {
+                String source = file.getFileName().toString();
+                try {
+                    Spec spec = parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+                    Path target = output.resolve(spec.packageName.replace('.', '/')).resolve(spec.className + ".java");
+                    Files.createDirectories(target.getParent());
+                    Files.write(target, generate(spec, source).getBytes(StandardCharsets.UTF_8));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(source + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    static Spec parse(List<String> lines) {
+        Spec spec = new Spec();
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] tokens = line.split("\\s+");
+            if (tokens[0].equals("package") && tokens.length == 2)
+                spec.packageName = tokens[1];
+            else if (tokens[0].equals("class") && tokens.length == 2)
+                spec.className = tokens[1];
+            else if (tokens[0].equals("elements"))
+                spec.elements.addAll(Arrays.asList(tokens).subList(1, tokens.length));
+            else if (tokens.length > 2 && tokens[1].equals("<"))
+                for (int i = 2; i < tokens.length; i++)
+                    spec.edges.add(new String[]{tokens[0], tokens[i]});
+            else if (tokens.length > 1 && tokens[1].equals("if"))
+                spec.rules.add(Rule.parse(tokens, line));
+            else
+                throw new IllegalArgumentException("Unknown declaration: " + line);
+        }
+        if (spec.packageName == null || spec.className == null)
+            throw new IllegalArgumentException("Missing package or class");
+        return spec;
+    }
+
+    // the source of the class of the lattice of spec
+    static String generate(Spec spec, String source) {
+        FiniteLattice lattice = new FiniteLattice(spec.elements.toArray(new String[0]), spec.edges.toArray(new String[0][]));
+        checkLaws(lattice);
+        for (Rule rule : spec.rules)
+            if (lattice.indexOf(rule.element) == lattice.bottom())
+                throw new IllegalArgumentException("Constants abstracted to the bottom by: " + rule);
+
+        int n = lattice.size();
+        StringBuilder java = new StringBuilder();
+        java.append("package ").append(spec.packageName).append(";\n\n");
+        java.append("/*\n * Generated by LatticeGenerator from ").append(source).append(": do not edit.\n */\n");
+        java.append("final class ").append(spec.className).append(" {\n\n");
+        for (int i = 0; i < n; i++)
+            java.append("    static final int ").append(lattice.element(i)).append(" = ").append(i).append(";\n");
+        java.append("\n    static final int SIZE = ").append(n).append(";\n\n");
+        java.append("    static final int HEIGHT = ").append(lattice.height()).append(";\n\n");
+
+        java.append("    private static final String[] NAMES = {");
+        for (int i = 0; i < n; i++)
+            java.append(i == 0 ? "" : ", ").append('"').append(lattice.element(i)).append('"');
+        java.append("};\n\n");
+
+        java.append("    // bit j of ABOVE[i] is set iff i <= j\n");
+        java.append("    private static final long[] ABOVE = {");
+        for (int i = 0; i < n; i++)
+            java.append(i == 0 ? "" : ", ").append("0x").append(Long.toHexString(lattice.above(i))).append('L');
+        java.append("};\n\n");
+        table(java, "LUB", lattice, true);
+        table(java, "GLB", lattice, false);
+
+        java.append("    private ").append(spec.className).append("() {\n    }\n\n");
+        method(java, "int top()", "return " + lattice.element(lattice.top()) + ";");
+        method(java, "int bottom()", "return " + lattice.element(lattice.bottom()) + ";");
+        method(java, "int lub(int left, int right)", "return LUB[left][right];");
+        method(java, "int glb(int left, int right)", "return GLB[left][right];");
+        method(java, "boolean lessOrEqual(int left, int right)", "return (ABOVE[left] & 1L << right) != 0;");
+        method(java, "String name(int element)", "return NAMES[element];");
+
+        java.append("    static int indexOf(String name) {\n");
+        java.append("        for (int i = 0; i < SIZE; i++)\n");
+        java.append("            if (NAMES[i].equals(name))\n");
+        java.append("                return i;\n");
+        java.append("        throw new IllegalArgumentException(\"Unknown element \" + name);\n");
+        java.append("    }\n\n");
+
+        java.append("    // abstraction of the integer constant c\n");
+        java.append("    static int fromInt(long c) {\n");
+        for (Rule rule : spec.rules)
+            java.append("        if (").append(rule.condition("c")).append(")\n")
+                    .append("            return ").append(rule.element).append(";\n");
+        java.append("        return ").append(lattice.element(lattice.top())).append(";\n");
+        java.append("    }\n");
+        java.append("}\n");
+        return java.toString();
+    }
+
+    private static void table(StringBuilder java, String name, FiniteLattice lattice, boolean lub) {
+        java.append("    private static final byte[][] ").append(name).append(" = {\n");
+        for (int i = 0; i < lattice.size(); i++) {
+            java.append("            {");
+            for (int j = 0; j < lattice.size(); j++)
+                java.append(j == 0 ? "" : ", ").append(lub ? lattice.lub(i, j) : lattice.glb(i, j));
+            java.append(i == lattice.size() - 1 ? "}\n" : "},\n");
+        }
+        java.append("    };\n\n");
+    }
+
+    private static void method(StringBuilder java, String signature, String body) {
+        java.append("    static ").append(signature).append(" {\n        ").append(body).append("\n    }\n\n");
+    }
+
+    // the lattice laws, on the tables that are written in the generated class
+    static void checkLaws(FiniteLattice lattice) {
+        int n = lattice.size();
+        for (int a = 0; a < n; a++)
+            for (int b = 0; b < n; b++) {
+                int lub = lattice.lub(a, b);
+                int glb = lattice.glb(a, b);
+                law(lub == lattice.lub(b, a) && glb == lattice.glb(b, a), "commutativity", lattice, a, b);
+                law(lattice.lub(a, a) == a && lattice.glb(a, a) == a, "idempotence", lattice, a, b);
+                law(lattice.lub(a, lattice.glb(a, b)) == a && lattice.glb(a, lattice.lub(a, b)) == a, "absorption", lattice, a, b);
+                law(lattice.lessOrEqual(a, b) == (lub == b), "consistency of the order with the lub", lattice, a, b);
+                for (int c = 0; c < n; c++)
+                    law(lattice.lub(lub, c) == lattice.lub(a, lattice.lub(b, c))
+                            && lattice.glb(glb, c) == lattice.glb(a, lattice.glb(b, c)), "associativity", lattice, a, b);
+            }
+    }
+
+    private static void law(boolean holds, String law, FiniteLattice lattice, int a, int b) {
+        if (!holds)
+            throw new IllegalArgumentException("The " + law + " does not hold for " + lattice.element(a) + " and " + lattice.element(b));
+    }
+
+    static final class Spec {
+
+        String packageName;
+
+        String className;
+
+        final List<String> elements = new ArrayList<>();
+
+        final List<String[]> edges = new ArrayList<>();
+
+        final List<Rule> rules = new ArrayList<>();
+    }
+
+    // element if c op bound, or element if c % modulus op bound when modulus is not 0
+    static final class Rule {
+
+        final String element;
+
+        final long modulus;
+
+        final String operator;
+
+        final long bound;
+
+        private Rule(String element, long modulus, String operator, long bound) {
+            this.element = element;
+            this.modulus = modulus;
+            this.operator = operator;
+            this.bound = bound;
+        }
+
+        static Rule parse(String[] tokens, String line) {
+            try {
+                if (tokens.length == 6 && tokens[2].equals("%") && COMPARISONS.contains(tokens[4])) {
+                    long modulus = Long.parseLong(tokens[3]);
+                    if (modulus > 0)
+                        return new Rule(tokens[0], modulus, tokens[4], Long.parseLong(tokens[5]));
+                } else if (tokens.length == 4 && COMPARISONS.contains(tokens[2]))
+                    return new Rule(tokens[0], 0, tokens[2], Long.parseLong(tokens[3]));
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException("Malformed abstraction of the constants: " + line);
+        }
+
+        String condition(String variable) {
+            String operand = modulus == 0 ? variable : variable + " % " + literal(modulus);
+            return operand + " " + operator + " " + literal(bound);
+        }
+
+        private static String literal(long value) {
+            return value == (int) value ? Long.toString(value) : value + "L";
+        }
+
+        @Override
+        public String toString() {
+            return element + " if " + condition("c");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package it.unive.scsr;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.scsr.final_project.Variables;
+
+/*
+ * Admission of concurrent analyses under a heap budget.
+ *
+ * Each analysis is charged the estimated size of the states LiSA keeps for its CFGs (see AnalysisDomain.stateBytes)
+ * and starts only when the charges of the running analyses leave room for it. The analyses are admitted in the
+ * order they arrive: one that does not fit yet holds back the ones arriving after it, even the smaller ones, so a
+ * stream of small analyses cannot starve a large one. An analysis estimated larger than the whole budget is charged
+ * the whole budget, so it runs alone once the running ones are done.
+ */
+public class AdmissionControl {
+
+	// admits every analysis immediately
+	public static final AdmissionControl UNBOUNDED = new AdmissionControl(Long.MAX_VALUE);
+
+	private final long budget;
+
+	// sum of the charges of the running analyses
+	private long used;
+
+	// the waiting analyses, in order of arrival: only the first one can be admitted
+	private final Deque<Object> queue = new ArrayDeque<>();
+
+	public AdmissionControl(long budget) {
+		if (budget <= 0)
+			throw new IllegalArgumentException("The heap budget must be positive: " + budget);
+		this.budget = budget;
+	}
+
+	// a budget of the given fraction of the maximum heap of this JVM
+	public static AdmissionControl ofMaxHeap(double fraction) {
+		return new AdmissionControl((long) (Runtime.getRuntime().maxMemory() * fraction));
+	}
+
+	public long getBudget() {
+		return budget;
+	}
+
+	// estimate of the bytes of the states of the analysis of program with domain, with states of the given size
+	public static long estimate(Program program, AnalysisDomain domain, StateSize size) {
+		long bytes = 0;
+		for (CFG cfg : program.getAllCFGs())
+			bytes += estimate(cfg, domain, size);
+		return bytes;
+	}
+
+	// the variables of cfg are its parameters and the variables it assigns
+	static long estimate(CFG cfg, AnalysisDomain domain, StateSize size) {
+		int statements = 0, assignments = 0;
+		for (Statement node : cfg.getNodes()) {
+			statements++;
+			if (node instanceof Assignment)
+				assignments++;
+		}
+		return domain.stateBytes(statements, assignments, Variables.of(cfg).size(), size);
+	}
+
+	// runs LiSA with conf on program once an analysis of the given estimate is admitted, giving the LiSA instance
+	public LiSA run(LiSAConfiguration conf, Program program, long estimate) throws AnalysisException {
+		long charge;
+		try {
+			charge = acquire(estimate);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AnalysisException("Interrupted while waiting for heap budget", e);
+		}
+		try {
+			LiSA lisa = new LiSA(conf);
+			lisa.run(program);
+			return lisa;
+		} finally {
+			release(charge);
+		}
+	}
+
+	// waits until the analyses arrived before are admitted and one of the given estimate fits, giving its charge
+	synchronized long acquire(long estimate) throws InterruptedException {
+		long charge = Math.max(0, Math.min(estimate, budget));
+		Object ticket = new Object();
+		queue.addLast(ticket);
+		try {
+			while (queue.peekFirst() != ticket || charge > budget - used)
+				wait();
+		} catch (InterruptedException e) {
+			// the analyses behind this one must not wait for it
+			queue.remove(ticket);
+			notifyAll();
+			throw e;
+		}
+		queue.removeFirst();
+		used += charge;
+		// the next analysis may fit as well
+		notifyAll();
+		return charge;
+	}
+
+	synchronized void release(long charge) {
+		used -= charge;
+		notifyAll();
+	}
+
+	synchronized long used() {
+		return used;
+	}
+}
@@ -0,0 +1,250 @@
+package it.unive.scsr;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import it.unive.lisa.LiSA;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.program.Program;
+
+/*
+ * Analysis server that keeps a JVM warm between analyses.
+ *
+ * At startup every domain of AnalysisDomain analyzes a small program a few times, so that the classes of LiSA, of the
+ * IMP frontend and of the domains are loaded and compiled before the first request. Then each request line
+ *
+ *     <domain> TAB <file.imp> [TAB <workdir>]
+ *
+ * (separated by tabs, so that the paths can hold spaces) is answered with one JSON line holding the status, the number of CFGs, the warnings, the time of the analysis, the
+ * contents of report.json and the results of each CFG, as the files dumped by LiSA (by name).
+ * Each analysis runs in a private directory, so that concurrent requests cannot mix their files. When a workdir is
+ * given, the files are then moved there. The file and the workdir are resolved against the root of the daemon
+ * (--root, by default the current directory), and a path outside of the root is rejected.
+ * Requests are read from stdin, or from the connections to a port of the loopback interface with --port.
+ */
+public class AnalysisDaemon {
+
+	private static final String USAGE = "usage: AnalysisDaemon [--root <directory>] [--port <port>]";
+
+	private static final String WARM_UP = "class warmup {\n"
+			+ "\tf(x) {\n"
+			+ "\t\tdef i = 0;\n"
+			+ "\t\tdef j = -1;\n"
+			+ "\t\twhile (i < x) {\n"
+			+ "\t\t\ti = i + 1;\n"
+			+ "\t\t\tj = j * 2 - i;\n"
+			+ "\t\t}\n"
+			+ "\t\treturn j;\n"
+			+ "\t}\n"
+			+ "}\n";
+
+	private static final int WARM_UP_ROUNDS = 3;
+
+	private static final String REPORT = "report.json";
+
+	// the only directory where the requests can read and write
+	private final Path root;
+
+	// parent of the private directories of the analyses
+	private final Path scratch;
+
+	private final AtomicLong requests = new AtomicLong();
+
+	public AnalysisDaemon(Path root) throws IOException {
+		this.root = root.toRealPath();
+		scratch = Files.createTempDirectory("analysis-daemon");
+		scratch.toFile().deleteOnExit();
+	}
+
+	public void warmUp(int rounds) throws IOException {
+		Path source = scratch.resolve("warmup.imp");
+		Files.write(source, WARM_UP.getBytes(StandardCharsets.UTF_8));
+		source.toFile().deleteOnExit();
+		// the source is in the scratch directory, outside of the root, so it is not given as a request
+		for (int i = 0; i < rounds; i++)
+			for (AnalysisDomain domain : AnalysisDomain.values())
+				analyze(new Json(), domain, source, null);
+	}
+
+	// answers each request of in with a line of out, until in ends or sends quit
+	public void serve(BufferedReader in, Writer out) throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty())
+				continue;
+			if (line.equals("quit"))
+				break;
+			out.write(handle(line));
+			out.write('\n');
+			out.flush();
+		}
+	}
+
+	public String handle(String request) {
+		String[] fields = request.trim().split("\t");
+		Json result = new Json();
+		if (fields.length < 2 || fields.length > 3)
+			return result.put("request", request).put("status", "error")
+					.put("message", "expected <domain> TAB <file.imp> [TAB <workdir>]").toString();
+
+		result.put("domain", fields[0]).put("file", fields[1]);
+		long start = System.nanoTime();
+		try {
+			AnalysisDomain domain = AnalysisDomain.byName(fields[0]);
+			Path file = resolve(fields[1]);
+			Path workdir = fields.length == 3 ? resolve(fields[2]) : null;
+			analyze(result, domain, file, workdir);
+		} catch (Exception e) {
+			// an unknown domain or a path outside of the root
+			result.put("status", "error").put("message", String.valueOf(e));
+		}
+		return result.put("millis", (System.nanoTime() - start) / 1_000_000).toString();
+	}
+
+	// analyzes source with domain in a private directory, adding the outcome to result and moving the files to workdir
+	private void analyze(Json result, AnalysisDomain domain, Path source, Path workdir) {
+		Path dir = scratch.resolve("request-" + requests.incrementAndGet());
+		try {
+			Program program = IMPFrontend.processFile(source.toString());
+
+			LiSAConfiguration conf = domain.configuration();
+			conf.setWorkdir(dir.toString());
+			conf.setDumpAnalysis(true);
+			conf.setJsonOutput(true);
+
+			LiSA lisa = new LiSA(conf);
+			lisa.run(program);
+			List<String> warnings = lisa.getWarnings().stream().map(Object::toString).collect(Collectors.toList());
+			int cfgs = program.getAllCFGs().size();
+			result.put("status", "ok").put("cfgs", cfgs).put("warnings", warnings);
+
+			Map<String, String> results = new TreeMap<>();
+			for (Path file : files(dir))
+				if (file.getFileName().toString().equals(REPORT))
+					result.putJson("report", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+				else
+					results.put(file.getFileName().toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+			result.put("results", results);
+
+			if (workdir != null) {
+				Files.createDirectories(workdir);
+				for (Path file : files(dir))
+					Files.move(file, workdir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (Exception e) {
+			// a failing request must not stop the daemon
+			result.put("status", "error").put("message", String.valueOf(e));
+		} finally {
+			delete(dir);
+		}
+	}
+
+	// path resolved against the root, which it must not escape, even through a symbolic link
+	private Path resolve(String path) throws IOException {
+		Path resolved = root.resolve(path).normalize();
+		Path existing = resolved;
+		while (!Files.exists(existing))
+			existing = existing.getParent();
+		if (!resolved.startsWith(root) || !existing.toRealPath().startsWith(root))
+			throw new IllegalArgumentException("The path " + path + " is outside of " + root);
+		return resolved;
+	}
+
+	private static List<Path> files(Path dir) throws IOException {
+		if (!Files.isDirectory(dir))
+			return Collections.emptyList();
+		try (Stream<Path> list = Files.list(dir)) {
+			return list.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static void delete(Path dir) {
+		if (!Files.exists(dir))
+			return;
+		try (Stream<Path> tree = Files.walk(dir)) {
+			// children before their parents
+			for (Path file : tree.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+				Files.delete(file);
+		} catch (IOException e) {
+			System.err.println("unable to delete " + dir + ": " + e.getMessage());
+		}
+	}
+
+	private void listen(int port) throws IOException {
+		ExecutorService connections = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+			System.err.println("listening on " + server.getLocalSocketAddress());
+			while (true) {
+				Socket socket = server.accept();
+				connections.execute(() -> {
+					try (Socket s = socket;
+						 BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+						 Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)) {
+						serve(in, out);
+					} catch (IOException e) {
+						System.err.println("connection closed: " + e.getMessage());
+					}
+				});
+			}
+		} finally {
+			connections.shutdown();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		// the results go to stdout, so everything else printed there (e.g., the logs of LiSA) is moved to stderr
+		PrintStream results = System.out;
+		System.setOut(System.err);
+
+		Path root = Paths.get("");
+		Integer port = null;
+		try {
+			for (int i = 0; i < args.length; i += 2)
+				if (args[i].equals("--root") && i + 1 < args.length)
+					root = Paths.get(args[i + 1]);
+				else if (args[i].equals("--port") && i + 1 < args.length)
+					port = Integer.parseInt(args[i + 1]);
+				else
+					throw new IllegalArgumentException(args[i]);
+			if (!Files.isDirectory(root))
+				throw new IllegalArgumentException(root.toString());
+		} catch (IllegalArgumentException e) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+
+		AnalysisDaemon daemon = new AnalysisDaemon(root);
+		daemon.warmUp(WARM_UP_ROUNDS);
+		if (port != null)
+			daemon.listen(port);
+		else {
+			System.err.println("ready");
+			daemon.serve(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+					new OutputStreamWriter(results, StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package it.unive.scsr;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.dataflow.DefiniteForwardDataflowDomain;
+import it.unive.lisa.analysis.dataflow.PossibleForwardDataflowDomain;
+import it.unive.lisa.analysis.heap.MonolithicHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.scsr.final_project.ExtSignDomain;
+import it.unive.scsr.final_project.ExtSignParityDomain;
+
+/*
+ * The domains that can be selected by name from the command line tools, with the abstract state
+ * the tests of this project use for each of them.
+ */
+public enum AnalysisDomain {
+
+	SIGNS("signs", false, 48) {
+		@Override
+		void setAbstractState(LiSAConfiguration conf) {
+			conf.setAbstractState(new SimpleAbstractState<>(new MonolithicHeap(),
+					new ValueEnvironment<>(new Signs()), new TypeEnvironment<>(new InferredTypes())));
+		}
+	},
+
+	EXT_SIGN("ext-sign", false, 40) {
+		@Override
+		void setAbstractState(LiSAConfiguration conf) {
+			conf.setAbstractState(new SimpleAbstractState<>(new MonolithicHeap(),
+					new ValueEnvironment<>(new ExtSignDomain()), new TypeEnvironment<>(new InferredTypes())));
+		}
+	},
+
+	EXT_SIGN_PARITY("ext-sign-parity", false, 40) {
+		@Override
+		void setAbstractState(LiSAConfiguration conf) {
+			conf.setAbstractState(new SimpleAbstractState<>(new MonolithicHeap(),
+					new ValueEnvironment<>(new ExtSignParityDomain()), new TypeEnvironment<>(new InferredTypes())));
+		}
+	},
+
+	AVAILABLE_EXPRESSIONS("available-expressions", true, 96) {
+		@Override
+		void setAbstractState(LiSAConfiguration conf) {
+			conf.setAbstractState(new SimpleAbstractState<>(new MonolithicHeap(),
+					new DefiniteForwardDataflowDomain<>(new AvailableExpressions()), new TypeEnvironment<>(new InferredTypes())));
+		}
+	},
+
+	REACHING_DEFINITIONS("reaching-definitions", true, 72) {
+		@Override
+		void setAbstractState(LiSAConfiguration conf) {
+			conf.setAbstractState(new SimpleAbstractState<>(new MonolithicHeap(),
+					new PossibleForwardDataflowDomain<>(new ReachingDefinitions()), new TypeEnvironment<>(new InferredTypes())));
+		}
+	};
+
+	// default bytes of the part of a state that does not depend on the program and of a binding of a type, see StateSize
+	private static final long STATE_BYTES = 256;
+
+	private static final long TYPE_BYTES = 48;
+
+	private final String name;
+
+	// true if the states hold one element for each assignment (dataflow), false for each variable (environments)
+	private final boolean perAssignment;
+
+	private final StateSize defaultSize;
+
+	AnalysisDomain(String name, boolean perAssignment, long entryBytes) {
+		this.name = name;
+		this.perAssignment = perAssignment;
+		this.defaultSize = new StateSize(STATE_BYTES, TYPE_BYTES, entryBytes);
+	}
+
+	abstract void setAbstractState(LiSAConfiguration conf);
+
+	// a new configuration analyzing with this domain, without any output
+	public LiSAConfiguration configuration() {
+		LiSAConfiguration conf = new LiSAConfiguration();
+		setAbstractState(conf);
+		return conf;
+	}
+
+	// estimated sizes of the states of this domain, to be replaced by measured ones when a heap budget matters
+	public StateSize defaultSize() {
+		return defaultSize;
+	}
+
+	/*
+	 * estimate of the bytes of the states kept by LiSA for a CFG, one for each statement. The dataflow domains
+	 * can hold an element for each assignment of the CFG, the environments a binding for each variable
+	 */
+	public long stateBytes(int statements, int assignments, int variables, StateSize size) {
+		long entries = perAssignment ? assignments : variables;
+		return statements * (size.stateBytes + variables * size.typeBytes + entries * size.entryBytes);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public static AnalysisDomain byName(String name) {
+		for (AnalysisDomain domain : values())
+			if (domain.name.equals(name))
+				return domain;
+		throw new IllegalArgumentException("Unknown domain " + name + ", expected one of " + names());
+	}
+
+	public static String names() {
+		return Arrays.stream(values()).map(AnalysisDomain::getName).collect(Collectors.joining(", "));
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -10,6 +10,7 @@ import it.unive.lisa.program.cfg.ProgramPoint;
 import it.unive.lisa.symbolic.value.*;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -23,74 +24,98 @@ public class AvailableExpressions  implements DataflowElement<DefiniteForwardDat
 
     private final ValueExpression expression;
 
+    // identifiers of the expression, computed once since kill asks for them on every assignment
+    private final Set<Identifier> identifiers;
+
+    // expressions using each identifier, shared with the elements generated from this one (null for standalone elements)
+    private final IdentifierIndex<AvailableExpressions> index;
+
+    // canonical expressions, shared like the index: elements with the same table are equal iff their expressions are the same object
+    private final Interner expressions;
+
+    // hash of the expression, computed once since the elements are hashed at every join
+    private final int hash;
+
     public AvailableExpressions() {
-        this(null);
+        this(null, new IdentifierIndex<>(), new Interner());
     }
 
     public AvailableExpressions(ValueExpression expression) {
-        this.expression = expression;
+        this(expression, null, null);
+    }
+
+    private AvailableExpressions(ValueExpression expression, IdentifierIndex<AvailableExpressions> index, Interner expressions) {
+        this.index = index;
+        this.expressions = expressions;
+        if (expression != null && expressions != null) {
+            // the interned node already knows its hash and its identifiers
+            Interner.Node node = expressions.intern(expression);
+            this.expression = node.expression;
+            this.hash = node.hash;
+            this.identifiers = node.identifiers;
+        } else {
+            this.expression = expression;
+            this.hash = Objects.hashCode(expression);
+            Set<Identifier> ids = new HashSet<>();
+            collectInvolvedIdentifiers(expression, ids);
+            this.identifiers = ids.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+        }
+    }
+
+    // adds ae to the index, since it is going to be part of a domain
+    private AvailableExpressions register(AvailableExpressions ae) {
+        if (index != null)
+            index.add(ae.identifiers, ae);
+        return ae;
     }
 
     @Override
     public Collection<Identifier> getInvolvedIdentifiers() {
-        return getInvolvedIdentifiers(this.expression);
+        return identifiers;
     }
 
-    // Recursively extract Identifiers from expressions
+    // Recursively extract Identifiers from expressions into result
     // Base case: Single Identifier
-    private Collection<Identifier> getInvolvedIdentifiers(ValueExpression expression) {
-        Set<Identifier> result = new HashSet<>();
+    private static void collectInvolvedIdentifiers(ValueExpression expression, Set<Identifier> result) {
         if (expression != null) {
             // below casts are safe (check made during runtime which assures the type)
             if (expression instanceof Identifier) { // Id
-                Identifier id = (Identifier) expression;
-                result.add(id);
+                result.add((Identifier) expression);
             }
             else if (expression instanceof UnaryExpression) { // Expression1++
                 UnaryExpression unary = (UnaryExpression) expression;
-                getInvolvedIdentifiers((ValueExpression) unary.getExpression()).forEach((id) -> { // Expression1
-                    result.add(id);
-                });
+                collectInvolvedIdentifiers((ValueExpression) unary.getExpression(), result); // Expression1
             }
             else if (expression instanceof BinaryExpression) { // i.e. Expression1 + Expression2
                 BinaryExpression binary = (BinaryExpression) expression;
-                getInvolvedIdentifiers((ValueExpression) binary.getLeft()).forEach((id) -> { // Expression1
-                    result.add(id);
-                });
-                getInvolvedIdentifiers((ValueExpression) binary.getRight()).forEach((id) -> { // Expression2
-                    result.add(id);
-                });
+                collectInvolvedIdentifiers((ValueExpression) binary.getLeft(), result); // Expression1
+                collectInvolvedIdentifiers((ValueExpression) binary.getRight(), result); // Expression2
             }
             else if (expression instanceof TernaryExpression) { // i.e. Expression1 ? Expression2 : Expression3
                 TernaryExpression ternary = (TernaryExpression) expression;
-                getInvolvedIdentifiers((ValueExpression) ternary.getLeft()).forEach((id) -> { // Expression1
-                    result.add(id);
-                });
-                getInvolvedIdentifiers((ValueExpression) ternary.getMiddle()).forEach((id) -> { // Expression2
-                    result.add(id);
-                });
-                getInvolvedIdentifiers((ValueExpression) ternary.getRight()).forEach((id) -> { // Expression3
-                    result.add(id);
-                });
+                collectInvolvedIdentifiers((ValueExpression) ternary.getLeft(), result); // Expression1
+                collectInvolvedIdentifiers((ValueExpression) ternary.getMiddle(), result); // Expression2
+                collectInvolvedIdentifiers((ValueExpression) ternary.getRight(), result); // Expression3
             }
         }
-        return result;
     }
 
     // gen set for -> ID = EXP
     @Override
     public Collection<AvailableExpressions> gen(Identifier id, ValueExpression expression, ProgramPoint pp, DefiniteForwardDataflowDomain<AvailableExpressions> domain) throws SemanticException {
         Set<AvailableExpressions> result = new HashSet<>();
-        AvailableExpressions ae = new AvailableExpressions(expression);
+        // x + y and y + x are the same fact
+        ValueExpression canonical = CanonicalExpressions.canonicalize(expression);
+        // identifiers and constants are not interned
+        if (!isCandidate(canonical))
+            return result;
+        AvailableExpressions ae = new AvailableExpressions(canonical, index, expressions);
         // check if any potential identifier of an expression is being redefined
         // i.e. x = x + y
         boolean present = ae.getInvolvedIdentifiers().contains(id);
         // if this doesn't happen, it's safe to add to the gen set
-        if (!present &&
-            !isIdentifier(ae.expression) &&
-            !isConstant(ae.expression) &&
-            !doesNothing(ae.expression))
-                result.add(ae);
+        if (!present)
+                result.add(register(ae));
         return result;
     }
 
@@ -98,20 +123,22 @@ public class AvailableExpressions  implements DataflowElement<DefiniteForwardDat
     @Override
     public Collection<AvailableExpressions> gen(ValueExpression expression, ProgramPoint pp, DefiniteForwardDataflowDomain<AvailableExpressions> domain) throws SemanticException {
         Set<AvailableExpressions> result = new HashSet<>();
-        AvailableExpressions ae = new AvailableExpressions(expression);
         // i.e. handle expression cases:
         //      y (y is not an AE)
         //      5 (5 is not an AE)
-        if (!isIdentifier(ae.expression) &&
-            !isConstant(ae.expression) &&
-            !doesNothing(ae.expression))
-                result.add(ae);
+        ValueExpression canonical = CanonicalExpressions.canonicalize(expression);
+        if (isCandidate(canonical))
+                result.add(register(new AvailableExpressions(canonical, index, expressions)));
         return result;
     }
 
     // kill set for -> ID = EXP
     @Override
     public Collection<AvailableExpressions> kill(Identifier id, ValueExpression expression, ProgramPoint pp, DefiniteForwardDataflowDomain<AvailableExpressions> domain) throws SemanticException {
+        // only the expressions using id can be killed, and the index knows which ones they are
+        if (index != null)
+            return index.kill(id, domain.getDataflowElements());
+
         Set<AvailableExpressions> result = new HashSet<>();
         // checks if any identifier (present in all the AE found till now) is being redefined
         // i.e. x = x + 4 (all expressions which use identifier x from the AE found till now, should be killed)
@@ -129,6 +156,11 @@ public class AvailableExpressions  implements DataflowElement<DefiniteForwardDat
         return result;
     }
 
+    // expressions that can be available, i.e. neither identifiers, nor constants, nor skips
+    static boolean isCandidate(ValueExpression exp) {
+        return !isIdentifier(exp) && !isConstant(exp) && !doesNothing(exp);
+    }
+
     // wrapper for identifier check
     private static boolean isIdentifier (ValueExpression exp) {
         return (exp instanceof Identifier);
@@ -149,12 +181,12 @@ public class AvailableExpressions  implements DataflowElement<DefiniteForwardDat
 
 	@Override
 	public AvailableExpressions pushScope(ScopeToken scope) throws SemanticException {
-		return new AvailableExpressions((ValueExpression) expression.pushScope(scope));
+		return register(new AvailableExpressions(CanonicalExpressions.canonicalize((ValueExpression) expression.pushScope(scope)), index, expressions));
 	}
 
 	@Override
 	public AvailableExpressions popScope(ScopeToken scope) throws SemanticException {
-		return new AvailableExpressions((ValueExpression) expression.popScope(scope));
+		return register(new AvailableExpressions(CanonicalExpressions.canonicalize((ValueExpression) expression.popScope(scope)), index, expressions));
 	}
 
     @Override
@@ -162,12 +194,14 @@ public class AvailableExpressions  implements DataflowElement<DefiniteForwardDat
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         AvailableExpressions that = (AvailableExpressions) o;
+        if (hash != that.hash) return false;
+        if (expressions != null && expressions == that.expressions) return expression == that.expression;
         return Objects.equals(expression, that.expression);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(expression);
+        return hash;
     }
 }
 
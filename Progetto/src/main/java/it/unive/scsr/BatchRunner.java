@@ -0,0 +1,293 @@
+package it.unive.scsr;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import it.unive.lisa.LiSA;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.program.Program;
+
+/*
+ * Command line analysis of all the .imp files of a directory tree with one domain.
+ *
+ * Each file goes through three stages: parse, analyze and write. Parsing and analysis run on pools of the given
+ * number of threads, while a single thread appends the result of each file to the summary as one JSON line, in
+ * the order the analyses complete. At most twice the number of threads files are in flight at the same time, so
+ * the memory taken by parsed programs does not grow with the size of the corpus. The dot files of the analyses are
+ * written only when a dump directory is given. With a heap budget, each analysis waits in AdmissionControl until its
+ * estimated states fit in the budget, so a few large files do not run together and exhaust the heap. The states are
+ * estimated with the default sizes of the domain, or with the ones measured and given with --state-size.
+ * An error that leaves the virtual machine unusable (e.g., an OutOfMemoryError) stops the run: no other file is
+ * started, the pending ones are cancelled and the error is thrown by run.
+ */
+public class BatchRunner {
+
+	private static final String USAGE = "usage: BatchRunner <directory> <domain> <summary.jsonl> [--threads <n>] [--dump <workdir>] [--heap-budget <MB>] [--state-size <state>,<type>,<entry>]";
+
+	private final AnalysisDomain domain;
+
+	private final int threads;
+
+	// workdir of the dumps, one subdirectory for each file, or null to dump nothing
+	private final Path dump;
+
+	// parent of the private workdirs of the analyses that dump nothing
+	private final Path scratch;
+
+	private final AtomicLong jobs = new AtomicLong();
+
+	private final AdmissionControl admission;
+
+	// sizes of the states of domain, from which the analyses are charged to admission
+	private final StateSize size;
+
+	public BatchRunner(AnalysisDomain domain, int threads, Path dump) throws IOException {
+		this(domain, threads, dump, AdmissionControl.UNBOUNDED, domain.defaultSize());
+	}
+
+	public BatchRunner(AnalysisDomain domain, int threads, Path dump, AdmissionControl admission, StateSize size) throws IOException {
+		if (threads < 1)
+			throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+		this.domain = domain;
+		this.threads = threads;
+		this.dump = dump;
+		this.admission = admission;
+		this.size = size;
+		this.scratch = Files.createTempDirectory("batch-runner");
+		scratch.toFile().deleteOnExit();
+	}
+
+	// analyzes the .imp files under directory writing one line for each of them to summary, gives the number of failures
+	public int run(Path directory, Writer summary) throws IOException {
+		List<Path> sources;
+		try (Stream<Path> files = Files.walk(directory)) {
+			sources = files.filter(file -> file.toString().endsWith(".imp") && Files.isRegularFile(file))
+					.sorted().collect(Collectors.toList());
+		}
+
+		ExecutorService parsers = Executors.newFixedThreadPool(threads);
+		ExecutorService analyzers = Executors.newFixedThreadPool(threads);
+		ExecutorService writer = Executors.newSingleThreadExecutor();
+		Semaphore inFlight = new Semaphore(2 * threads);
+		AtomicInteger failures = new AtomicInteger();
+		// the first error of the virtual machine, which stops the run
+		AtomicReference<VirtualMachineError> fatal = new AtomicReference<>();
+		List<CompletableFuture<Void>> pipeline = new ArrayList<>(sources.size());
+		try {
+			for (Path source : sources) {
+				inFlight.acquireUninterruptibly();
+				if (fatal.get() != null)
+					break;
+				Job job = new Job(directory.relativize(source), fatal);
+				pipeline.add(CompletableFuture
+						.supplyAsync(() -> job.parse(source), parsers)
+						.thenApplyAsync(Job::analyze, analyzers)
+						.thenAcceptAsync(done -> {
+							if (fatal.get() != null)
+								return;
+							if (!done.ok)
+								failures.incrementAndGet();
+							try {
+								summary.write(done.result.toString());
+								summary.write('\n');
+								summary.flush();
+							} catch (IOException e) {
+								throw new UncheckedIOException(e);
+							}
+						}, writer)
+						.whenComplete((nothing, error) -> inFlight.release()));
+			}
+			if (fatal.get() == null)
+				CompletableFuture.allOf(pipeline.toArray(new CompletableFuture[0])).join();
+		} catch (CompletionException e) {
+			// only the write stage and the errors of the virtual machine can stop the run, the other ones are
+			// reported in the summary
+			if (e.getCause() instanceof UncheckedIOException)
+				throw ((UncheckedIOException) e.getCause()).getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw e;
+		} finally {
+			if (fatal.get() != null) {
+				pipeline.forEach(stages -> stages.cancel(false));
+				parsers.shutdownNow();
+				analyzers.shutdownNow();
+				writer.shutdownNow();
+			} else {
+				parsers.shutdown();
+				analyzers.shutdown();
+				writer.shutdown();
+			}
+		}
+		if (fatal.get() != null)
+			throw fatal.get();
+		return failures.get();
+	}
+
+	// one file going through the pipeline
+	private final class Job {
+
+		private final String name;
+
+		private final AtomicReference<VirtualMachineError> fatal;
+
+		private final Json result = new Json();
+
+		private Program program;
+
+		private boolean ok;
+
+		Job(Path name, AtomicReference<VirtualMachineError> fatal) {
+			this.name = name.toString();
+			this.fatal = fatal;
+			result.put("file", this.name).put("domain", domain.getName());
+		}
+
+		Job parse(Path source) {
+			if (fatal.get() != null)
+				return this;
+			long start = System.nanoTime();
+			try {
+				program = IMPFrontend.processFile(source.toString());
+			} catch (Throwable e) {
+				fail("parse", e);
+			}
+			result.put("parseMillis", (System.nanoTime() - start) / 1_000_000);
+			return this;
+		}
+
+		Job analyze() {
+			if (program == null || fatal.get() != null)
+				return this;
+			long start = System.nanoTime();
+			// a private directory, so that concurrent analyses cannot mix their files
+			Path workdir = dump == null ? scratch.resolve("job-" + jobs.incrementAndGet()) : null;
+			try {
+				LiSAConfiguration conf = domain.configuration();
+				if (dump == null)
+					conf.setWorkdir(workdir.toString());
+				else {
+					conf.setWorkdir(dump.resolve(name.substring(0, name.length() - ".imp".length())).toString());
+					conf.setDumpAnalysis(true);
+					conf.setJsonOutput(true);
+				}
+				long estimate = AdmissionControl.estimate(program, domain, size);
+				result.put("estimatedBytes", estimate);
+				LiSA lisa = admission.run(conf, program, estimate);
+				List<String> warnings = lisa.getWarnings().stream().map(Object::toString).collect(Collectors.toList());
+				int cfgs = program.getAllCFGs().size();
+				result.put("status", "ok").put("cfgs", cfgs).put("warnings", warnings);
+				ok = true;
+			} catch (Throwable e) {
+				fail("analyze", e);
+			} finally {
+				if (workdir != null)
+					delete(workdir);
+			}
+			result.put("analysisMillis", (System.nanoTime() - start) / 1_000_000);
+			// the program is not needed by the write stage
+			program = null;
+			return this;
+		}
+
+		/*
+		 * records the failure of stage on this file. Any error of the frontend or of the analysis (e.g., a stack
+		 * overflow on a deep program) fails only this file, except the ones leaving the virtual machine unusable
+		 */
+		private void fail(String stage, Throwable e) {
+			program = null;
+			if (e instanceof VirtualMachineError && !(e instanceof StackOverflowError)) {
+				fatal.compareAndSet(null, (VirtualMachineError) e);
+				throw (VirtualMachineError) e;
+			}
+			result.put("status", "error").put("stage", stage).put("message", String.valueOf(e));
+		}
+	}
+
+	private static void delete(Path dir) {
+		if (!Files.exists(dir))
+			return;
+		try (Stream<Path> tree = Files.walk(dir)) {
+			// children before their parents
+			for (Path file : tree.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+				Files.delete(file);
+		} catch (IOException e) {
+			System.err.println("unable to delete " + dir + ": " + e.getMessage());
+		}
+	}
+
+	// a positive integer, or an IllegalArgumentException
+	private static int positive(String number) {
+		int value = Integer.parseInt(number);
+		if (value < 1)
+			throw new IllegalArgumentException(number);
+		return value;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3 || args.length % 2 == 0) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+
+		int threads = Runtime.getRuntime().availableProcessors();
+		Path dump = null;
+		AdmissionControl admission = AdmissionControl.UNBOUNDED;
+		StateSize size = null;
+		try {
+			for (int i = 3; i < args.length; i += 2)
+				if (args[i].equals("--threads"))
+					threads = positive(args[i + 1]);
+				else if (args[i].equals("--dump"))
+					dump = Paths.get(args[i + 1]);
+				else if (args[i].equals("--heap-budget"))
+					admission = new AdmissionControl(Math.multiplyExact(positive(args[i + 1]), 1024L * 1024));
+				else if (args[i].equals("--state-size"))
+					size = StateSize.parse(args[i + 1]);
+				else
+					throw new IllegalArgumentException(args[i]);
+		} catch (IllegalArgumentException | ArithmeticException e) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+
+		AnalysisDomain domain;
+		try {
+			domain = AnalysisDomain.byName(args[1]);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+
+		BatchRunner runner = new BatchRunner(domain, threads, dump, admission, size == null ? domain.defaultSize() : size);
+		int failures;
+		try (BufferedWriter summary = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+			failures = runner.run(Paths.get(args[0]), summary);
+		}
+		if (failures > 0) {
+			System.err.println(failures + " files could not be analyzed, see " + args[2]);
+			System.exit(2);
+		}
+	}
+}
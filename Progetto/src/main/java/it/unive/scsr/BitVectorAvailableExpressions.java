@@ -0,0 +1,329 @@
+package it.unive.scsr;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.unive.lisa.analysis.BaseLattice;
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.representation.DomainRepresentation;
+import it.unive.lisa.analysis.representation.SetRepresentation;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.PushAny;
+import it.unive.lisa.symbolic.value.ValueExpression;
+
+/*
+ * Same analysis of AvailableExpressions, with the state stored as a bit vector.
+ *
+ * The candidate expressions of a function (the ones accepted by AvailableExpressions.isCandidate, except the unknown
+ * values, which cannot be computed again, as in AvailableExpressionsSolution) are numbered in a universe of the
+ * function, and the bits of the expressions using each identifier are collected in its kill mask. The universes of
+ * the functions of the program are created with the domain, so each analysis has its own.
+ * Unlike the definition sites of BitVectorReachingDefinitions, the candidates are symbolic expressions that exist
+ * only once the statements are evaluated: a universe numbers each expression the first time it is generated,
+ * and only that first time takes a lock. The numbers never change, so the lookups of gen and kill are lock-free.
+ * As in DefiniteForwardDataflowDomain, the lub is the intersection (bitwise and) and top is the empty set;
+ * bottom is the neutral element of the intersection, i.e. the set of all the expressions.
+ */
+public class BitVectorAvailableExpressions extends BaseLattice<BitVectorAvailableExpressions>
+		implements ValueDomain<BitVectorAvailableExpressions> {
+
+	// candidate expressions of each function of the program, read-only after the constructor
+	private final Map<CFG, Universe> functions;
+
+	// candidate expressions of the points outside of the functions of the program
+	private final Universe outside;
+
+	// candidate expressions of the function of this state, null until the first expression is generated
+	private final Universe universe;
+
+	private final long[] bits;
+
+	private final boolean isTop;
+
+	private final boolean isBottom;
+
+	public BitVectorAvailableExpressions(Program program) {
+		this(universes(program), new Universe(), null, Bits.EMPTY, false, false);
+	}
+
+	private BitVectorAvailableExpressions(Map<CFG, Universe> functions, Universe outside, Universe universe,
+			long[] bits, boolean isTop, boolean isBottom) {
+		this.functions = functions;
+		this.outside = outside;
+		this.universe = universe;
+		this.bits = bits;
+		this.isTop = isTop;
+		this.isBottom = isBottom;
+	}
+
+	private static Map<CFG, Universe> universes(Program program) {
+		Map<CFG, Universe> functions = new IdentityHashMap<>();
+		for (CFG cfg : program.getAllCFGs())
+			functions.put(cfg, new Universe());
+		return Collections.unmodifiableMap(functions);
+	}
+
+	private BitVectorAvailableExpressions with(Universe universe, long[] bits) {
+		return new BitVectorAvailableExpressions(functions, outside, universe, bits, false, false);
+	}
+
+	private Universe universeFor(ProgramPoint pp) {
+		if (universe != null)
+			return universe;
+		Universe target = pp.getCFG() == null ? null : functions.get(pp.getCFG());
+		return target != null ? target : outside;
+	}
+
+	// the bits of this state, numbered with the given universe
+	private long[] bitsOn(Universe target) {
+		if (target == universe || universe == null)
+			return bits;
+
+		long[] result = Bits.EMPTY;
+		for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1))
+			result = Bits.set(result, target.add(universe.expression(i)));
+		return result;
+	}
+
+	@Override
+	public BitVectorAvailableExpressions assign(Identifier id, ValueExpression expression, ProgramPoint pp)
+			throws SemanticException {
+		if (isBottom)
+			return this;
+		Universe target = universeFor(pp);
+		ValueExpression canonical = CanonicalExpressions.canonicalize(expression);
+		if (!isCandidate(canonical))
+			return with(target, Bits.andNot(bitsOn(target), target.kill(id)));
+
+		// the expression is numbered before reading the kill mask, so that the mask already contains it
+		int index = target.add(canonical);
+		long[] kill = target.kill(id);
+		long[] result = Bits.andNot(bitsOn(target), kill);
+		// x = x + y does not make x + y available
+		if (!Bits.get(kill, index))
+			result = Bits.set(result, index);
+		return with(target, result);
+	}
+
+	// an unknown value (PushAny) is a different value at each evaluation, so it is never available
+	private static boolean isCandidate(ValueExpression expression) {
+		return AvailableExpressions.isCandidate(expression) && !(expression instanceof PushAny);
+	}
+
+	@Override
+	public BitVectorAvailableExpressions smallStepSemantics(ValueExpression expression, ProgramPoint pp)
+			throws SemanticException {
+		if (isBottom)
+			return this;
+		ValueExpression canonical = CanonicalExpressions.canonicalize(expression);
+		if (!isCandidate(canonical))
+			return this;
+		Universe target = universeFor(pp);
+		return with(target, Bits.set(bitsOn(target).clone(), target.add(canonical)));
+	}
+
+	@Override
+	public BitVectorAvailableExpressions assume(ValueExpression expression, ProgramPoint pp)
+			throws SemanticException {
+		return this;
+	}
+
+	@Override
+	public BitVectorAvailableExpressions forgetIdentifier(Identifier id) throws SemanticException {
+		if (isTop || isBottom || universe == null)
+			return this;
+		return with(universe, Bits.andNot(bits, universe.kill(id)));
+	}
+
+	@Override
+	public SemanticDomain.Satisfiability satisfies(ValueExpression expression, ProgramPoint pp)
+			throws SemanticException {
+		return SemanticDomain.Satisfiability.UNKNOWN;
+	}
+
+	@Override
+	public BitVectorAvailableExpressions pushScope(ScopeToken token) throws SemanticException {
+		if (isTop || isBottom || universe == null)
+			return this;
+		long[] result = Bits.EMPTY;
+		for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1))
+			result = Bits.set(result, universe.add(CanonicalExpressions.canonicalize((ValueExpression) universe.expression(i).pushScope(token))));
+		return with(universe, result);
+	}
+
+	@Override
+	public BitVectorAvailableExpressions popScope(ScopeToken token) throws SemanticException {
+		if (isTop || isBottom || universe == null)
+			return this;
+		long[] result = Bits.EMPTY;
+		for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1))
+			result = Bits.set(result, universe.add(CanonicalExpressions.canonicalize((ValueExpression) universe.expression(i).popScope(token))));
+		return with(universe, result);
+	}
+
+	@Override
+	protected BitVectorAvailableExpressions lubAux(BitVectorAvailableExpressions other) throws SemanticException {
+		Universe target = universe != null ? universe : other.universe;
+		return with(target, Bits.and(bitsOn(target), other.bitsOn(target)));
+	}
+
+	// the candidate expressions are finite, so the widening is the lub
+	@Override
+	protected BitVectorAvailableExpressions wideningAux(BitVectorAvailableExpressions other)
+			throws SemanticException {
+		return lubAux(other);
+	}
+
+	@Override
+	protected boolean lessOrEqualAux(BitVectorAvailableExpressions other) throws SemanticException {
+		Universe target = universe != null ? universe : other.universe;
+		return Bits.subset(other.bitsOn(target), bitsOn(target));
+	}
+
+	@Override
+	public BitVectorAvailableExpressions top() {
+		return new BitVectorAvailableExpressions(functions, outside, null, Bits.EMPTY, true, false);
+	}
+
+	@Override
+	public BitVectorAvailableExpressions bottom() {
+		return new BitVectorAvailableExpressions(functions, outside, null, Bits.EMPTY, false, true);
+	}
+
+	@Override
+	public boolean isTop() {
+		return isTop;
+	}
+
+	@Override
+	public boolean isBottom() {
+		return isBottom;
+	}
+
+	// the available expressions of this state, as elements of AvailableExpressions
+	public Set<AvailableExpressions> getDataflowElements() {
+		Set<AvailableExpressions> result = new HashSet<>();
+		if (universe != null)
+			for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1))
+				result.add(new AvailableExpressions(universe.expression(i)));
+		return result;
+	}
+
+	// the hash of the set of the available expressions, summed from the hashes cached in the universe
+	@Override
+	public int hashCode() {
+		int h = (isTop ? 1 : 0) + (isBottom ? 2 : 0);
+		for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1))
+			h += universe.hash(i);
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BitVectorAvailableExpressions other = (BitVectorAvailableExpressions) obj;
+		if (isTop != other.isTop || isBottom != other.isBottom)
+			return false;
+		if (universe == other.universe || universe == null || other.universe == null)
+			return Bits.equal(bits, other.bits);
+		// numbered in different universes: each expression of one must be in the other
+		return Bits.cardinality(bits) == Bits.cardinality(other.bits) && containedIn(other) && other.containedIn(this);
+	}
+
+	// true if the expressions of this state are all in other
+	private boolean containedIn(BitVectorAvailableExpressions other) {
+		for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1)) {
+			int index = other.universe.indexOf(universe.expression(i));
+			if (index < 0 || !Bits.get(other.bits, index))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public DomainRepresentation representation() {
+		if (isTop)
+			return TOP_REPR;
+		if (isBottom)
+			return BOTTOM_REPR;
+		return new SetRepresentation(getDataflowElements(), AvailableExpressions::representation);
+	}
+
+	/*
+	 * numbering of the candidate expressions of a function. Expressions are appended under the lock the first
+	 * time they are met, and published through the volatile arrays: the lookups never take the lock
+	 */
+	private static final class Universe {
+
+		// canonical expressions with their hash and identifiers, so that the lookups do not hash the whole tree
+		private final Interner interner = new Interner();
+
+		private final Map<Interner.Node, Integer> indexes = new ConcurrentHashMap<>();
+
+		private volatile ValueExpression[] expressions = new ValueExpression[0];
+
+		private volatile int[] hashes = new int[0];
+
+		// the masks are replaced, never updated in place
+		private final Map<Identifier, long[]> kills = new ConcurrentHashMap<>();
+
+		int add(ValueExpression expression) {
+			Interner.Node node = interner.intern(expression);
+			Integer index = indexes.get(node);
+			return index != null ? index : append(node);
+		}
+
+		private synchronized int append(Interner.Node node) {
+			Integer index = indexes.get(node);
+			if (index != null)
+				return index;
+
+			int next = expressions.length;
+			ValueExpression[] grown = Arrays.copyOf(expressions, next + 1);
+			grown[next] = node.expression;
+			int[] grownHashes = Arrays.copyOf(hashes, next + 1);
+			grownHashes[next] = node.hash;
+			for (Identifier id : node.identifiers)
+				kills.put(id, Bits.set(kills.getOrDefault(id, Bits.EMPTY).clone(), next));
+			hashes = grownHashes;
+			expressions = grown;
+			// published last, so that a reader finding the index also finds the expression and the masks
+			indexes.put(node, next);
+			return next;
+		}
+
+		// index of expression, -1 if it was never numbered
+		int indexOf(ValueExpression expression) {
+			Integer index = indexes.get(interner.intern(expression));
+			return index == null ? -1 : index;
+		}
+
+		long[] kill(Identifier id) {
+			return kills.getOrDefault(id, Bits.EMPTY);
+		}
+
+		ValueExpression expression(int index) {
+			return expressions[index];
+		}
+
+		int hash(int index) {
+			return hashes[index];
+		}
+	}
+}
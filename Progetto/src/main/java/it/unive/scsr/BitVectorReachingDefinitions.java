@@ -0,0 +1,342 @@
+package it.unive.scsr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import it.unive.lisa.analysis.BaseLattice;
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.representation.DomainRepresentation;
+import it.unive.lisa.analysis.representation.SetRepresentation;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.CodeLocation;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+
+/*
+ * Same analysis of ReachingDefinitions, with the state stored as a bit vector.
+ *
+ * Before the analysis, the assignments of each function of the program are numbered as definition sites, and
+ * the bits of the definitions of each variable are collected in its kill mask. An assignment is then
+ * (state & ~kill(id)) | gen(id, location), and the join is the bitwise or. The numbering never changes during
+ * the analysis, so it is shared by all the states and by the threads without locks.
+ * The few definitions that are not assignments of the function (e.g. the ones hidden by pushScope) are kept
+ * as a small set of ReachingDefinitions beside the bits.
+ */
+public class BitVectorReachingDefinitions extends BaseLattice<BitVectorReachingDefinitions>
+		implements ValueDomain<BitVectorReachingDefinitions> {
+
+	// definition sites of each function of the program, read-only after the constructor
+	private final Map<CFG, Sites> functions;
+
+	// definition sites of the function of this state, Sites.NONE until the first definition
+	private final Sites sites;
+
+	private final long[] bits;
+
+	// definitions without a site
+	private final Set<ReachingDefinitions> others;
+
+	private final boolean isTop;
+
+	private final boolean isBottom;
+
+	public BitVectorReachingDefinitions(Program program) {
+		this(number(program), Sites.NONE, Bits.EMPTY, Collections.emptySet(), false, false);
+	}
+
+	private BitVectorReachingDefinitions(Map<CFG, Sites> functions, Sites sites, long[] bits,
+			Set<ReachingDefinitions> others, boolean isTop, boolean isBottom) {
+		this.functions = functions;
+		this.sites = sites;
+		this.bits = bits;
+		this.others = others;
+		this.isTop = isTop;
+		this.isBottom = isBottom;
+	}
+
+	private static Map<CFG, Sites> number(Program program) {
+		Map<CFG, Sites> functions = new IdentityHashMap<>();
+		for (CFG cfg : program.getAllCFGs())
+			functions.put(cfg, Sites.of(cfg));
+		return Collections.unmodifiableMap(functions);
+	}
+
+	private BitVectorReachingDefinitions with(Sites sites, long[] bits, Set<ReachingDefinitions> others) {
+		return new BitVectorReachingDefinitions(functions, sites, bits, others, false, false);
+	}
+
+	// sites of the function of pp, or the current ones if it is not a function of the program
+	private Sites sitesOf(ProgramPoint pp) {
+		CFG cfg = pp.getCFG();
+		Sites target = cfg == null ? null : functions.get(cfg);
+		return target != null ? target : sites;
+	}
+
+	// this state numbered with the given sites
+	private BitVectorReachingDefinitions on(Sites target) {
+		if (target == sites)
+			return this;
+		long[] result = Bits.EMPTY;
+		Set<ReachingDefinitions> resultOthers = new HashSet<>();
+		for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1))
+			result = place(sites.identifier(i), sites.location(i), target, result, resultOthers);
+		for (ReachingDefinitions rd : others)
+			result = place(rd.getIdentifier(), rd.getLocation(), target, result, resultOthers);
+		return with(target, result, resultOthers.isEmpty() ? Collections.emptySet() : resultOthers);
+	}
+
+	// adds the definition to bits if it has a site in target, to others otherwise
+	private static long[] place(Identifier id, CodeLocation location, Sites target, long[] bits,
+			Set<ReachingDefinitions> others) {
+		int site = target.indexOf(id, location);
+		if (site >= 0)
+			return Bits.set(bits, site);
+		others.add(new ReachingDefinitions(id, location));
+		return bits;
+	}
+
+	// the definitions of others that are not of id
+	private static Set<ReachingDefinitions> killOthers(Set<ReachingDefinitions> others, Identifier id) {
+		if (others.isEmpty())
+			return others;
+		Set<ReachingDefinitions> result = new HashSet<>();
+		for (ReachingDefinitions rd : others)
+			if (!rd.getIdentifier().equals(id))
+				result.add(rd);
+		return result;
+	}
+
+	@Override
+	public BitVectorReachingDefinitions assign(Identifier id, ValueExpression expression, ProgramPoint pp)
+			throws SemanticException {
+		if (isBottom)
+			return this;
+		BitVectorReachingDefinitions base = isTop ? with(sitesOf(pp), Bits.EMPTY, Collections.emptySet()) : on(sitesOf(pp));
+		Sites target = base.sites;
+		long[] result = Bits.andNot(base.bits, target.kill(id));
+		Set<ReachingDefinitions> resultOthers = killOthers(base.others, id);
+		int site = target.indexOf(id, pp.getLocation());
+		if (site >= 0)
+			result = Bits.set(result, site);
+		else {
+			resultOthers = new HashSet<>(resultOthers);
+			resultOthers.add(new ReachingDefinitions(id, pp.getLocation()));
+		}
+		return with(target, result, resultOthers);
+	}
+
+	@Override
+	public BitVectorReachingDefinitions smallStepSemantics(ValueExpression expression, ProgramPoint pp)
+			throws SemanticException {
+		return this;
+	}
+
+	@Override
+	public BitVectorReachingDefinitions assume(ValueExpression expression, ProgramPoint pp)
+			throws SemanticException {
+		return this;
+	}
+
+	@Override
+	public BitVectorReachingDefinitions forgetIdentifier(Identifier id) throws SemanticException {
+		if (isTop || isBottom)
+			return this;
+		return with(sites, Bits.andNot(bits, sites.kill(id)), killOthers(others, id));
+	}
+
+	@Override
+	public SemanticDomain.Satisfiability satisfies(ValueExpression expression, ProgramPoint pp)
+			throws SemanticException {
+		return SemanticDomain.Satisfiability.UNKNOWN;
+	}
+
+	@Override
+	public BitVectorReachingDefinitions pushScope(ScopeToken token) throws SemanticException {
+		if (isTop || isBottom)
+			return this;
+		// the scoped identifiers are not variables of the function: all the definitions move beside the bits
+		Set<ReachingDefinitions> result = new HashSet<>();
+		for (ReachingDefinitions rd : getDataflowElements())
+			result.add(rd.pushScope(token));
+		return with(sites, Bits.EMPTY, result);
+	}
+
+	@Override
+	public BitVectorReachingDefinitions popScope(ScopeToken token) throws SemanticException {
+		if (isTop || isBottom)
+			return this;
+		// only the definitions hidden by the matching pushScope survive, and they get back their sites
+		long[] result = Bits.EMPTY;
+		Set<ReachingDefinitions> resultOthers = new HashSet<>();
+		for (ReachingDefinitions rd : getDataflowElements()) {
+			ReachingDefinitions popped = rd.popScope(token);
+			if (popped != null)
+				result = place(popped.getIdentifier(), popped.getLocation(), sites, result, resultOthers);
+		}
+		return with(sites, result, resultOthers.isEmpty() ? Collections.emptySet() : resultOthers);
+	}
+
+	@Override
+	protected BitVectorReachingDefinitions lubAux(BitVectorReachingDefinitions other) throws SemanticException {
+		Sites target = sites != Sites.NONE ? sites : other.sites;
+		BitVectorReachingDefinitions left = on(target), right = other.on(target);
+		Set<ReachingDefinitions> resultOthers = left.others;
+		if (!right.others.isEmpty()) {
+			resultOthers = new HashSet<>(left.others);
+			resultOthers.addAll(right.others);
+		}
+		return with(target, Bits.or(left.bits, right.bits), resultOthers);
+	}
+
+	// the definition sites are finite, so the widening is the lub
+	@Override
+	protected BitVectorReachingDefinitions wideningAux(BitVectorReachingDefinitions other) throws SemanticException {
+		return lubAux(other);
+	}
+
+	@Override
+	protected boolean lessOrEqualAux(BitVectorReachingDefinitions other) throws SemanticException {
+		Sites target = sites != Sites.NONE ? sites : other.sites;
+		BitVectorReachingDefinitions left = on(target), right = other.on(target);
+		return Bits.subset(left.bits, right.bits) && right.others.containsAll(left.others);
+	}
+
+	@Override
+	public BitVectorReachingDefinitions top() {
+		return new BitVectorReachingDefinitions(functions, Sites.NONE, Bits.EMPTY, Collections.emptySet(), true, false);
+	}
+
+	@Override
+	public BitVectorReachingDefinitions bottom() {
+		return new BitVectorReachingDefinitions(functions, Sites.NONE, Bits.EMPTY, Collections.emptySet(), false, true);
+	}
+
+	@Override
+	public boolean isTop() {
+		return isTop;
+	}
+
+	@Override
+	public boolean isBottom() {
+		return isBottom;
+	}
+
+	// the definitions of this state, as elements of ReachingDefinitions
+	public Set<ReachingDefinitions> getDataflowElements() {
+		Set<ReachingDefinitions> result = new HashSet<>(others);
+		for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1))
+			result.add(new ReachingDefinitions(sites.identifier(i), sites.location(i)));
+		return result;
+	}
+
+	// the hash of the set of the definitions, summed from the hashes precomputed for the sites
+	@Override
+	public int hashCode() {
+		int h = others.hashCode() + (isTop ? 1 : 0) + (isBottom ? 2 : 0);
+		for (int i = Bits.nextSetBit(bits, 0); i >= 0; i = Bits.nextSetBit(bits, i + 1))
+			h += sites.hash(i);
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BitVectorReachingDefinitions other = (BitVectorReachingDefinitions) obj;
+		if (isTop != other.isTop || isBottom != other.isBottom)
+			return false;
+		if (sites != other.sites)
+			other = other.on(sites);
+		return Bits.equal(bits, other.bits) && others.equals(other.others);
+	}
+
+	@Override
+	public DomainRepresentation representation() {
+		if (isTop)
+			return TOP_REPR;
+		if (isBottom)
+			return BOTTOM_REPR;
+		return new SetRepresentation(getDataflowElements(), ReachingDefinitions::representation);
+	}
+
+	// numbering of the definition sites of a function, fixed before the analysis
+	private static final class Sites {
+
+		static final Sites NONE = new Sites(Collections.emptyList(), Collections.emptyList());
+
+		private final Identifier[] identifiers;
+
+		private final CodeLocation[] locations;
+
+		// hash of the ReachingDefinitions of each site
+		private final int[] hashes;
+
+		private final Map<ReachingDefinitions, Integer> indexes = new HashMap<>();
+
+		private final Map<Identifier, long[]> kills = new HashMap<>();
+
+		private Sites(List<Identifier> identifiers, List<CodeLocation> locations) {
+			this.identifiers = identifiers.toArray(new Identifier[0]);
+			this.locations = locations.toArray(new CodeLocation[0]);
+			this.hashes = new int[this.identifiers.length];
+			for (int site = 0; site < this.identifiers.length; site++) {
+				ReachingDefinitions key = new ReachingDefinitions(this.identifiers[site], this.locations[site]);
+				hashes[site] = key.hashCode();
+				indexes.put(key, site);
+				kills.put(this.identifiers[site], Bits.set(kills.getOrDefault(this.identifiers[site], Bits.EMPTY), site));
+			}
+		}
+
+		// a site for each assignment of a variable in cfg
+		static Sites of(CFG cfg) {
+			List<Identifier> identifiers = new ArrayList<>();
+			List<CodeLocation> locations = new ArrayList<>();
+			for (Statement node : cfg.getNodes())
+				if (node instanceof Assignment && ((Assignment) node).getLeft() instanceof VariableRef) {
+					identifiers.add(((VariableRef) ((Assignment) node).getLeft()).getVariable());
+					locations.add(node.getLocation());
+				}
+			return new Sites(identifiers, locations);
+		}
+
+		// site of the definition of id at location, -1 if it is not an assignment of the function
+		int indexOf(Identifier id, CodeLocation location) {
+			Integer site = indexes.get(new ReachingDefinitions(id, location));
+			return site == null ? -1 : site;
+		}
+
+		long[] kill(Identifier id) {
+			return kills.getOrDefault(id, Bits.EMPTY);
+		}
+
+		Identifier identifier(int site) {
+			return identifiers[site];
+		}
+
+		CodeLocation location(int site) {
+			return locations[site];
+		}
+
+		int hash(int site) {
+			return hashes[site];
+		}
+	}
+}
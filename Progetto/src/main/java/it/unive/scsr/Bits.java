@@ -0,0 +1,89 @@
+package it.unive.scsr;
+
+import java.util.Arrays;
+
+// operations on the bit vectors of the bit-vector dataflow analyses
+final class Bits {
+
+	static final long[] EMPTY = new long[0];
+
+	private Bits() {
+	}
+
+	// index of the first bit set from the given one, -1 if there is none
+	static int nextSetBit(long[] bits, int from) {
+		int word = from >>> 6;
+		if (word >= bits.length)
+			return -1;
+		long current = bits[word] & (-1L << from);
+		while (true) {
+			if (current != 0)
+				return word * 64 + Long.numberOfTrailingZeros(current);
+			if (++word == bits.length)
+				return -1;
+			current = bits[word];
+		}
+	}
+
+	// sets the bit in place, growing the array if needed
+	static long[] set(long[] bits, int index) {
+		int word = index >>> 6;
+		long[] result = word < bits.length ? bits : Arrays.copyOf(bits, word + 1);
+		result[word] |= 1L << index;
+		return result;
+	}
+
+	static boolean get(long[] bits, int index) {
+		int word = index >>> 6;
+		return word < bits.length && (bits[word] & 1L << index) != 0;
+	}
+
+	static long[] or(long[] left, long[] right) {
+		long[] longer = left.length >= right.length ? left : right;
+		long[] shorter = longer == left ? right : left;
+		long[] result = longer.clone();
+		for (int i = 0; i < shorter.length; i++)
+			result[i] |= shorter[i];
+		return result;
+	}
+
+	static long[] and(long[] left, long[] right) {
+		long[] result = new long[Math.min(left.length, right.length)];
+		for (int i = 0; i < result.length; i++)
+			result[i] = left[i] & right[i];
+		return result;
+	}
+
+	// the bits of left that are not in right
+	static long[] andNot(long[] left, long[] right) {
+		long[] result = left.clone();
+		for (int i = 0; i < result.length && i < right.length; i++)
+			result[i] &= ~right[i];
+		return result;
+	}
+
+	// true if all the bits of left are also in right
+	static boolean subset(long[] left, long[] right) {
+		for (int i = 0; i < left.length; i++)
+			if ((left[i] & ~(i < right.length ? right[i] : 0)) != 0)
+				return false;
+		return true;
+	}
+
+	// equality up to trailing zero words
+	static boolean equal(long[] left, long[] right) {
+		int length = Math.max(left.length, right.length);
+		for (int i = 0; i < length; i++)
+			if ((i < left.length ? left[i] : 0) != (i < right.length ? right[i] : 0))
+				return false;
+		return true;
+	}
+
+	// number of bits set
+	static int cardinality(long[] bits) {
+		int count = 0;
+		for (long word : bits)
+			count += Long.bitCount(word);
+		return count;
+	}
+}
@@ -0,0 +1,148 @@
+package it.unive.scsr;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import it.unive.lisa.symbolic.SymbolicExpression;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.AdditionOperator;
+import it.unive.lisa.symbolic.value.operator.Multiplication;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+
+/*
+ * Normal form of expressions, so that expressions that differ only by the order of the operands of commutative
+ * operators are the same available expression.
+ *
+ * Chains of + and * are flattened, their operands sorted by their textual form, and the integer constants
+ * folded into a single constant placed last: y + (1 + x) + 2 becomes x + y + 3.
+ * A chain of constants only, such as 5 + 7, is kept as written: it is an available expression like any other,
+ * as in AvailableExpressionsSolution, and folding it would turn it into a constant that is never tracked.
+ * The two operands of == and != are sorted as well, with a constant placed last: 0 == x becomes x == 0. Everything else is only normalized in its subexpressions.
+ */
+final class CanonicalExpressions {
+
+	private CanonicalExpressions() {
+	}
+
+	static ValueExpression canonicalize(ValueExpression expression) {
+		if (expression instanceof BinaryExpression)
+			return canonicalize((BinaryExpression) expression);
+
+		if (expression instanceof UnaryExpression) {
+			UnaryExpression unary = (UnaryExpression) expression;
+			SymbolicExpression operand = canonicalize(unary.getExpression());
+			if (operand == unary.getExpression())
+				return unary;
+			return new UnaryExpression(unary.getStaticType(), operand, unary.getOperator(), unary.getCodeLocation());
+		}
+
+		return expression;
+	}
+
+	private static SymbolicExpression canonicalize(SymbolicExpression expression) {
+		return expression instanceof ValueExpression ? canonicalize((ValueExpression) expression) : expression;
+	}
+
+	private static ValueExpression canonicalize(BinaryExpression binary) {
+		BinaryOperator operator = binary.getOperator();
+
+		if (isAssociative(operator)) {
+			List<SymbolicExpression> operands = new ArrayList<>();
+			flatten(binary, operator.getClass(), operands);
+			return rebuild(binary, operands);
+		}
+
+		SymbolicExpression left = canonicalize(binary.getLeft());
+		SymbolicExpression right = canonicalize(binary.getRight());
+		if ((operator instanceof ComparisonEq || operator instanceof ComparisonNe) && !(right instanceof Constant)
+				&& (left instanceof Constant || left.toString().compareTo(right.toString()) > 0)) {
+			SymbolicExpression swap = left;
+			left = right;
+			right = swap;
+		}
+		if (left == binary.getLeft() && right == binary.getRight())
+			return binary;
+		return new BinaryExpression(binary.getStaticType(), left, right, operator, binary.getCodeLocation());
+	}
+
+	// + and * on numbers are both commutative and associative
+	private static boolean isAssociative(BinaryOperator operator) {
+		return operator instanceof AdditionOperator || operator instanceof Multiplication;
+	}
+
+	// the canonical operands of the chain of operator rooted in expression
+	private static void flatten(SymbolicExpression expression, Class<?> operator, List<SymbolicExpression> operands) {
+		if (expression instanceof BinaryExpression && ((BinaryExpression) expression).getOperator().getClass() == operator) {
+			flatten(((BinaryExpression) expression).getLeft(), operator, operands);
+			flatten(((BinaryExpression) expression).getRight(), operator, operands);
+		} else
+			operands.add(canonicalize(expression));
+	}
+
+	private static ValueExpression rebuild(BinaryExpression binary, List<SymbolicExpression> operands) {
+		BinaryOperator operator = binary.getOperator();
+		boolean addition = operator instanceof AdditionOperator;
+
+		List<Keyed> sorted = new ArrayList<>();
+		Constant folded = null;
+		for (SymbolicExpression operand : operands) {
+			if (isInteger(operand)) {
+				Constant constant = fold(folded, (Constant) operand, addition);
+				if (constant != null) {
+					folded = constant;
+					continue;
+				}
+			}
+			sorted.add(new Keyed(operand));
+		}
+		if (sorted.isEmpty())
+			// only constants: the chain is kept as written
+			return binary;
+		sorted.sort(Comparator.comparing(keyed -> keyed.key));
+		if (folded != null)
+			sorted.add(new Keyed(folded));
+
+		SymbolicExpression result = sorted.get(0).expression;
+		for (int i = 1; i < sorted.size(); i++)
+			result = new BinaryExpression(binary.getStaticType(), result, sorted.get(i).expression, operator, binary.getCodeLocation());
+		// keep the original object when it was already in normal form
+		return result.equals(binary) ? binary : (ValueExpression) result;
+	}
+
+	private static boolean isInteger(SymbolicExpression expression) {
+		return expression instanceof Constant && ((Constant) expression).getValue() instanceof Integer;
+	}
+
+	// the constant with the sum (or product) of the two, null if it overflows
+	private static Constant fold(Constant folded, Constant constant, boolean addition) {
+		if (folded == null)
+			return constant;
+		int left = (Integer) folded.getValue();
+		int right = (Integer) constant.getValue();
+		try {
+			int value = addition ? Math.addExact(left, right) : Math.multiplyExact(left, right);
+			return new Constant(folded.getStaticType(), value, folded.getCodeLocation());
+		} catch (ArithmeticException e) {
+			return null;
+		}
+	}
+
+	// an operand with its textual form, computed once rather than at every comparison of the sort
+	private static final class Keyed {
+
+		private final SymbolicExpression expression;
+
+		private final String key;
+
+		Keyed(SymbolicExpression expression) {
+			this.expression = expression;
+			this.key = expression.toString();
+		}
+	}
+}
@@ -27,6 +27,18 @@ public class ExtSignDomainSolution extends BaseNonRelationalValueDomain<ExtSignD
 		this.sign = sign;
 	}
 
+	// one shared instance per sign, indexed by ordinal
+	private static final ExtSignDomainSolution[] INSTANCES = new ExtSignDomainSolution[Sign.values().length];
+
+	static {
+		for (Sign sign : Sign.values())
+			INSTANCES[sign.ordinal()] = new ExtSignDomainSolution(sign);
+	}
+
+	private static ExtSignDomainSolution of(Sign sign) {
+		return INSTANCES[sign.ordinal()];
+	}
+
 	enum Sign {
 
 		BOTTOM {
@@ -458,12 +470,12 @@ public class ExtSignDomainSolution extends BaseNonRelationalValueDomain<ExtSignD
 
 	@Override
 	public ExtSignDomainSolution top() {
-		return new ExtSignDomainSolution(Sign.TOP);
+		return of(Sign.TOP);
 	}
 
 	@Override
 	public ExtSignDomainSolution bottom() {
-		return new ExtSignDomainSolution(Sign.BOTTOM);
+		return of(Sign.BOTTOM);
 	}
 
 	@Override
@@ -481,11 +493,11 @@ public class ExtSignDomainSolution extends BaseNonRelationalValueDomain<ExtSignD
 		if (constant.getValue() instanceof Integer) {
 			int c = (int) constant.getValue();
 			if (c == 0)
-				return new ExtSignDomainSolution(Sign.ZERO);
+				return of(Sign.ZERO);
 			else if (c > 0)
-				return new ExtSignDomainSolution(Sign.POS);
+				return of(Sign.POS);
 			else
-				return new ExtSignDomainSolution(Sign.NEG);
+				return of(Sign.NEG);
 		}
 		return top();
 	}
@@ -494,7 +506,7 @@ public class ExtSignDomainSolution extends BaseNonRelationalValueDomain<ExtSignD
 	protected ExtSignDomainSolution evalUnaryExpression(UnaryOperator operator, ExtSignDomainSolution arg,
 			ProgramPoint pp) {
 		if (operator instanceof NumericNegation)
-			return new ExtSignDomainSolution(arg.sign.minus());
+			return of(arg.sign.minus());
 		return top();
 	}
 
@@ -503,13 +515,13 @@ public class ExtSignDomainSolution extends BaseNonRelationalValueDomain<ExtSignD
 			ExtSignDomainSolution right,
 			ProgramPoint pp) {
 		if (operator instanceof AdditionOperator)
-			return new ExtSignDomainSolution(left.sign.add(right.sign));
+			return of(left.sign.add(right.sign));
 		if (operator instanceof DivisionOperator)
-			return new ExtSignDomainSolution(left.sign.div(right.sign));
+			return of(left.sign.div(right.sign));
 		if (operator instanceof Multiplication)
-			return new ExtSignDomainSolution(left.sign.mul(right.sign));
+			return of(left.sign.mul(right.sign));
 		if (operator instanceof SubtractionOperator)
-			return new ExtSignDomainSolution(left.sign.add(right.sign.minus()));
+			return of(left.sign.add(right.sign.minus()));
 		return top();
 	}
 
@@ -522,16 +534,16 @@ public class ExtSignDomainSolution extends BaseNonRelationalValueDomain<ExtSignD
 
 		if (sign == Sign.ZERO) {
 			if (other.sign == Sign.POS)
-				return new ExtSignDomainSolution(Sign.POS_OR_ZERO);
+				return of(Sign.POS_OR_ZERO);
 			else if (other.sign == Sign.NEG)
-				return new ExtSignDomainSolution(Sign.NEG_OR_ZERO);
+				return of(Sign.NEG_OR_ZERO);
 		}
 
 		if (other.sign == Sign.ZERO) {
 			if (sign == Sign.POS)
-				return new ExtSignDomainSolution(Sign.POS_OR_ZERO);
+				return of(Sign.POS_OR_ZERO);
 			else if (sign == Sign.NEG)
-				return new ExtSignDomainSolution(Sign.NEG_OR_ZERO);
+				return of(Sign.NEG_OR_ZERO);
 		}
 
 		return top();
@@ -564,10 +576,7 @@ public class ExtSignDomainSolution extends BaseNonRelationalValueDomain<ExtSignD
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((sign == null) ? 0 : sign.hashCode());
-		return result;
+		return sign.ordinal();
 	}
 
 	@Override
@@ -0,0 +1,44 @@
+package it.unive.scsr;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.unive.lisa.symbolic.value.Identifier;
+
+/*
+ * Inverted index from each identifier to the dataflow elements that mention it.
+ *
+ * Elements are added when they are generated (or rescoped) and never removed: kill takes the candidates
+ * of the identifier and keeps the ones that are still in the domain, so its cost depends on the number of
+ * elements of that identifier and not on the size of the domain.
+ */
+final class IdentifierIndex<E> {
+
+	private final Map<Identifier, Set<E>> elements = new ConcurrentHashMap<>();
+
+	void add(Identifier id, E element) {
+		elements.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(element);
+	}
+
+	void add(Collection<Identifier> ids, E element) {
+		for (Identifier id : ids)
+			add(id, element);
+	}
+
+	// the elements of live that mention id
+	Set<E> kill(Identifier id, Set<E> live) {
+		Set<E> candidates = elements.getOrDefault(id, Collections.emptySet());
+		// iterate the smaller of the two sets
+		Set<E> small = candidates.size() <= live.size() ? candidates : live;
+		Set<E> large = small == candidates ? live : candidates;
+		Set<E> result = new HashSet<>();
+		for (E element : small)
+			if (large.contains(element))
+				result.add(element);
+		return result;
+	}
+}
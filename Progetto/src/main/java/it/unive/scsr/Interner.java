@@ -0,0 +1,138 @@
+package it.unive.scsr;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import it.unive.lisa.symbolic.SymbolicExpression;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.TernaryExpression;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+
+/*
+ * Table of canonical expressions: structurally equal expressions are mapped to the first one that was interned,
+ * so that expressions interned in the same table can be compared by identity.
+ *
+ * Expressions are interned bottom-up: the operands of a node are interned first, and the node is looked up by its
+ * operator and the identity of its interned operands, with a hash combined from the hashes cached on them.
+ * The whole tree is hashed only the first time a node is met, to find out whether it is structurally equal
+ * to a node interned before.
+ */
+final class Interner {
+
+	// an interned expression, with its hash and its identifiers computed once
+	static final class Node {
+
+		final ValueExpression expression;
+
+		final int hash;
+
+		final Set<Identifier> identifiers;
+
+		private Node(ValueExpression expression, Set<Identifier> identifiers) {
+			this.expression = expression;
+			this.hash = expression.hashCode();
+			this.identifiers = identifiers;
+		}
+	}
+
+	// nodes by operator and interned operands
+	private final Map<Key, Node> nodes = new ConcurrentHashMap<>();
+
+	// nodes by structural equality, read only when a key is met for the first time
+	private final Map<ValueExpression, Node> canonical = new ConcurrentHashMap<>();
+
+	Node intern(ValueExpression expression) {
+		Key key;
+		if (expression instanceof UnaryExpression) {
+			UnaryExpression unary = (UnaryExpression) expression;
+			key = new Key(expression, unary.getOperator(), operand(unary.getExpression()), null, null);
+		} else if (expression instanceof BinaryExpression) {
+			BinaryExpression binary = (BinaryExpression) expression;
+			key = new Key(expression, binary.getOperator(), operand(binary.getLeft()), operand(binary.getRight()), null);
+		} else if (expression instanceof TernaryExpression) {
+			TernaryExpression ternary = (TernaryExpression) expression;
+			key = new Key(expression, ternary.getOperator(), operand(ternary.getLeft()), operand(ternary.getMiddle()),
+					operand(ternary.getRight()));
+		} else
+			// identifiers and constants are cheap to hash: they are their own key
+			return canonical.computeIfAbsent(expression, leaf -> new Node(leaf, identifiers(leaf)));
+
+		Node node = nodes.get(key);
+		if (node == null) {
+			node = canonical.computeIfAbsent(expression, e -> new Node(e, key.identifiers()));
+			nodes.putIfAbsent(key, node);
+		}
+		return node;
+	}
+
+	private Node operand(SymbolicExpression operand) {
+		return operand instanceof ValueExpression ? intern((ValueExpression) operand) : null;
+	}
+
+	private static Set<Identifier> identifiers(ValueExpression leaf) {
+		return leaf instanceof Identifier ? Collections.singleton((Identifier) leaf) : Collections.emptySet();
+	}
+
+	// a node seen through its operator and interned operands (compared by identity)
+	private static final class Key {
+
+		private final Class<?> type;
+
+		private final Object operator;
+
+		private final Object staticType;
+
+		private final Node first, second, third;
+
+		private final int hash;
+
+		Key(ValueExpression expression, Object operator, Node first, Node second, Node third) {
+			this.type = expression.getClass();
+			this.operator = operator;
+			this.staticType = expression.getStaticType();
+			this.first = first;
+			this.second = second;
+			this.third = third;
+			int h = 31 * type.hashCode() + Objects.hashCode(operator);
+			h = 31 * h + Objects.hashCode(staticType);
+			h = 31 * h + (first == null ? 0 : first.hash);
+			h = 31 * h + (second == null ? 0 : second.hash);
+			this.hash = 31 * h + (third == null ? 0 : third.hash);
+		}
+
+		// union of the identifiers of the operands
+		Set<Identifier> identifiers() {
+			Set<Identifier> result = new HashSet<>();
+			if (first != null)
+				result.addAll(first.identifiers);
+			if (second != null)
+				result.addAll(second.identifiers);
+			if (third != null)
+				result.addAll(third.identifiers);
+			return result.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(result);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return hash == other.hash && type == other.type && first == other.first && second == other.second
+					&& third == other.third && Objects.equals(operator, other.operator)
+					&& Objects.equals(staticType, other.staticType);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package it.unive.scsr;
+
+import java.util.Collection;
+import java.util.Map;
+
+/*
+ * Builder of a JSON object on a single line, for the results streamed by the command line tools.
+ * Only strings, numbers, booleans, lists and maps of strings are needed, so no JSON library is involved. A JSON
+ * document produced elsewhere (e.g., the report of LiSA) can be embedded as it is, on a single line.
+ */
+final class Json {
+
+	private final StringBuilder object = new StringBuilder("{");
+
+	Json put(String key, String value) {
+		return key(key).append(value == null ? "null" : quote(value));
+	}
+
+	Json put(String key, long value) {
+		key(key).object.append(value);
+		return this;
+	}
+
+	Json put(String key, boolean value) {
+		key(key).object.append(value);
+		return this;
+	}
+
+	Json put(String key, Collection<String> values) {
+		key(key).object.append('[');
+		boolean first = true;
+		for (String value : values) {
+			if (!first)
+				object.append(',');
+			object.append(quote(value));
+			first = false;
+		}
+		object.append(']');
+		return this;
+	}
+
+	Json put(String key, Map<String, String> values) {
+		key(key).object.append('{');
+		boolean first = true;
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			if (!first)
+				object.append(',');
+			object.append(quote(entry.getKey())).append(':').append(quote(entry.getValue()));
+			first = false;
+		}
+		object.append('}');
+		return this;
+	}
+
+	// json is a valid JSON document: its line breaks can only be outside of its strings
+	Json putJson(String key, String json) {
+		return key(key).append(json.trim().replaceAll("\\s*\\R\\s*", " "));
+	}
+
+	private Json key(String key) {
+		if (object.length() > 1)
+			object.append(',');
+		object.append(quote(key)).append(':');
+		return this;
+	}
+
+	private Json append(String text) {
+		object.append(text);
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return object + "}";
+	}
+
+	static String quote(String value) {
+		StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				quoted.append("\\\"");
+				break;
+			case '\\':
+				quoted.append("\\\\");
+				break;
+			case '\n':
+				quoted.append("\\n");
+				break;
+			case '\r':
+				quoted.append("\\r");
+				break;
+			case '\t':
+				quoted.append("\\t");
+				break;
+			default:
+				if (c < 0x20)
+					quoted.append(String.format("\\u%04x", (int) c));
+				else
+					quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
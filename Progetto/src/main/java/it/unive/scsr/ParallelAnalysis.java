@@ -0,0 +1,191 @@
+package it.unive.scsr;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.checks.warnings.Warning;
+import it.unive.lisa.outputs.JsonReport;
+import it.unive.lisa.program.CompilationUnit;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.Unit;
+import it.unive.lisa.program.cfg.CFG;
+
+/*
+ * Analysis of a program that runs LiSA on each of its CFGs concurrently.
+ *
+ * LiSA analyzes every CFG on its own (a call is not followed into its target), so the program can be split in one
+ * program per CFG without changing the results. Each piece is analyzed by its own LiSA instance on a fixed pool of
+ * threads, in a private subdirectory of the workdir. When all of them are done, their files are moved to the workdir and
+ * a single report.json lists the warnings and the files of all the pieces. The pieces are sorted by signature and the
+ * files by name, so the output is the same for any number of threads and any order of completion. Each piece is
+ * admitted by an AdmissionControl with its estimated size, so the pieces running together can be kept under a heap
+ * budget (by default every piece is admitted at once).
+ */
+public class ParallelAnalysis {
+
+	// name of the subdirectories of the pieces, followed by their index
+	private static final String PIECE_DIR = ".cfg-";
+
+	private final Supplier<LiSAConfiguration> configurations;
+
+	private final int parallelism;
+
+	private final AdmissionControl admission;
+
+	// estimate of the bytes of the states of the analysis of a piece, see AdmissionControl.estimate
+	private final ToLongFunction<Program> estimate;
+
+	/*
+	 * configurations must give a new configuration, with a new abstract state, at each call: the workdir and the json
+	 * output are overwritten for each piece, and the domains may keep caches that are not safe to share between
+	 * pieces analyzed at the same time. This is not checked: a supplier returning the same state gives undefined
+	 * results
+	 */
+	public ParallelAnalysis(Supplier<LiSAConfiguration> configurations) {
+		this(configurations, Runtime.getRuntime().availableProcessors());
+	}
+
+	public ParallelAnalysis(Supplier<LiSAConfiguration> configurations, int parallelism) {
+		this(configurations, parallelism, AdmissionControl.UNBOUNDED, piece -> 0);
+	}
+
+	public ParallelAnalysis(Supplier<LiSAConfiguration> configurations, int parallelism, AdmissionControl admission,
+			ToLongFunction<Program> estimate) {
+		this.configurations = configurations;
+		this.parallelism = parallelism;
+		this.admission = admission;
+		this.estimate = estimate;
+	}
+
+	public void run(Program program, String workdir) throws AnalysisException {
+		boolean json = configurations.get().isJsonOutput();
+		List<Program> pieces = split(program);
+
+		List<Callable<Collection<Warning>>> tasks = new ArrayList<>(pieces.size());
+		for (int i = 0; i < pieces.size(); i++) {
+			Program piece = pieces.get(i);
+			String dir = Paths.get(workdir, PIECE_DIR + i).toString();
+			tasks.add(() -> analyze(piece, dir));
+		}
+
+		// the tasks block in the admission control, so they run on plain threads and not on a work-stealing pool
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+		List<Warning> warnings = new ArrayList<>();
+		try {
+			// invokeAll gives the futures in the order of the tasks, whatever the order of completion
+			for (Future<Collection<Warning>> result : pool.invokeAll(tasks))
+				warnings.addAll(result.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			discard(Paths.get(workdir), pieces.size());
+			throw new AnalysisException("Interrupted while analyzing the CFGs", e);
+		} catch (ExecutionException e) {
+			discard(Paths.get(workdir), pieces.size());
+			if (e.getCause() instanceof AnalysisException)
+				throw (AnalysisException) e.getCause();
+			throw new AnalysisException("Analysis of a CFG failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+
+		try {
+			List<String> files = merge(Paths.get(workdir), pieces.size());
+			if (json)
+				try (Writer writer = Files.newBufferedWriter(Paths.get(workdir, "report.json"))) {
+					new JsonReport(warnings, files).dump(writer);
+				}
+		} catch (IOException e) {
+			throw new AnalysisException("Unable to merge the outputs of the CFGs", e);
+		}
+	}
+
+	private Collection<Warning> analyze(Program piece, String dir) throws AnalysisException {
+		LiSAConfiguration conf = configurations.get();
+		conf.setWorkdir(dir);
+		conf.setJsonOutput(false);
+		return admission.run(conf, piece, estimate.applyAsLong(piece)).getWarnings();
+	}
+
+	// one program for each CFG of program, sorted by signature
+	static List<Program> split(Program program) {
+		List<CFG> cfgs = new ArrayList<>(program.getAllCFGs());
+		cfgs.sort(Comparator.comparing(cfg -> cfg.getDescriptor().getFullSignatureWithParNames()));
+
+		List<Program> pieces = new ArrayList<>(cfgs.size());
+		for (CFG cfg : cfgs) {
+			Program piece = new Program();
+			program.getRegisteredTypes().forEach(piece::registerType);
+			Unit unit = cfg.getDescriptor().getUnit();
+			if (unit instanceof CompilationUnit) {
+				// a unit with the same name, holding only this CFG
+				CompilationUnit owner = (CompilationUnit) unit;
+				CompilationUnit copy = new CompilationUnit(owner.getLocation(), owner.getName(), owner.isSealed());
+				if (cfg.getDescriptor().isInstance())
+					copy.addInstanceCFG(cfg);
+				else
+					copy.addCFG(cfg);
+				piece.addCompilationUnit(copy);
+			} else
+				piece.addCFG(cfg);
+			pieces.add(piece);
+		}
+		return pieces;
+	}
+
+	// moves the files of the pieces to workdir and removes their subdirectories, giving the names of the files
+	private static List<String> merge(Path workdir, int pieces) throws IOException {
+		List<String> files = new ArrayList<>();
+		Files.createDirectories(workdir);
+		for (int i = 0; i < pieces; i++) {
+			Path dir = workdir.resolve(PIECE_DIR + i);
+			if (!Files.isDirectory(dir))
+				continue;
+			List<Path> produced;
+			try (Stream<Path> list = Files.list(dir)) {
+				produced = list.collect(Collectors.toList());
+			}
+			for (Path file : produced) {
+				Files.move(file, workdir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+				files.add(file.getFileName().toString());
+			}
+			Files.delete(dir);
+		}
+		files.sort(null);
+		return files;
+	}
+
+	// removes the subdirectories of the pieces after a failure, leaving the workdir as it was
+	private static void discard(Path workdir, int pieces) {
+		for (int i = 0; i < pieces; i++) {
+			Path dir = workdir.resolve(PIECE_DIR + i);
+			if (!Files.isDirectory(dir))
+				continue;
+			try (Stream<Path> tree = Files.walk(dir)) {
+				// children before their parents
+				for (Path file : tree.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+					Files.delete(file);
+			} catch (IOException e) {
+				// the failure of the analysis is the one reported
+			}
+		}
+	}
+}
@@ -26,13 +26,37 @@ public class ReachingDefinitions
 	private final Identifier id;
 	private final CodeLocation point;
 
+	// definitions of each identifier, shared with the elements generated from this one (null for standalone elements)
+	private final IdentifierIndex<ReachingDefinitions> index;
+
 	public ReachingDefinitions() {
-		this(null, null);
+		this(null, null, new IdentifierIndex<>());
 	}
 
 	public ReachingDefinitions(Identifier id, CodeLocation point) {
+		this(id, point, null);
+	}
+
+	private ReachingDefinitions(Identifier id, CodeLocation point, IdentifierIndex<ReachingDefinitions> index) {
 		this.id = id;
 		this.point = point;
+		this.index = index;
+	}
+
+	// an element of the same index of this one, registered in the index
+	private ReachingDefinitions indexed(Identifier id, CodeLocation point) {
+		ReachingDefinitions rd = new ReachingDefinitions(id, point, index);
+		if (index != null)
+			index.add(id, rd);
+		return rd;
+	}
+
+	public Identifier getIdentifier() {
+		return id;
+	}
+
+	public CodeLocation getLocation() {
+		return point;
 	}
 
 	@Override
@@ -63,7 +87,7 @@ public class ReachingDefinitions
 	public Collection<ReachingDefinitions> gen(Identifier id, ValueExpression expression, ProgramPoint pp,
 			PossibleForwardDataflowDomain<ReachingDefinitions> domain) throws SemanticException {
 		Set<ReachingDefinitions> result = new HashSet<>();
-		ReachingDefinitions rd = new ReachingDefinitions(id, pp.getLocation());
+		ReachingDefinitions rd = indexed(id, pp.getLocation());
 		result.add(rd);
 		return result;
 	}
@@ -77,6 +101,9 @@ public class ReachingDefinitions
 	@Override
 	public Collection<ReachingDefinitions> kill(Identifier id, ValueExpression expression, ProgramPoint pp,
 			PossibleForwardDataflowDomain<ReachingDefinitions> domain) throws SemanticException {
+		if (index != null)
+			return index.kill(id, domain.getDataflowElements());
+
 		Set<ReachingDefinitions> result = new HashSet<>();
 
 		for (ReachingDefinitions rd : domain.getDataflowElements())
@@ -101,7 +128,7 @@ public class ReachingDefinitions
 
 	@Override
 	public ReachingDefinitions pushScope(ScopeToken token) throws SemanticException {
-		return new ReachingDefinitions((Identifier) id.pushScope(token), point);
+		return indexed((Identifier) id.pushScope(token), point);
 	}
 
 	@Override
@@ -109,6 +136,6 @@ public class ReachingDefinitions
 		if (!(id instanceof OutOfScopeIdentifier))
 			return null;
 
-		return new ReachingDefinitions((Identifier) id.popScope(token), point);
+		return indexed((Identifier) id.popScope(token), point);
 	}
 }
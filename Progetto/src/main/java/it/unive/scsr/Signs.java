@@ -1,7 +1,5 @@
 package it.unive.scsr;
 
-import java.util.Objects;
-
 import it.unive.lisa.analysis.SemanticException;
 import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
 import it.unive.lisa.analysis.representation.DomainRepresentation;
@@ -20,6 +18,9 @@ public class Signs extends BaseNonRelationalValueDomain<Signs> {
 
 	private static final Signs TOP = new Signs(Sign.TOP);
 	private static final Signs BOTTOM = new Signs(Sign.BOTTOM);
+	private static final Signs MINUS = new Signs(Sign.MINUS);
+	private static final Signs ZERO = new Signs(Sign.ZERO);
+	private static final Signs PLUS = new Signs(Sign.PLUS);
 
 	enum Sign {
 		BOTTOM, MINUS, ZERO, PLUS, TOP;
@@ -31,13 +32,13 @@ public class Signs extends BaseNonRelationalValueDomain<Signs> {
 		this(Sign.TOP);
 	}
 
-	public Signs(Sign sign) {
+	private Signs(Sign sign) {
 		this.sign = sign;
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(sign);
+		return sign.ordinal();
 	}
 
 	@Override
@@ -87,20 +88,20 @@ public class Signs extends BaseNonRelationalValueDomain<Signs> {
 		if (constant.getValue() instanceof Integer) {
 			int v = (Integer) constant.getValue();
 			if (v > 0)
-				return new Signs(Sign.PLUS);
+				return PLUS;
 			else if (v == 0)
-				return new Signs(Sign.ZERO);
+				return ZERO;
 			else
-				return new Signs(Sign.MINUS);
+				return MINUS;
 		}
 		return top();
 	}
 
 	private Signs negate() {
 		if (sign == Sign.MINUS)
-			return new Signs(Sign.PLUS);
+			return PLUS;
 		else if (sign == Sign.PLUS)
-			return new Signs(Sign.MINUS);
+			return MINUS;
 		else
 			return this;
 	}
@@ -183,7 +184,7 @@ public class Signs extends BaseNonRelationalValueDomain<Signs> {
 			case TOP:
 				return TOP;
 			case ZERO:
-				return new Signs(Sign.ZERO);
+				return ZERO;
 			default:
 				return TOP;
 			}
@@ -199,7 +200,7 @@ public class Signs extends BaseNonRelationalValueDomain<Signs> {
 			case TOP:
 				return TOP;
 			case ZERO:
-				return new Signs(Sign.ZERO);
+				return ZERO;
 			default:
 				return TOP;
 			}
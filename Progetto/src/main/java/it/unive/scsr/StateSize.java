@@ -0,0 +1,41 @@
+package it.unive.scsr;
+
+/*
+ * Bytes of the parts of the states kept by LiSA, from which AdmissionControl estimates the heap of an analysis: the
+ * part of a state that does not depend on the program (analysis state, heap, wrappers), the binding of a variable in
+ * the type environment, and one element of the value domain (a map entry for the environments, a set entry and its
+ * element for the dataflow domains).
+ *
+ * The defaults of AnalysisDomain are rough figures for a 64-bit JVM with compressed references, not measurements:
+ * a heap budget is only as good as the sizes, so they should be measured on the JVM running the analyses (e.g., with
+ * a heap histogram of a few analyses) and given to BatchRunner with --state-size.
+ */
+public final class StateSize {
+
+	final long stateBytes;
+
+	final long typeBytes;
+
+	final long entryBytes;
+
+	public StateSize(long stateBytes, long typeBytes, long entryBytes) {
+		if (stateBytes < 0 || typeBytes < 0 || entryBytes < 0)
+			throw new IllegalArgumentException("The sizes of a state cannot be negative");
+		this.stateBytes = stateBytes;
+		this.typeBytes = typeBytes;
+		this.entryBytes = entryBytes;
+	}
+
+	// sizes written as <state>,<type>,<entry>
+	public static StateSize parse(String sizes) {
+		String[] bytes = sizes.split(",");
+		if (bytes.length != 3)
+			throw new IllegalArgumentException("Expected <state>,<type>,<entry>: " + sizes);
+		return new StateSize(Long.parseLong(bytes[0].trim()), Long.parseLong(bytes[1].trim()), Long.parseLong(bytes[2].trim()));
+	}
+
+	@Override
+	public String toString() {
+		return stateBytes + "," + typeBytes + "," + entryBytes;
+	}
+}
@@ -0,0 +1,149 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
+
+/*
+ * Backward evaluation of an expression against the value it must take. The target is pushed from the root of the
+ * expression down to its identifiers through the inverse of each operator, and the value reaching an identifier is
+ * met (glb) with its current binding: bindings only shrink, and an empty meet means that the condition cannot hold.
+ *
+ * E.g. on the signs, assume(x + 1 > 0) gives x + 1 the target +, so x must be in + - + = TOP and nothing is learnt,
+ * while assume(x * y < 0) with y = + gives x * y the target -, so x must be in - / + = -.
+ *
+ * The bindings are read and written through Bindings, so that the same refinement runs on the ValueEnvironment of
+ * the domains and on the array of DenseValueEnvironment.
+ */
+final class BackwardRefinement {
+
+    // the inverse transfer functions of a domain: each returns the values of an operand that can produce target
+    interface Inverse<T> {
+
+        // values of x such that op x can be in target
+        T operand(UnaryOperator operator, T target);
+
+        // values of x such that x op right can be in target
+        T left(BinaryOperator operator, T target, T right);
+
+        // values of y such that left op y can be in target
+        T right(BinaryOperator operator, T target, T left);
+    }
+
+    // the environment being refined
+    interface Bindings<T> {
+
+        // forward evaluation of expression on the current bindings
+        T eval(ValueExpression expression, ProgramPoint pp) throws SemanticException;
+
+        // the value bound to id, null if id has no binding
+        T get(Identifier id);
+
+        void set(Identifier id, T value);
+    }
+
+    private BackwardRefinement() {
+    }
+
+    // environment restricted to the states where left op right holds, op being a comparison id (see Operators.COMPARISONS)
+    static <T extends BaseNonRelationalValueDomain<T> & DenseRefinableDomain<T>> ValueEnvironment<T> assume(T domain, ValueEnvironment<T> environment, int op,
+                                                                                                        ValueExpression left, ValueExpression right, ProgramPoint pp) throws SemanticException {
+        if (environment.isBottom())
+            return environment;
+        EnvironmentBindings<T> bindings = new EnvironmentBindings<>(domain, environment);
+        return assume(bindings, domain, op, left, right, pp) ? bindings.environment : environment.bottom();
+    }
+
+    // refines bindings so that left op right holds: false if it cannot hold
+    static <T extends BaseNonRelationalValueDomain<T> & DenseRefinableDomain<T>> boolean assume(Bindings<T> bindings, T domain, int op,
+                                                                                            ValueExpression left, ValueExpression right, ProgramPoint pp) throws SemanticException {
+        // left is refined with the values in relation op with right, then right with the flipped relation
+        T r = bindings.eval(right, pp);
+        if (!refine(bindings, left, domain.comparisonTarget(op, r), domain.inverse(), pp))
+            return false;
+        T l = bindings.eval(left, pp);
+        return refine(bindings, right, domain.comparisonTarget(Operators.FLIPPED[op], l), domain.inverse(), pp);
+    }
+
+    // refines bindings so that expression evaluates to a value in target: false if it cannot
+    static <T extends BaseNonRelationalValueDomain<T>> boolean refine(Bindings<T> bindings, ValueExpression expression,
+                                                                     T target, Inverse<T> inverse, ProgramPoint pp) throws SemanticException {
+        if (target.isTop())
+            return true;
+        if (target.isBottom())
+            return false;
+
+        if (expression instanceof Identifier) {
+            Identifier id = (Identifier) expression;
+            // an identifier without binding can be anything
+            T current = bindings.get(id);
+            if (current == null)
+                current = target.top();
+            T refined = current.glb(target);
+            if (refined.isBottom())
+                return false;
+            if (!refined.equals(current))
+                bindings.set(id, refined);
+            return true;
+        }
+
+        if (expression instanceof UnaryExpression) {
+            UnaryExpression unary = (UnaryExpression) expression;
+            if (unary.getExpression() instanceof ValueExpression)
+                return refine(bindings, (ValueExpression) unary.getExpression(), inverse.operand(unary.getOperator(), target), inverse, pp);
+            return true;
+        }
+
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            if (!(binary.getLeft() instanceof ValueExpression) || !(binary.getRight() instanceof ValueExpression))
+                return true;
+            ValueExpression left = (ValueExpression) binary.getLeft();
+            ValueExpression right = (ValueExpression) binary.getRight();
+            T rightValue = bindings.eval(right, pp);
+            if (!refine(bindings, left, inverse.left(binary.getOperator(), target, rightValue), inverse, pp))
+                return false;
+            // the left operand is evaluated again, since it may have been refined just above
+            T leftValue = bindings.eval(left, pp);
+            return refine(bindings, right, inverse.right(binary.getOperator(), target, leftValue), inverse, pp);
+        }
+
+        // constants and the other leaves cannot be refined, but they can contradict the target
+        return !bindings.eval(expression, pp).glb(target).isBottom();
+    }
+
+    // bindings of a ValueEnvironment, replaced by a new environment at each set
+    private static final class EnvironmentBindings<T extends BaseNonRelationalValueDomain<T>> implements Bindings<T> {
+
+        private final T domain;
+
+        private ValueEnvironment<T> environment;
+
+        EnvironmentBindings(T domain, ValueEnvironment<T> environment) {
+            this.domain = domain;
+            this.environment = environment;
+        }
+
+        @Override
+        public T eval(ValueExpression expression, ProgramPoint pp) throws SemanticException {
+            return domain.eval(expression, environment, pp);
+        }
+
+        @Override
+        public T get(Identifier id) {
+            return environment.getKeys().contains(id) ? environment.getState(id) : null;
+        }
+
+        @Override
+        public void set(Identifier id, T value) {
+            environment = environment.putState(id, value);
+        }
+    }
+}
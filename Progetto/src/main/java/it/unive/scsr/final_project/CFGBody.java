@@ -0,0 +1,155 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.Parameter;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Expression;
+import it.unive.lisa.program.cfg.statement.Literal;
+import it.unive.lisa.program.cfg.statement.NaryExpression;
+import it.unive.lisa.program.cfg.statement.Return;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
+import it.unive.lisa.program.cfg.statement.numeric.Addition;
+import it.unive.lisa.program.cfg.statement.numeric.Division;
+import it.unive.lisa.program.cfg.statement.numeric.Modulo;
+import it.unive.lisa.program.cfg.statement.numeric.Multiplication;
+import it.unive.lisa.program.cfg.statement.numeric.Negation;
+import it.unive.lisa.program.cfg.statement.numeric.Subtraction;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingDiv;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMod;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingSub;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.lisa.type.common.Int32;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Body of the summaries of the CFGs of a program: the value returned by a CFG for some arguments is the lub of the
+ * values of its return statements, evaluated in the domain.
+ *
+ * The evaluation is flow insensitive: a variable holds the lub of its argument and of the values of all its
+ * assignments, computed again until none of them grows (the domains are finite). The guards and the order of the
+ * statements are ignored, which is sound but loses the refinements of the branches. The arithmetic statements are
+ * evaluated as the symbolic expressions LiSA builds for them, and a call is the summary of the callees with its name
+ * and number of arguments, as in CallGraph.of. Any other expression, and a call to a function outside the program,
+ * is top.
+ */
+public final class CFGBody<T extends BaseNonRelationalValueDomain<T> & DenseValueDomain<T>> implements Summaries.Body<CFG, T> {
+
+    // the operands of the symbolic expressions, bound to the values of the operands of a statement
+    private static final Variable LEFT = new Variable(Int32.INSTANCE, "left", SyntheticLocation.INSTANCE);
+    private static final Variable RIGHT = new Variable(Int32.INSTANCE, "right", SyntheticLocation.INSTANCE);
+
+    private final CallGraph<CFG> graph;
+
+    private final T domain;
+
+    public CFGBody(CallGraph<CFG> graph, T domain) {
+        this.graph = graph;
+        this.domain = domain;
+    }
+
+    @Override
+    public T analyze(CFG function, List<T> arguments, Summaries<CFG, T> summaries) throws SemanticException {
+        Map<String, T> variables = new HashMap<>();
+        Parameter[] formals = function.getDescriptor().getArgs();
+        for (int i = 0; i < formals.length; i++)
+            variables.put(formals[i].getName(), arguments.get(i));
+
+        boolean grown;
+        do {
+            grown = false;
+            for (Statement node : function.getNodes())
+                if (node instanceof Assignment && ((Assignment) node).getLeft() instanceof VariableRef) {
+                    String name = ((VariableRef) ((Assignment) node).getLeft()).getName();
+                    T value = eval(function, ((Assignment) node).getRight(), variables, summaries);
+                    T previous = variables.get(name);
+                    T lub = previous == null ? value : previous.lub(value);
+                    if (!lub.equals(previous)) {
+                        variables.put(name, lub);
+                        grown = true;
+                    }
+                }
+        } while (grown);
+
+        T result = domain.bottom();
+        for (Statement node : function.getNodes())
+            if (node instanceof Return)
+                result = result.lub(eval(function, ((Return) node).getExpression(), variables, summaries));
+        return result;
+    }
+
+    private T eval(CFG function, Expression expression, Map<String, T> variables, Summaries<CFG, T> summaries) throws SemanticException {
+        if (expression instanceof VariableRef)
+            // a variable not assigned yet has no value
+            return variables.getOrDefault(((VariableRef) expression).getName(), domain.bottom());
+        if (expression instanceof Literal) {
+            Object value = ((Literal) expression).getValue();
+            if (!(value instanceof Integer))
+                return domain.top();
+            return domain.eval(new Constant(Int32.INSTANCE, value, SyntheticLocation.INSTANCE), new ValueEnvironment<>(domain), expression);
+        }
+        if (expression instanceof UnresolvedCall)
+            return call(function, (UnresolvedCall) expression, variables, summaries);
+        if (expression instanceof Negation) {
+            T arg = eval(function, ((Negation) expression).getSubExpressions()[0], variables, summaries);
+            ValueEnvironment<T> environment = new ValueEnvironment<>(domain).putState(LEFT, arg);
+            return domain.eval(new UnaryExpression(Int32.INSTANCE, LEFT, NumericNegation.INSTANCE, SyntheticLocation.INSTANCE), environment, expression);
+        }
+
+        BinaryOperator operator = operator(expression);
+        if (operator == null)
+            return domain.top();
+        Expression[] operands = ((NaryExpression) expression).getSubExpressions();
+        T left = eval(function, operands[0], variables, summaries);
+        T right = eval(function, operands[1], variables, summaries);
+        ValueEnvironment<T> environment = new ValueEnvironment<>(domain).putState(LEFT, left).putState(RIGHT, right);
+        return domain.eval(new BinaryExpression(Int32.INSTANCE, LEFT, RIGHT, operator, SyntheticLocation.INSTANCE), environment, expression);
+    }
+
+    // the operator of an arithmetic statement, null for the other expressions
+    private static BinaryOperator operator(Expression expression) {
+        if (expression instanceof Addition)
+            return NumericNonOverflowingAdd.INSTANCE;
+        if (expression instanceof Subtraction)
+            return NumericNonOverflowingSub.INSTANCE;
+        if (expression instanceof Multiplication)
+            return NumericNonOverflowingMul.INSTANCE;
+        if (expression instanceof Division)
+            return NumericNonOverflowingDiv.INSTANCE;
+        if (expression instanceof Modulo)
+            return NumericNonOverflowingMod.INSTANCE;
+        return null;
+    }
+
+    // lub of the summaries of the callees of function matching call, top if there is none
+    private T call(CFG function, UnresolvedCall call, Map<String, T> variables, Summaries<CFG, T> summaries) throws SemanticException {
+        Expression[] parameters = call.getSubExpressions();
+        List<T> arguments = new ArrayList<>(parameters.length);
+        for (Expression parameter : parameters)
+            arguments.add(eval(function, parameter, variables, summaries));
+
+        T result = null;
+        for (CFG callee : graph.callees(function))
+            if (callee.getDescriptor().getName().equals(call.getTargetName()) && callee.getDescriptor().getArgs().length == parameters.length) {
+                T value = summaries.call(callee, arguments);
+                result = result == null ? value : result.lub(value);
+            }
+        return result == null ? domain.top() : result;
+    }
+}
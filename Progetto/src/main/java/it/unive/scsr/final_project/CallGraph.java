@@ -0,0 +1,136 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Expression;
+import it.unive.lisa.program.cfg.statement.call.UnresolvedCall;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Calls between the functions of a program, and its strongly connected components in bottom-up order.
+ * The graph of the CFGs of a program is built by of(program) from the calls in their statements.
+ *
+ * The components are found with Tarjan's algorithm, which emits each component after all the components it calls.
+ * The visit keeps its own stack instead of recursing, so that long call chains do not overflow the thread stack.
+ */
+public final class CallGraph<F> {
+
+    // callees of each function, in insertion order so that the components are the same at each run
+    private final Map<F, Set<F>> calls = new LinkedHashMap<>();
+
+    /*
+     * the calls between the CFGs of program. A call is resolved by name and number of parameters (the receiver
+     * included) to every CFG that matches, since the runtime type of the receiver is not known here
+     */
+    public static CallGraph<CFG> of(Program program) {
+        List<CFG> cfgs = new ArrayList<>(program.getAllCFGs());
+        cfgs.sort(Comparator.comparing(cfg -> cfg.getDescriptor().getFullSignatureWithParNames()));
+
+        CallGraph<CFG> graph = new CallGraph<>();
+        Map<String, List<CFG>> byName = new HashMap<>();
+        for (CFG cfg : cfgs) {
+            graph.addFunction(cfg);
+            byName.computeIfAbsent(cfg.getDescriptor().getName(), name -> new ArrayList<>()).add(cfg);
+        }
+        for (CFG caller : cfgs)
+            for (Expression expression : Expressions.of(caller))
+                if (expression instanceof UnresolvedCall) {
+                    UnresolvedCall call = (UnresolvedCall) expression;
+                    for (CFG callee : byName.getOrDefault(call.getTargetName(), Collections.emptyList()))
+                        if (callee.getDescriptor().getArgs().length == call.getSubExpressions().length)
+                            graph.addCall(caller, callee);
+                }
+        return graph;
+    }
+
+    public CallGraph<F> addFunction(F function) {
+        calls.computeIfAbsent(function, f -> new LinkedHashSet<>());
+        return this;
+    }
+
+    public CallGraph<F> addCall(F caller, F callee) {
+        addFunction(callee);
+        calls.computeIfAbsent(caller, f -> new LinkedHashSet<>()).add(callee);
+        return this;
+    }
+
+    public Set<F> functions() {
+        return Collections.unmodifiableSet(calls.keySet());
+    }
+
+    public Set<F> callees(F function) {
+        return Collections.unmodifiableSet(calls.getOrDefault(function, Collections.emptySet()));
+    }
+
+    // the strongly connected components, each one after the components it calls
+    public List<List<F>> components() {
+        Map<F, Integer> index = new HashMap<>();
+        Map<F, Integer> lowlink = new HashMap<>();
+        Set<F> onStack = new LinkedHashSet<>();
+        Deque<F> stack = new ArrayDeque<>();
+        List<List<F>> components = new ArrayList<>();
+
+        // frames of the visit: a function and the iterator over the callees still to visit
+        Deque<F> visiting = new ArrayDeque<>();
+        Deque<Iterator<F>> pending = new ArrayDeque<>();
+
+        for (F root : calls.keySet()) {
+            if (index.containsKey(root))
+                continue;
+            enter(root, index, lowlink, onStack, stack, visiting, pending);
+            while (!visiting.isEmpty()) {
+                F function = visiting.peek();
+                Iterator<F> callees = pending.peek();
+                if (callees.hasNext()) {
+                    F callee = callees.next();
+                    if (!index.containsKey(callee))
+                        enter(callee, index, lowlink, onStack, stack, visiting, pending);
+                    else if (onStack.contains(callee))
+                        lowlink.put(function, Math.min(lowlink.get(function), index.get(callee)));
+                    continue;
+                }
+
+                // all the callees are visited: function is done
+                visiting.pop();
+                pending.pop();
+                if (!visiting.isEmpty()) {
+                    F caller = visiting.peek();
+                    lowlink.put(caller, Math.min(lowlink.get(caller), lowlink.get(function)));
+                }
+                if (lowlink.get(function).equals(index.get(function))) {
+                    List<F> component = new ArrayList<>();
+                    F member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(function));
+                    components.add(component);
+                }
+            }
+        }
+        return components;
+    }
+
+    private void enter(F function, Map<F, Integer> index, Map<F, Integer> lowlink, Set<F> onStack, Deque<F> stack,
+                       Deque<F> visiting, Deque<Iterator<F>> pending) {
+        index.put(function, index.size());
+        lowlink.put(function, index.get(function));
+        stack.push(function);
+        onStack.add(function);
+        visiting.push(function);
+        pending.push(callees(function).iterator());
+    }
+}
@@ -0,0 +1,376 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.representation.DomainRepresentation;
+import it.unive.lisa.analysis.representation.StringRepresentation;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.AdditionOperator;
+import it.unive.lisa.symbolic.value.operator.DivisionOperator;
+import it.unive.lisa.symbolic.value.operator.Module;
+import it.unive.lisa.symbolic.value.operator.Multiplication;
+import it.unive.lisa.symbolic.value.operator.SubtractionOperator;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
+
+/*
+ * Congruences modulus * Z + remainder, with 0 <= remainder < modulus. Modulus 0 is the constant remainder,
+ * modulus 1 is top and ParityDomain is modulus 2.
+ *
+ * The instances with a small modulus or a small constant are built once and reused, the others are two longs.
+ * An arithmetic overflow gives top (or, in glb, the first argument), which is always sound.
+ * REDUCTION combines the domain with ExtSignDomain in a ReducedProduct, in place of parity.
+ */
+public class CongruenceDomain extends BaseNonRelationalValueDomain<CongruenceDomain> {
+
+    private static final int CACHED_MODULI = 16;
+
+    private static final int CACHED_CONSTANTS = 128;
+
+    // CONGRUENCES[m][r] is m * Z + r
+    private static final CongruenceDomain[][] CONGRUENCES = new CongruenceDomain[CACHED_MODULI + 1][];
+
+    // CONSTANTS[c + CACHED_CONSTANTS] is c
+    private static final CongruenceDomain[] CONSTANTS = new CongruenceDomain[2 * CACHED_CONSTANTS];
+
+    static {
+        for (int m = 1; m <= CACHED_MODULI; m++) {
+            CONGRUENCES[m] = new CongruenceDomain[m];
+            for (int r = 0; r < m; r++)
+                CONGRUENCES[m][r] = new CongruenceDomain(m, r);
+        }
+        for (int c = -CACHED_CONSTANTS; c < CACHED_CONSTANTS; c++)
+            CONSTANTS[c + CACHED_CONSTANTS] = new CongruenceDomain(0, c);
+    }
+
+    public static final CongruenceDomain TOP = CONGRUENCES[1][0];
+
+    public static final CongruenceDomain BOTTOM = new CongruenceDomain(-1, 0);
+
+    public static final CongruenceDomain EVEN = CONGRUENCES[2][0];
+
+    public static final CongruenceDomain ODD = CONGRUENCES[2][1];
+
+    public static final CongruenceDomain ZERO = CONSTANTS[CACHED_CONSTANTS];
+
+    // -1 only for bottom
+    private final long modulus;
+
+    private final long remainder;
+
+    public CongruenceDomain() {
+        this(1, 0);
+    }
+
+    private CongruenceDomain(long modulus, long remainder) {
+        this.modulus = modulus;
+        this.remainder = remainder;
+    }
+
+    public static CongruenceDomain of(long modulus, long remainder) {
+        if (modulus == 0)
+            return fromLong(remainder);
+        modulus = Math.abs(modulus);
+        remainder = Math.floorMod(remainder, modulus);
+        if (modulus <= CACHED_MODULI)
+            return CONGRUENCES[(int) modulus][(int) remainder];
+        return new CongruenceDomain(modulus, remainder);
+    }
+
+    public static CongruenceDomain fromLong(long c) {
+        if (c >= -CACHED_CONSTANTS && c < CACHED_CONSTANTS)
+            return CONSTANTS[(int) c + CACHED_CONSTANTS];
+        return new CongruenceDomain(0, c);
+    }
+
+    public static CongruenceDomain fromInt(Integer c) {
+        return fromLong(c);
+    }
+
+    public long getModulus() {
+        return modulus;
+    }
+
+    public long getRemainder() {
+        return remainder;
+    }
+
+    public boolean isConstant() {
+        return modulus == 0;
+    }
+
+    public boolean contains(long c) {
+        return modulus == 0 ? remainder == c : Math.floorMod(c, modulus) == remainder;
+    }
+
+    private static long gcd(long a, long b) {
+        a = Math.abs(a);
+        b = Math.abs(b);
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    public CongruenceDomain add(CongruenceDomain other) {
+        try {
+            return of(gcd(modulus, other.modulus), Math.addExact(remainder, other.remainder));
+        } catch (ArithmeticException e) {
+            return TOP;
+        }
+    }
+
+    public CongruenceDomain sub(CongruenceDomain other) {
+        try {
+            return of(gcd(modulus, other.modulus), Math.subtractExact(remainder, other.remainder));
+        } catch (ArithmeticException e) {
+            return TOP;
+        }
+    }
+
+    // (m1 Z + r1)(m2 Z + r2) = m1 m2 Z + m1 r2 Z + m2 r1 Z + r1 r2
+    public CongruenceDomain mul(CongruenceDomain other) {
+        try {
+            long m = gcd(Math.multiplyExact(modulus, other.modulus),
+                    gcd(Math.multiplyExact(modulus, other.remainder), Math.multiplyExact(other.modulus, remainder)));
+            return of(m, Math.multiplyExact(remainder, other.remainder));
+        } catch (ArithmeticException e) {
+            return TOP;
+        }
+    }
+
+    // x % y = x - y * (x / y), and y * (x / y) is in gcd(m2, r2) Z
+    public CongruenceDomain mod(CongruenceDomain other) {
+        if (other.equals(ZERO))
+            return BOTTOM;
+        if (isConstant() && other.isConstant())
+            return fromLong(remainder % other.remainder);
+        return of(gcd(modulus, gcd(other.modulus, other.remainder)), remainder);
+    }
+
+    // exact only when every value of this is a multiple of the constant divisor
+    public CongruenceDomain div(CongruenceDomain other) {
+        if (other.equals(ZERO))
+            return BOTTOM;
+        if (!other.isConstant())
+            return TOP;
+        long d = other.remainder;
+        if (isConstant())
+            return remainder == Long.MIN_VALUE && d == -1 ? TOP : fromLong(remainder / d);
+        if (modulus % d == 0 && remainder % d == 0)
+            return of(modulus / Math.abs(d), remainder / d);
+        return TOP;
+    }
+
+    @Override
+    protected CongruenceDomain evalNullConstant(ProgramPoint pp) {
+        return TOP;
+    }
+
+    @Override
+    protected CongruenceDomain evalNonNullConstant(Constant constant, ProgramPoint pp) {
+        if (constant.getValue() instanceof Integer)
+            return fromInt((Integer) constant.getValue());
+        return TOP;
+    }
+
+    @Override
+    protected CongruenceDomain evalUnaryExpression(UnaryOperator operator, CongruenceDomain arg, ProgramPoint pp) {
+        if (operator == NumericNegation.INSTANCE)
+            return ZERO.sub(arg);
+        return TOP;
+    }
+
+    @Override
+    protected CongruenceDomain evalBinaryExpression(BinaryOperator operator, CongruenceDomain left, CongruenceDomain right, ProgramPoint pp) {
+        if (left.isBottom() || right.isBottom())
+            return BOTTOM;
+        if (operator instanceof AdditionOperator)
+            return left.add(right);
+        if (operator instanceof SubtractionOperator)
+            return left.sub(right);
+        if (operator instanceof Multiplication)
+            return left.mul(right);
+        if (operator instanceof DivisionOperator)
+            return left.div(right);
+        if (operator instanceof Module)
+            return left.mod(right);
+        return TOP;
+    }
+
+    @Override
+    protected SemanticDomain.Satisfiability satisfiesBinaryExpression(BinaryOperator operator, CongruenceDomain left, CongruenceDomain right, ProgramPoint pp) throws SemanticException {
+        if (operator == ComparisonEq.INSTANCE) {
+            if (left.glb(right).isBottom())
+                return SemanticDomain.Satisfiability.NOT_SATISFIED;
+            if (left.isConstant() && right.isConstant())
+                return SemanticDomain.Satisfiability.SATISFIED;
+        } else if (operator == ComparisonNe.INSTANCE) {
+            if (left.glb(right).isBottom())
+                return SemanticDomain.Satisfiability.SATISFIED;
+            if (left.isConstant() && right.isConstant())
+                return SemanticDomain.Satisfiability.NOT_SATISFIED;
+        }
+        return SemanticDomain.Satisfiability.UNKNOWN;
+    }
+
+    // x == e: x is in both its congruence and the one of e
+    @Override
+    protected ValueEnvironment<CongruenceDomain> assumeBinaryExpression(ValueEnvironment<CongruenceDomain> environment, BinaryOperator operator, ValueExpression left, ValueExpression right, ProgramPoint pp) throws SemanticException {
+        if (operator == ComparisonEq.INSTANCE) {
+            if (left instanceof Identifier)
+                return refine(environment, (Identifier) left, eval(right, environment, pp));
+            else if (right instanceof Identifier)
+                return refine(environment, (Identifier) right, eval(left, environment, pp));
+        }
+        return environment;
+    }
+
+    private static ValueEnvironment<CongruenceDomain> refine(ValueEnvironment<CongruenceDomain> environment, Identifier id, CongruenceDomain congruence) throws SemanticException {
+        CongruenceDomain refined = environment.getState(id).glb(congruence);
+        if (refined.isBottom())
+            return environment.bottom();
+        return environment.putState(id, refined);
+    }
+
+    @Override
+    protected CongruenceDomain lubAux(CongruenceDomain other) {
+        try {
+            return of(gcd(gcd(modulus, other.modulus), Math.subtractExact(remainder, other.remainder)), remainder);
+        } catch (ArithmeticException e) {
+            return TOP;
+        }
+    }
+
+    // chinese remainder theorem
+    @Override
+    protected CongruenceDomain glbAux(CongruenceDomain other) {
+        if (isConstant())
+            return other.contains(remainder) ? this : BOTTOM;
+        if (other.isConstant())
+            return contains(other.remainder) ? other : BOTTOM;
+
+        long g = gcd(modulus, other.modulus);
+        long difference = other.remainder - remainder;
+        if (difference % g != 0)
+            return BOTTOM;
+        try {
+            long m = other.modulus / g;
+            // modulus * inverse = g (mod other.modulus)
+            long inverse = Math.floorMod(inverse(modulus / g, m), m);
+            long k = Math.floorMod(Math.multiplyExact(difference / g, inverse), m);
+            return of(Math.multiplyExact(modulus, m), Math.addExact(remainder, Math.multiplyExact(modulus, k)));
+        } catch (ArithmeticException e) {
+            return this;
+        }
+    }
+
+    // the x such that a x = 1 (mod m), for a and m coprime
+    private static long inverse(long a, long m) {
+        long oldR = a, r = m, oldS = 1, s = 0;
+        while (r != 0) {
+            long q = oldR / r;
+            long t = oldR - q * r;
+            oldR = r;
+            r = t;
+            t = oldS - q * s;
+            oldS = s;
+            s = t;
+        }
+        return oldS;
+    }
+
+    // the modulus can only decrease through its divisors after the first lub, so the chains are finite
+    @Override
+    protected CongruenceDomain wideningAux(CongruenceDomain other) {
+        return lubAux(other);
+    }
+
+    @Override
+    protected boolean lessOrEqualAux(CongruenceDomain other) {
+        if (other.modulus == 0)
+            return modulus == 0 && remainder == other.remainder;
+        return modulus % other.modulus == 0 && other.contains(remainder);
+    }
+
+    @Override
+    public CongruenceDomain top() {
+        return TOP;
+    }
+
+    @Override
+    public CongruenceDomain bottom() {
+        return BOTTOM;
+    }
+
+    @Override
+    public boolean isTop() {
+        return modulus == 1;
+    }
+
+    @Override
+    public boolean isBottom() {
+        return modulus == -1;
+    }
+
+    @Override
+    public DomainRepresentation representation() {
+        if (isBottom())
+            return Lattice.BOTTOM_REPR;
+        if (isTop())
+            return Lattice.TOP_REPR;
+        if (isConstant())
+            return new StringRepresentation(String.valueOf(remainder));
+        return new StringRepresentation(remainder == 0 ? modulus + "Z" : modulus + "Z+" + remainder);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CongruenceDomain that = (CongruenceDomain) o;
+        return modulus == that.modulus && remainder == that.remainder;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(modulus) * 31 + Long.hashCode(remainder);
+    }
+
+    // the reduction of the product of ExtSignDomain and CongruenceDomain
+    public static final ReducedProduct.Reduction<ExtSignDomain, CongruenceDomain> REDUCTION = new ReducedProduct.Reduction<ExtSignDomain, CongruenceDomain>() {
+        @Override
+        public ExtSignDomain reduceFirst(ExtSignDomain first, CongruenceDomain second) throws SemanticException {
+            if (second.isConstant())
+                return first.glb(second.remainder < 0 ? ExtSignDomain.NEG : second.remainder == 0 ? ExtSignDomain.ZERO : ExtSignDomain.POS);
+            // zero is not in the congruence
+            if (second.modulus > 0 && second.remainder != 0) {
+                if (first.sign == ExtSignDomain.Sign.POS_OR_ZERO)
+                    return ExtSignDomain.POS;
+                if (first.sign == ExtSignDomain.Sign.NEG_OR_ZERO)
+                    return ExtSignDomain.NEG;
+            }
+            return first;
+        }
+
+        @Override
+        public CongruenceDomain reduceSecond(ExtSignDomain first, CongruenceDomain second) throws SemanticException {
+            if (first.sign == ExtSignDomain.Sign.BOTTOM)
+                return BOTTOM;
+            if (first.sign == ExtSignDomain.Sign.ZERO)
+                return second.glb(ZERO);
+            return second;
+        }
+    };
+}
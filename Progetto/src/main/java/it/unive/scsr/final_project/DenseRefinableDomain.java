@@ -0,0 +1,27 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
+
+/*
+ * A DenseValueDomain whose comparisons are assumed by backward refinement (see BackwardRefinement).
+ * DenseValueEnvironment evaluates, checks and assumes expressions directly on its array through these functions,
+ * which expose the transfer functions that BaseNonRelationalValueDomain keeps protected.
+ */
+public interface DenseRefinableDomain<T extends DenseRefinableDomain<T>> extends DenseValueDomain<T> {
+
+    T evalUnary(UnaryOperator operator, T arg, ProgramPoint pp) throws SemanticException;
+
+    T evalBinary(BinaryOperator operator, T left, T right, ProgramPoint pp) throws SemanticException;
+
+    SemanticDomain.Satisfiability satisfiesBinary(BinaryOperator operator, T left, T right, ProgramPoint pp) throws SemanticException;
+
+    // the values of x such that x op c can hold for some c in other, op being a comparison id (see Operators.COMPARISONS)
+    T comparisonTarget(int op, T other);
+
+    // the backward transfer functions of the arithmetic operators
+    BackwardRefinement.Inverse<T> inverse();
+}
@@ -0,0 +1,22 @@
+package it.unive.scsr.final_project;
+
+/*
+ * A value domain with finitely many canonical values, each one identified by a small non-negative code.
+ * The codes let DenseValueEnvironment store a whole environment as a byte array and compute lub and <=
+ * without touching the domain objects.
+ * Since the lattice is finite, widening is the lub.
+ */
+public interface DenseValueDomain<T extends DenseValueDomain<T>> {
+
+    // code of this value, between 0 and 127
+    byte code();
+
+    // canonical value of the given code
+    T fromCode(byte code);
+
+    // code of the lub of the values of the two codes
+    byte lubCodes(byte left, byte right);
+
+    // true if the value of left is less or equal than the value of right
+    boolean lessOrEqualCodes(byte left, byte right);
+}
@@ -0,0 +1,533 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.BaseLattice;
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.ScopeToken;
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.representation.DomainRepresentation;
+import it.unive.lisa.analysis.representation.StringRepresentation;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.TernaryExpression;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Drop-in replacement of ValueEnvironment for the domains implementing DenseRefinableDomain.
+ *
+ * Before the analysis, the variables of each CFG of the program are numbered with dense slots (see Variables),
+ * and an environment is a byte array with the code of the value of each slot (UNBOUND for variables without a value).
+ * The numbering never changes during the analysis, so it is shared by all the environments and by the threads.
+ * The few identifiers without a slot (e.g. the ones hidden by pushScope) are kept in a small map beside the array.
+ *
+ * Lub, widening and <= are loops over the arrays, and the arithmetic and the comparisons are evaluated and assumed
+ * directly on the array through the transfer functions of the domain. Only the other expressions are evaluated
+ * by the domain on a ValueEnvironment holding just the identifiers of the expression.
+ */
+public class DenseValueEnvironment<T extends BaseNonRelationalValueDomain<T> & DenseRefinableDomain<T>>
+        extends BaseLattice<DenseValueEnvironment<T>> implements ValueDomain<DenseValueEnvironment<T>> {
+
+    // code of the slots that are not bound to any value
+    private static final byte UNBOUND = -1;
+
+    private final T lattice;
+
+    // environment without bindings, used to evaluate the expressions without identifiers
+    private final ValueEnvironment<T> empty;
+
+    // slots of each CFG of the program, read-only after the constructor
+    private final Map<CFG, Slots> functions;
+
+    // slots of the CFG of this environment, Slots.NONE until the first identifier is bound
+    private final Slots slots;
+
+    private final byte[] values;
+
+    // the identifier bound to each slot, null for the unbound slots
+    private final Identifier[] ids;
+
+    // codes of the identifiers without a slot
+    private final Map<Identifier, Byte> others;
+
+    private final boolean isTop;
+
+    private final boolean isBottom;
+
+    private int hash;
+
+    public DenseValueEnvironment(T lattice, Program program) {
+        this(lattice, new ValueEnvironment<>(lattice), number(program), Slots.NONE, new byte[0], new Identifier[0], Collections.emptyMap(), false, false);
+    }
+
+    private DenseValueEnvironment(T lattice, ValueEnvironment<T> empty, Map<CFG, Slots> functions, Slots slots,
+                                  byte[] values, Identifier[] ids, Map<Identifier, Byte> others, boolean isTop, boolean isBottom) {
+        this.lattice = lattice;
+        this.empty = empty;
+        this.functions = functions;
+        this.slots = slots;
+        this.values = values;
+        this.ids = ids;
+        this.others = others;
+        this.isTop = isTop;
+        this.isBottom = isBottom;
+    }
+
+    private static Map<CFG, Slots> number(Program program) {
+        Map<CFG, Slots> functions = new IdentityHashMap<>();
+        for (CFG cfg : program.getAllCFGs())
+            functions.put(cfg, new Slots(Variables.of(cfg)));
+        return Collections.unmodifiableMap(functions);
+    }
+
+    private DenseValueEnvironment<T> with(Slots slots, byte[] values, Identifier[] ids, Map<Identifier, Byte> others) {
+        return new DenseValueEnvironment<>(lattice, empty, functions, slots, values, ids, others, false, false);
+    }
+
+    // an environment on the given slots without bindings
+    private DenseValueEnvironment<T> unbound(Slots target) {
+        byte[] none = new byte[target.size()];
+        Arrays.fill(none, UNBOUND);
+        return with(target, none, new Identifier[target.size()], Collections.emptyMap());
+    }
+
+    // the value bound to id, bottom if id is not bound
+    public T getState(Identifier id) {
+        if (isTop)
+            return lattice.top();
+        if (isBottom)
+            return lattice.bottom();
+        int slot = slots.indexOf(id);
+        Byte code = slot >= 0 ? (values[slot] == UNBOUND ? null : values[slot]) : others.get(id);
+        return code == null ? lattice.bottom() : lattice.fromCode(code);
+    }
+
+    private boolean isBound(Identifier id) {
+        if (isTop || isBottom)
+            return false;
+        int slot = slots.indexOf(id);
+        return slot >= 0 ? values[slot] != UNBOUND : others.containsKey(id);
+    }
+
+    // a copy of this environment where id is bound to value
+    public DenseValueEnvironment<T> putState(Identifier id, T value, ProgramPoint pp) {
+        // as in ValueEnvironment, binding an identifier in the top or bottom environment gives an environment with that binding only
+        DenseValueEnvironment<T> base = isTop || isBottom ? unbound(slotsOf(pp)) : on(slotsOf(pp));
+        return base.bind(id, value.code());
+    }
+
+    // a copy of this environment, on its slots, where id is bound to code (UNBOUND to forget it)
+    private DenseValueEnvironment<T> bind(Identifier id, byte code) {
+        int slot = slots.indexOf(id);
+        if (slot >= 0) {
+            byte[] resultValues = values.clone();
+            Identifier[] resultIds = ids.clone();
+            resultValues[slot] = code;
+            resultIds[slot] = code == UNBOUND ? null : id;
+            return with(slots, resultValues, resultIds, others);
+        }
+        Map<Identifier, Byte> resultOthers = new HashMap<>(others);
+        if (code == UNBOUND)
+            resultOthers.remove(id);
+        else
+            resultOthers.put(id, code);
+        return with(slots, values, ids, resultOthers);
+    }
+
+    // slots of the CFG of pp, or the current ones if it is not a CFG of the program
+    private Slots slotsOf(ProgramPoint pp) {
+        CFG cfg = pp == null ? null : pp.getCFG();
+        Slots target = cfg == null ? null : functions.get(cfg);
+        return target != null ? target : slots;
+    }
+
+    // this environment laid out on the given slots
+    private DenseValueEnvironment<T> on(Slots target) {
+        if (target == slots)
+            return this;
+        byte[] resultValues = new byte[target.size()];
+        Arrays.fill(resultValues, UNBOUND);
+        Identifier[] resultIds = new Identifier[target.size()];
+        Map<Identifier, Byte> resultOthers = new HashMap<>();
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != UNBOUND)
+                place(ids[i], values[i], target, resultValues, resultIds, resultOthers);
+        for (Map.Entry<Identifier, Byte> entry : others.entrySet())
+            place(entry.getKey(), entry.getValue(), target, resultValues, resultIds, resultOthers);
+        return with(target, resultValues, resultIds, resultOthers.isEmpty() ? Collections.emptyMap() : resultOthers);
+    }
+
+    private static void place(Identifier id, byte code, Slots target, byte[] values, Identifier[] ids, Map<Identifier, Byte> others) {
+        int slot = target.indexOf(id);
+        if (slot >= 0) {
+            values[slot] = code;
+            ids[slot] = id;
+        } else
+            others.put(id, code);
+    }
+
+    // evaluation of expression on this environment
+    T eval(ValueExpression expression, ProgramPoint pp) throws SemanticException {
+        if (expression instanceof Identifier)
+            return getState((Identifier) expression);
+
+        if (expression instanceof UnaryExpression) {
+            UnaryExpression unary = (UnaryExpression) expression;
+            if (unary.getOperator() instanceof NumericNegation && unary.getExpression() instanceof ValueExpression) {
+                T arg = eval((ValueExpression) unary.getExpression(), pp);
+                return arg.isBottom() ? arg : lattice.evalUnary(unary.getOperator(), arg, pp);
+            }
+        }
+
+        if (expression instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            if (Operators.isArithmetic(binary.getOperator()) && binary.getLeft() instanceof ValueExpression
+                    && binary.getRight() instanceof ValueExpression) {
+                T left = eval((ValueExpression) binary.getLeft(), pp);
+                if (left.isBottom())
+                    return left;
+                T right = eval((ValueExpression) binary.getRight(), pp);
+                if (right.isBottom())
+                    return right;
+                return lattice.evalBinary(binary.getOperator(), left, right, pp);
+            }
+        }
+
+        return lattice.eval(expression, view(expression), pp);
+    }
+
+    // the environment used by the domain to evaluate expression: it contains only the identifiers of the expression
+    private ValueEnvironment<T> view(ValueExpression expression) {
+        if (isTop)
+            return empty.top();
+        if (isBottom)
+            return empty.bottom();
+        List<Identifier> ids = new ArrayList<>();
+        collectIdentifiers(expression, ids);
+        ValueEnvironment<T> view = empty;
+        // the unbound identifiers are bound to bottom, so that they are not read as top in the view
+        for (Identifier id : ids)
+            view = view.putState(id, getState(id));
+        return view;
+    }
+
+    // identifiers of expression, in the order they appear
+    static void collectIdentifiers(ValueExpression expression, List<Identifier> ids) {
+        if (expression instanceof Identifier)
+            ids.add((Identifier) expression);
+        else if (expression instanceof UnaryExpression)
+            collectIdentifiers((ValueExpression) ((UnaryExpression) expression).getExpression(), ids);
+        else if (expression instanceof BinaryExpression) {
+            collectIdentifiers((ValueExpression) ((BinaryExpression) expression).getLeft(), ids);
+            collectIdentifiers((ValueExpression) ((BinaryExpression) expression).getRight(), ids);
+        } else if (expression instanceof TernaryExpression) {
+            collectIdentifiers((ValueExpression) ((TernaryExpression) expression).getLeft(), ids);
+            collectIdentifiers((ValueExpression) ((TernaryExpression) expression).getMiddle(), ids);
+            collectIdentifiers((ValueExpression) ((TernaryExpression) expression).getRight(), ids);
+        }
+    }
+
+    // comparison id of expression (see Operators.COMPARISONS), UNSUPPORTED if it is not a comparison of values
+    private static int comparison(ValueExpression expression) {
+        if (!(expression instanceof BinaryExpression))
+            return Operators.UNSUPPORTED;
+        BinaryExpression binary = (BinaryExpression) expression;
+        if (!(binary.getLeft() instanceof ValueExpression) || !(binary.getRight() instanceof ValueExpression))
+            return Operators.UNSUPPORTED;
+        return Operators.comparison(binary.getOperator());
+    }
+
+    @Override
+    public DenseValueEnvironment<T> assign(Identifier id, ValueExpression expression, ProgramPoint pp) throws SemanticException {
+        if (isBottom)
+            return this;
+        T value = eval(expression, pp);
+        if (id.isWeak() && isBound(id))
+            value = value.lub(getState(id));
+        return putState(id, value, pp);
+    }
+
+    @Override
+    public DenseValueEnvironment<T> smallStepSemantics(ValueExpression expression, ProgramPoint pp) throws SemanticException {
+        return this;
+    }
+
+    @Override
+    public DenseValueEnvironment<T> assume(ValueExpression expression, ProgramPoint pp) throws SemanticException {
+        if (isBottom)
+            return this;
+
+        int op = comparison(expression);
+        if (op != Operators.UNSUPPORTED) {
+            // as the domain does on a ValueEnvironment: the satisfiability first, then the refinement
+            SemanticDomain.Satisfiability satisfiability = satisfies(expression, pp);
+            if (satisfiability == SemanticDomain.Satisfiability.NOT_SATISFIED)
+                return bottom();
+            if (satisfiability == SemanticDomain.Satisfiability.SATISFIED)
+                return this;
+            BinaryExpression binary = (BinaryExpression) expression;
+            Refinement refinement = new Refinement(this);
+            if (!BackwardRefinement.assume(refinement, lattice, op, (ValueExpression) binary.getLeft(), (ValueExpression) binary.getRight(), pp))
+                return bottom();
+            return refinement.environment;
+        }
+
+        ValueEnvironment<T> refined = lattice.assume(view(expression), expression, pp);
+        if (refined.isBottom())
+            return bottom();
+        DenseValueEnvironment<T> result = this;
+        for (Identifier id : refined.getKeys())
+            result = result.refine(id, refined.getState(id), pp);
+        return result;
+    }
+
+    // a copy of this environment where id is bound to value, or this environment if id is already bound to value
+    public DenseValueEnvironment<T> refine(Identifier id, T value, ProgramPoint pp) {
+        if (value.equals(getState(id)))
+            return this;
+        return putState(id, value, pp);
+    }
+
+    @Override
+    public DenseValueEnvironment<T> forgetIdentifier(Identifier id) throws SemanticException {
+        if (!isBound(id))
+            return this;
+        return bind(id, UNBOUND);
+    }
+
+    public DenseValueEnvironment<T> forgetIdentifiers(Iterable<Identifier> ids) throws SemanticException {
+        DenseValueEnvironment<T> result = this;
+        for (Identifier id : ids)
+            result = result.forgetIdentifier(id);
+        return result;
+    }
+
+    @Override
+    public SemanticDomain.Satisfiability satisfies(ValueExpression expression, ProgramPoint pp) throws SemanticException {
+        if (isBottom)
+            return SemanticDomain.Satisfiability.NOT_SATISFIED;
+        if (comparison(expression) != Operators.UNSUPPORTED) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            T left = eval((ValueExpression) binary.getLeft(), pp);
+            T right = eval((ValueExpression) binary.getRight(), pp);
+            if (left.isBottom() || right.isBottom())
+                return SemanticDomain.Satisfiability.BOTTOM;
+            return lattice.satisfiesBinary(binary.getOperator(), left, right, pp);
+        }
+        return lattice.satisfies(expression, view(expression), pp);
+    }
+
+    @Override
+    public DenseValueEnvironment<T> pushScope(ScopeToken token) throws SemanticException {
+        if (isTop || isBottom)
+            return this;
+        // the scoped identifiers have no slot: all the bindings move beside the array
+        Map<Identifier, Byte> result = new HashMap<>();
+        for (Map.Entry<Identifier, Byte> entry : bindings().entrySet())
+            result.put((Identifier) entry.getKey().pushScope(token), entry.getValue());
+        DenseValueEnvironment<T> none = unbound(slots);
+        return with(slots, none.values, none.ids, result);
+    }
+
+    @Override
+    public DenseValueEnvironment<T> popScope(ScopeToken token) throws SemanticException {
+        if (isTop || isBottom)
+            return this;
+        // only the identifiers hidden by the matching pushScope survive, and they get back their slots
+        DenseValueEnvironment<T> result = unbound(slots);
+        byte[] resultValues = result.values;
+        Identifier[] resultIds = result.ids;
+        Map<Identifier, Byte> resultOthers = new HashMap<>();
+        for (Map.Entry<Identifier, Byte> entry : bindings().entrySet()) {
+            Identifier popped = (Identifier) entry.getKey().popScope(token);
+            if (popped != null)
+                place(popped, entry.getValue(), slots, resultValues, resultIds, resultOthers);
+        }
+        return with(slots, resultValues, resultIds, resultOthers.isEmpty() ? Collections.emptyMap() : resultOthers);
+    }
+
+    @Override
+    protected DenseValueEnvironment<T> lubAux(DenseValueEnvironment<T> other) throws SemanticException {
+        Slots target = slots != Slots.NONE ? slots : other.slots;
+        DenseValueEnvironment<T> left = on(target), right = other.on(target);
+        byte[] resultValues = new byte[target.size()];
+        Identifier[] resultIds = new Identifier[target.size()];
+        for (int i = 0; i < resultValues.length; i++) {
+            byte l = left.values[i], r = right.values[i];
+            // an unbound identifier is bottom, so it takes the value of the other side
+            resultValues[i] = l == UNBOUND ? r : r == UNBOUND ? l : lattice.lubCodes(l, r);
+            resultIds[i] = l == UNBOUND ? right.ids[i] : left.ids[i];
+        }
+
+        Map<Identifier, Byte> resultOthers = left.others;
+        if (!right.others.isEmpty()) {
+            resultOthers = new HashMap<>(right.others);
+            for (Map.Entry<Identifier, Byte> entry : left.others.entrySet())
+                resultOthers.merge(entry.getKey(), entry.getValue(), lattice::lubCodes);
+        }
+        return with(target, resultValues, resultIds, resultOthers);
+    }
+
+    // the lattice of the values is finite, so the widening is the lub
+    @Override
+    protected DenseValueEnvironment<T> wideningAux(DenseValueEnvironment<T> other) throws SemanticException {
+        return lubAux(other);
+    }
+
+    @Override
+    protected boolean lessOrEqualAux(DenseValueEnvironment<T> other) throws SemanticException {
+        Slots target = slots != Slots.NONE ? slots : other.slots;
+        DenseValueEnvironment<T> left = on(target), right = other.on(target);
+        byte bottom = lattice.bottom().code();
+        for (int i = 0; i < left.values.length; i++) {
+            if (left.values[i] == UNBOUND)
+                continue;
+            byte r = right.values[i] != UNBOUND ? right.values[i] : bottom;
+            if (!lattice.lessOrEqualCodes(left.values[i], r))
+                return false;
+        }
+        for (Map.Entry<Identifier, Byte> entry : left.others.entrySet())
+            if (!lattice.lessOrEqualCodes(entry.getValue(), right.others.getOrDefault(entry.getKey(), bottom)))
+                return false;
+        return true;
+    }
+
+    @Override
+    public DenseValueEnvironment<T> top() {
+        return new DenseValueEnvironment<>(lattice, empty, functions, Slots.NONE, new byte[0], new Identifier[0], Collections.emptyMap(), true, false);
+    }
+
+    @Override
+    public DenseValueEnvironment<T> bottom() {
+        return new DenseValueEnvironment<>(lattice, empty, functions, Slots.NONE, new byte[0], new Identifier[0], Collections.emptyMap(), false, true);
+    }
+
+    @Override
+    public boolean isTop() {
+        return isTop;
+    }
+
+    @Override
+    public boolean isBottom() {
+        return isBottom;
+    }
+
+    // bound identifiers and the codes of their values
+    private Map<Identifier, Byte> bindings() {
+        Map<Identifier, Byte> result = new HashMap<>(others);
+        for (int i = 0; i < values.length; i++)
+            if (values[i] != UNBOUND)
+                result.put(ids[i], values[i]);
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DenseValueEnvironment<?> that = (DenseValueEnvironment<?>) o;
+        if (isTop != that.isTop || isBottom != that.isBottom || !lattice.equals(that.lattice) || hashCode() != that.hashCode())
+            return false;
+        if (slots != that.slots)
+            return bindings().equals(that.bindings());
+        return Arrays.equals(values, that.values) && others.equals(that.others);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            // independent from the slots, as equal environments may be laid out on different slots
+            h = isTop ? 1 : isBottom ? 2 : 3;
+            for (int i = 0; i < values.length; i++)
+                if (values[i] != UNBOUND)
+                    h += ids[i].hashCode() ^ values[i];
+            for (Map.Entry<Identifier, Byte> entry : others.entrySet())
+                h += entry.getKey().hashCode() ^ entry.getValue();
+            hash = h;
+        }
+        return h;
+    }
+
+    // the representation of the ValueEnvironment with the same bindings, so that the dumps do not change
+    @Override
+    public DomainRepresentation representation() {
+        if (isTop)
+            return Lattice.TOP_REPR;
+        if (isBottom)
+            return Lattice.BOTTOM_REPR;
+        Map<Identifier, Byte> bindings = bindings();
+        if (bindings.isEmpty())
+            return new StringRepresentation("");
+        ValueEnvironment<T> environment = empty;
+        for (Map.Entry<Identifier, Byte> entry : bindings.entrySet())
+            environment = environment.putState(entry.getKey(), lattice.fromCode(entry.getValue()));
+        return environment.representation();
+    }
+
+    // the bindings of a DenseValueEnvironment seen by BackwardRefinement, replaced by a new environment at each set
+    private final class Refinement implements BackwardRefinement.Bindings<T> {
+
+        private DenseValueEnvironment<T> environment;
+
+        Refinement(DenseValueEnvironment<T> environment) {
+            this.environment = environment;
+        }
+
+        @Override
+        public T eval(ValueExpression expression, ProgramPoint pp) throws SemanticException {
+            return environment.eval(expression, pp);
+        }
+
+        @Override
+        public T get(Identifier id) {
+            return environment.isBound(id) ? environment.getState(id) : null;
+        }
+
+        @Override
+        public void set(Identifier id, T value) {
+            environment = environment.putState(id, value, null);
+        }
+    }
+
+    // dense numbering of the variables of a CFG, fixed before the analysis
+    private static final class Slots {
+
+        static final Slots NONE = new Slots(Collections.emptyList());
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        Slots(List<String> names) {
+            for (String name : names)
+                indexes.put(name, indexes.size());
+        }
+
+        // slot of id, -1 if id is not a variable of the CFG
+        int indexOf(Identifier id) {
+            if (!(id instanceof Variable))
+                return -1;
+            Integer slot = indexes.get(id.getName());
+            return slot == null ? -1 : slot;
+        }
+
+        int size() {
+            return indexes.size();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.statement.Expression;
+import it.unive.lisa.program.cfg.statement.NaryExpression;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.UnaryStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * The expressions of the statements of a CFG, including the ones nested in other expressions, as the operands of an
+ * assignment or the parameters of a call.
+ */
+final class Expressions {
+
+    private Expressions() {
+    }
+
+    static List<Expression> of(CFG cfg) {
+        List<Expression> expressions = new ArrayList<>();
+        for (Statement node : cfg.getNodes())
+            collect(node, expressions);
+        return expressions;
+    }
+
+    private static void collect(Statement statement, List<Expression> expressions) {
+        if (statement instanceof UnaryStatement)
+            // return and throw
+            collect(((UnaryStatement) statement).getExpression(), expressions);
+        if (!(statement instanceof Expression))
+            return;
+        expressions.add((Expression) statement);
+        if (statement instanceof NaryExpression)
+            for (Expression operand : ((NaryExpression) statement).getSubExpressions())
+                collect(operand, expressions);
+    }
+}
@@ -9,18 +9,12 @@ import it.unive.lisa.analysis.representation.DomainRepresentation;
 import it.unive.lisa.analysis.representation.StringRepresentation;
 import it.unive.lisa.program.cfg.ProgramPoint;
 import it.unive.lisa.symbolic.value.Constant;
-import it.unive.lisa.symbolic.value.Identifier;
 import it.unive.lisa.symbolic.value.ValueExpression;
-import it.unive.lisa.symbolic.value.operator.AdditionOperator;
-import it.unive.lisa.symbolic.value.operator.DivisionOperator;
-import it.unive.lisa.symbolic.value.operator.Module;
-import it.unive.lisa.symbolic.value.operator.Multiplication;
-import it.unive.lisa.symbolic.value.operator.SubtractionOperator;
 import it.unive.lisa.symbolic.value.operator.binary.*;
 import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
 import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
 
-import java.util.Objects;
+import java.util.Arrays;
 
 /*
 
@@ -36,7 +30,7 @@ import java.util.Objects;
 
  */
 
-public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
+public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> implements DenseRefinableDomain<ExtSignDomain> {
 
     public static final ExtSignDomain TOP = new ExtSignDomain(Sign.TOP);
     public static final ExtSignDomain BOTTOM = new ExtSignDomain(Sign.BOTTOM);
@@ -46,23 +40,184 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
     public static final ExtSignDomain NEG = new ExtSignDomain(Sign.NEG);
     public static final ExtSignDomain POS = new ExtSignDomain(Sign.POS);
 
+    /*
+     * constants indexed by the mask of their sign; {-, +} (0b101) is not an element of the lattice,
+     * so it is approximated by TOP
+     */
+    private static final ExtSignDomain[] BY_MASK = {
+            BOTTOM, NEG, ZERO, NEG_OR_ZERO, POS, TOP, POS_OR_ZERO, TOP
+    };
+
+    /*
+     * the order, lub, glb and abstraction of the constants are the tables of ExtSignLattice, generated at build
+     * time from src/main/lattices/ExtSign.lattice; ELEMENT maps the ordinal of each sign to its position there
+     */
+    private static final int[] ELEMENT = new int[Sign.values().length];
+    private static final ExtSignDomain[] BY_ELEMENT = new ExtSignDomain[ExtSignLattice.SIZE];
+
+    // lub and order of the codes of the dense environments, i.e. of the masks
+    private static final byte[][] LUB_CODES = new byte[BY_MASK.length][BY_MASK.length];
+    private static final boolean[][] LEQ_CODES = new boolean[BY_MASK.length][BY_MASK.length];
+
+    static {
+        for (int i = 0; i < ExtSignLattice.SIZE; i++) {
+            Sign sign = Sign.valueOf(ExtSignLattice.name(i));
+            ELEMENT[sign.ordinal()] = i;
+            BY_ELEMENT[i] = BY_MASK[sign.mask];
+        }
+        for (Sign left : Sign.values())
+            for (Sign right : Sign.values()) {
+                int l = ELEMENT[left.ordinal()];
+                int r = ELEMENT[right.ordinal()];
+                LUB_CODES[left.mask][right.mask] = (byte) BY_ELEMENT[ExtSignLattice.lub(l, r)].sign.mask;
+                LEQ_CODES[left.mask][right.mask] = ExtSignLattice.lessOrEqual(l, r);
+            }
+    }
+
+    /*
+     * results of the transfer functions, indexed by sign ordinal (and by operator id for the binary ones).
+     * They are filled once from the methods of Sign, which remain the reference definition of the semantics
+     */
+    private static final ExtSignDomain[] MINUS = new ExtSignDomain[Sign.values().length];
+    private static final ExtSignDomain[][][] ARITHMETIC = new ExtSignDomain[Operators.MOD + 1][Sign.values().length][Sign.values().length];
+
+    static {
+        for (Sign left : Sign.values()) {
+            MINUS[left.ordinal()] = BY_MASK[left.minus().mask];
+            for (Sign right : Sign.values()) {
+                ARITHMETIC[Operators.ADD][left.ordinal()][right.ordinal()] = BY_MASK[left.add(right).mask];
+                ARITHMETIC[Operators.SUB][left.ordinal()][right.ordinal()] = BY_MASK[left.add(right.minus()).mask];
+                ARITHMETIC[Operators.MUL][left.ordinal()][right.ordinal()] = BY_MASK[left.mul(right).mask];
+                ARITHMETIC[Operators.DIV][left.ordinal()][right.ordinal()] = BY_MASK[left.div(right).mask];
+                ARITHMETIC[Operators.MOD][left.ordinal()][right.ordinal()] = BY_MASK[left.mod(right).mask];
+            }
+        }
+    }
+
+    /*
+     * results of satisfiesBinaryExpression, indexed by comparison id and sign ordinals.
+     * They are filled once from satisfiesReference, which remains the reference definition
+     */
+    private static final SemanticDomain.Satisfiability[][][] SATISFIABILITY =
+            new SemanticDomain.Satisfiability[Operators.COMPARISONS.length][Sign.values().length][Sign.values().length];
+
+    static {
+        for (int op = 0; op < Operators.COMPARISONS.length; op++)
+            for (Sign left : Sign.values())
+                for (Sign right : Sign.values())
+                    SATISFIABILITY[op][left.ordinal()][right.ordinal()] = satisfiesReference(Operators.COMPARISONS[op], of(left), of(right));
+    }
+
+    /*
+     * the values of x in relation op with c, indexed by comparison id and by the sign of c; assume meets them with x.
+     * The signs that are not listed give TOP, e.g. x > - or x != c. The row of == is not used: x == c gives c
+     */
+    static final ExtSignDomain[][] REFINEMENT = new ExtSignDomain[Operators.COMPARISONS.length][Sign.values().length];
+
+    static {
+        for (ExtSignDomain[] row : REFINEMENT)
+            Arrays.fill(row, TOP);
+        refinement(Operators.GT, Sign.POS, POS);
+        refinement(Operators.GT, Sign.ZERO, POS);
+        refinement(Operators.GT, Sign.POS_OR_ZERO, POS);
+        refinement(Operators.GE, Sign.POS, POS);
+        refinement(Operators.GE, Sign.ZERO, POS_OR_ZERO);
+        refinement(Operators.GE, Sign.POS_OR_ZERO, POS_OR_ZERO);
+        refinement(Operators.LT, Sign.NEG, NEG);
+        refinement(Operators.LT, Sign.ZERO, NEG);
+        refinement(Operators.LT, Sign.NEG_OR_ZERO, NEG);
+        refinement(Operators.LE, Sign.NEG, NEG);
+        refinement(Operators.LE, Sign.ZERO, NEG_OR_ZERO);
+        refinement(Operators.LE, Sign.NEG_OR_ZERO, NEG_OR_ZERO);
+    }
+
+    private static void refinement(int op, Sign c, ExtSignDomain x) {
+        REFINEMENT[op][c.ordinal()] = x;
+    }
+
+    /*
+     * inverses of the arithmetic operators, indexed by operator id, sign ordinal of the target and sign ordinal of
+     * the other operand: x op y in t gives x in LEFT_INVERSE[op][t][y] and y in RIGHT_INVERSE[op][t][x].
+     * Division and module are left to TOP, since x / y and x % y lose too much of x to go back
+     */
+    private static final ExtSignDomain[][][] LEFT_INVERSE = new ExtSignDomain[Operators.MOD + 1][Sign.values().length][Sign.values().length];
+    private static final ExtSignDomain[][][] RIGHT_INVERSE = new ExtSignDomain[Operators.MOD + 1][Sign.values().length][Sign.values().length];
+
+    static {
+        for (int op = Operators.ADD; op <= Operators.MOD; op++)
+            for (int t = 0; t < Sign.values().length; t++) {
+                Arrays.fill(LEFT_INVERSE[op][t], TOP);
+                Arrays.fill(RIGHT_INVERSE[op][t], TOP);
+            }
+        for (Sign target : Sign.values())
+            for (Sign other : Sign.values()) {
+                int t = target.ordinal(), o = other.ordinal();
+                LEFT_INVERSE[Operators.ADD][t][o] = ARITHMETIC[Operators.SUB][t][o]; // x = t - y
+                LEFT_INVERSE[Operators.SUB][t][o] = ARITHMETIC[Operators.ADD][t][o]; // x = t + y
+                LEFT_INVERSE[Operators.MUL][t][o] = factor(target, other);
+                RIGHT_INVERSE[Operators.ADD][t][o] = ARITHMETIC[Operators.SUB][t][o]; // y = t - x
+                RIGHT_INVERSE[Operators.SUB][t][o] = ARITHMETIC[Operators.SUB][o][t]; // y = x - t
+                RIGHT_INVERSE[Operators.MUL][t][o] = factor(target, other);
+            }
+    }
+
+    // the signs of x such that x * y is in product for some y in other
+    private static ExtSignDomain factor(Sign product, Sign other) {
+        Sign[] atoms = {Sign.NEG, Sign.ZERO, Sign.POS};
+        int mask = 0;
+        for (Sign x : atoms)
+            for (Sign y : atoms)
+                if ((y.mask & other.mask) != 0 && (x.mul(y).mask & product.mask) != 0)
+                    mask |= x.mask;
+        return BY_MASK[mask];
+    }
+
+    // backward transfer functions, used by assumeBinaryExpression (and by ExtSignParityDomain) to refine through arithmetic
+    static final BackwardRefinement.Inverse<ExtSignDomain> INVERSE = new BackwardRefinement.Inverse<ExtSignDomain>() {
+        @Override
+        public ExtSignDomain operand(UnaryOperator operator, ExtSignDomain target) {
+            return operator instanceof NumericNegation ? MINUS[target.sign.ordinal()] : TOP;
+        }
+
+        @Override
+        public ExtSignDomain left(BinaryOperator operator, ExtSignDomain target, ExtSignDomain right) {
+            int op = Operators.arithmetic(operator);
+            return op == Operators.UNSUPPORTED ? TOP : LEFT_INVERSE[op][target.sign.ordinal()][right.sign.ordinal()];
+        }
+
+        @Override
+        public ExtSignDomain right(BinaryOperator operator, ExtSignDomain target, ExtSignDomain left) {
+            int op = Operators.arithmetic(operator);
+            return op == Operators.UNSUPPORTED ? TOP : RIGHT_INVERSE[op][target.sign.ordinal()][left.sign.ordinal()];
+        }
+    };
+
     public final Sign sign;
 
     public ExtSignDomain() {
         this(Sign.TOP);
     }
 
-    public ExtSignDomain(Sign sign) {
+    private ExtSignDomain(Sign sign) {
         this.sign = sign;
     }
 
+    // canonical instance of the given sign: values of this domain are never built outside the constants above
+    static ExtSignDomain of(Sign sign) {
+        return BY_MASK[sign.mask];
+    }
+
+    static ExtSignDomain ofMask(int mask) {
+        return BY_MASK[mask];
+    }
+
     public static ExtSignDomain fromInt(Integer c) {
-        return (c > 0) ? POS : ((c < 0) ? NEG : ZERO);
+        return BY_ELEMENT[ExtSignLattice.fromInt(c)];
     }
 
     enum Sign {
 
-        BOTTOM {
+        BOTTOM(0b000) {
             @Override
             Sign minus() {
                 return this;
@@ -103,7 +258,7 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
             }
         },
 
-        TOP {
+        TOP(0b111) {
             @Override
             Sign minus() {
                 return this;
@@ -168,7 +323,7 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
             }
         },
 
-        POS {
+        POS(0b100) {
             @Override
             Sign minus() {
                 return NEG;
@@ -244,7 +399,7 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
             }
         },
 
-        NEG {
+        NEG(0b001) {
             @Override
             Sign minus() {
                 return POS;
@@ -340,7 +495,7 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
             }
         },
 
-        ZERO {
+        ZERO(0b010) {
             @Override
             Sign minus() {
                 return ZERO;
@@ -407,7 +562,7 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
             }
         },
 
-        POS_OR_ZERO {
+        POS_OR_ZERO(0b110) {
             @Override
             Sign minus() {
                 return NEG_OR_ZERO;
@@ -501,7 +656,7 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
             }
         },
 
-        NEG_OR_ZERO {
+        NEG_OR_ZERO(0b011) {
             @Override
             Sign minus() {
                 return POS_OR_ZERO;
@@ -595,6 +750,16 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
 
         };
 
+        /*
+         * each sign is the subset of {-, 0, +} it represents, encoded on three bits:
+         * bit 0 is -, bit 1 is 0 and bit 2 is +
+         */
+        final int mask;
+
+        Sign(int mask) {
+            this.mask = mask;
+        }
+
         abstract Sign minus();
 
         abstract Sign add(Sign other);
@@ -631,15 +796,8 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
 
     @Override
     protected ExtSignDomain evalNonNullConstant(Constant constant, ProgramPoint pp) {
-        if (constant.getValue() instanceof Integer) {
-            int c = (int) constant.getValue();
-            if (c == 0)
-                return new ExtSignDomain(Sign.ZERO);
-            else if (c > 0)
-                return new ExtSignDomain(Sign.POS);
-            else
-                return new ExtSignDomain(Sign.NEG);
-        }
+        if (constant.getValue() instanceof Integer)
+            return fromInt((Integer) constant.getValue());
         return top();
     }
 
@@ -647,7 +805,7 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
     public ExtSignDomain evalUnaryExpression(UnaryOperator operator, ExtSignDomain arg,
                                              ProgramPoint pp) {
         if (operator instanceof NumericNegation)
-            return new ExtSignDomain(arg.sign.minus());
+            return MINUS[arg.sign.ordinal()];
         return top();
     }
 
@@ -655,60 +813,20 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
     public ExtSignDomain evalBinaryExpression(BinaryOperator operator, ExtSignDomain left,
                                               ExtSignDomain right,
                                               ProgramPoint pp) {
-        if (operator instanceof AdditionOperator)
-            return new ExtSignDomain(left.sign.add(right.sign));
-        if (operator instanceof DivisionOperator)
-            return new ExtSignDomain(left.sign.div(right.sign));
-        if (operator instanceof Multiplication)
-            return new ExtSignDomain(left.sign.mul(right.sign));
-        if (operator instanceof SubtractionOperator)
-            return new ExtSignDomain(left.sign.add(right.sign.minus()));
-        if (operator instanceof Module)
-            return new ExtSignDomain(left.sign.mod(right.sign));
-        return top();
+        int op = Operators.arithmetic(operator);
+        if (op == Operators.UNSUPPORTED)
+            return top();
+        return ARITHMETIC[op][left.sign.ordinal()][right.sign.ordinal()];
     }
 
     @Override
     protected ExtSignDomain lubAux(ExtSignDomain other) throws SemanticException {
-        if (lessOrEqual(other))
-            return other;
-        if (other.lessOrEqual(this))
-            return this;
-
-        if (sign == Sign.ZERO) {
-            if (other.sign == Sign.POS)
-                return POS_OR_ZERO;
-            else if (other.sign == Sign.NEG)
-                return NEG_OR_ZERO;
-        }
-
-        if (other.sign == Sign.ZERO) {
-            if (sign == Sign.POS)
-                return POS_OR_ZERO;
-            else if (sign == Sign.NEG)
-                return NEG_OR_ZERO;
-        }
-
-        return top();
+        return BY_ELEMENT[ExtSignLattice.lub(ELEMENT[sign.ordinal()], ELEMENT[other.sign.ordinal()])];
     }
 
     @Override
     protected ExtSignDomain glbAux(ExtSignDomain other) throws SemanticException {
-        if (lessOrEqual(other))
-            return this;
-        if (other.lessOrEqual(this))
-            return other;
-
-        if ((sign == Sign.POS_OR_ZERO && other.sign == Sign.NEG_OR_ZERO) || (sign == Sign.NEG_OR_ZERO && other.sign == Sign.POS_OR_ZERO))
-            return ZERO;
-
-        /*we can see that to do better we can return simply bottom but to make the function more clear we also write this conditions*/
-        if (sign == Sign.ZERO || sign == Sign.POS || sign == Sign.NEG)
-            return BOTTOM;
-        if (other.sign == Sign.ZERO || other.sign == Sign.POS || other.sign == Sign.NEG)
-            return BOTTOM;
-
-        return bottom();
+        return BY_ELEMENT[ExtSignLattice.glb(ELEMENT[sign.ordinal()], ELEMENT[other.sign.ordinal()])];
     }
 
     @Override
@@ -718,18 +836,7 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
 
     @Override
     protected boolean lessOrEqualAux(ExtSignDomain other) {
-        switch (sign) {
-            case NEG:
-            case POS:
-            case ZERO:
-                return true;
-            case NEG_OR_ZERO:
-            case POS_OR_ZERO:
-                if (other.sign == Sign.NEG_OR_ZERO || other.sign == Sign.POS_OR_ZERO)
-                    return true;
-            default:
-                return false;
-        }
+        return ExtSignLattice.lessOrEqual(ELEMENT[sign.ordinal()], ELEMENT[other.sign.ordinal()]);
     }
 
     @Override
@@ -795,6 +902,13 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
 
     @Override
     protected SemanticDomain.Satisfiability satisfiesBinaryExpression(BinaryOperator operator, ExtSignDomain left, ExtSignDomain right, ProgramPoint pp) {
+        int op = Operators.comparison(operator);
+        if (op == Operators.UNSUPPORTED)
+            return SemanticDomain.Satisfiability.UNKNOWN;
+        return SATISFIABILITY[op][left.sign.ordinal()][right.sign.ordinal()];
+    }
+
+    static SemanticDomain.Satisfiability satisfiesReference(BinaryOperator operator, ExtSignDomain left, ExtSignDomain right) {
         if (left.isTop() || right.isTop())
             return SemanticDomain.Satisfiability.UNKNOWN;
 
@@ -816,129 +930,73 @@ public class ExtSignDomain extends BaseNonRelationalValueDomain<ExtSignDomain> {
 
     @Override
     protected ValueEnvironment<ExtSignDomain> assumeBinaryExpression(ValueEnvironment<ExtSignDomain> environment, BinaryOperator operator, ValueExpression left, ValueExpression right, ProgramPoint pp) throws SemanticException {
-        if (operator == ComparisonEq.INSTANCE) { // x == c
-            if (left instanceof Identifier) {
-                ExtSignDomain extSignDomain = eval(right, environment, pp);
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, extSignDomain);
-            } else if (right instanceof Identifier) {
-                ExtSignDomain extSignDomain = eval(left, environment, pp);
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, extSignDomain);
-            }
-        } else if (operator == ComparisonNe.INSTANCE) { // x != c
-            if (left instanceof Identifier) {
-                ExtSignDomain extSign = eval(right, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = TOP; //  - != + true but also - != - true because -7 != -9
-                if (extSign.sign == Sign.POS) newExtSign = TOP;
-                if (extSign.sign == Sign.ZERO) newExtSign = TOP;
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = TOP;
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = TOP;
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSign);
-            } else if (right instanceof Identifier) {
-                ExtSignDomain extSign = eval(left, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = TOP;
-                if (extSign.sign == Sign.POS) newExtSign = TOP;
-                if (extSign.sign == Sign.ZERO) newExtSign = TOP;
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = TOP;
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = TOP;
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSign);
-            }
-        } else if (operator == ComparisonGe.INSTANCE) {
-            if (left instanceof Identifier) { // x >= c
-                ExtSignDomain extSign = eval(right, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = TOP; // x >= - we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.POS) newExtSign = POS; // x >= +
-                if (extSign.sign == Sign.ZERO) newExtSign = POS_OR_ZERO; // x >= 0
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = POS_OR_ZERO; // x >= 0+
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = TOP; // x >= 0- we know that x can be -, 0, 0-, 0+ and +
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSign);
-            } else if (right instanceof Identifier) { // c >= x
-                ExtSignDomain extSign = eval(left, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = NEG; // - >= x
-                if (extSign.sign == Sign.POS) newExtSign = TOP; // + >= x we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.ZERO) newExtSign = NEG_OR_ZERO; // 0 >= x
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = TOP; // 0+ >= x we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = NEG_OR_ZERO; // 0- >= x
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSign);
-            }
-        } else if (operator == ComparisonLe.INSTANCE) { // x <= c
-            if (left instanceof Identifier) {
-                ExtSignDomain extSign = eval(right, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = NEG; // x <= -
-                if (extSign.sign == Sign.POS) newExtSign = TOP; // x <= + we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.ZERO) newExtSign = NEG_OR_ZERO; // x <= 0
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = TOP; // x <= 0+ we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = NEG_OR_ZERO; // x <= 0-
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSign);
-            } else if (right instanceof Identifier) {
-                ExtSignDomain extSign = eval(left, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = TOP; // - <= x we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.POS) newExtSign = POS; // + <= x
-                if (extSign.sign == Sign.ZERO) newExtSign = POS_OR_ZERO; // 0 <= x
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = POS_OR_ZERO; // 0+ <= x
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = TOP; // 0- <= x we know that x can be -, 0, 0-, 0+ and +
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSign);
-            }
-        } else if (operator == ComparisonLt.INSTANCE) { // x < c
-            if (left instanceof Identifier) {
-                ExtSignDomain extSign = eval(right, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = NEG; // x < -
-                if (extSign.sign == Sign.POS) newExtSign = TOP; // x < + we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.ZERO) newExtSign = NEG; // x < 0
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = TOP; // x < 0+ we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = NEG; // x < 0-
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSign);
-            } else if (right instanceof Identifier) {
-                ExtSignDomain extSign = eval(left, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = TOP; // - < x we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.POS) newExtSign = POS; // + < x
-                if (extSign.sign == Sign.ZERO) newExtSign = POS; // 0 < x
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = POS; // 0+ < x
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = TOP; // 0- < x we know that x can be -, 0, 0-, 0+ and +
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSign);
-            }
-        } else if (operator == ComparisonGt.INSTANCE) { // x > c
-            if (left instanceof Identifier) {
-                ExtSignDomain extSign = eval(right, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = TOP; // x > - we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.POS) newExtSign = POS; // x > +
-                if (extSign.sign == Sign.ZERO) newExtSign = POS; // x > 0
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = POS; // x > 0+
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = TOP; // x > 0- we know that x can be -, 0, 0-, 0+ and +
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSign);
-            } else if (right instanceof Identifier) {
-                ExtSignDomain extSign = eval(left, environment, pp);
-                ExtSignDomain newExtSign = new ExtSignDomain();
-                if (extSign.sign == Sign.NEG) newExtSign = NEG; // - > x
-                if (extSign.sign == Sign.POS) newExtSign = TOP; // + > x we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.ZERO) newExtSign = NEG; // 0 > x
-                if (extSign.sign == Sign.POS_OR_ZERO) newExtSign = TOP; // 0+ > x we know that x can be -, 0, 0-, 0+ and +
-                if (extSign.sign == Sign.NEG_OR_ZERO) newExtSign = NEG; // 0- > x
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSign);
-            }
-        }
-        return environment;
+        int op = Operators.comparison(operator);
+        if (op == Operators.UNSUPPORTED)
+            return environment;
+        return BackwardRefinement.assume(this, environment, op, left, right, pp);
+    }
+
+    // x == c gives c, the other comparisons read REFINEMENT
+    @Override
+    public ExtSignDomain comparisonTarget(int op, ExtSignDomain other) {
+        return op == Operators.EQ ? other : REFINEMENT[op][other.sign.ordinal()];
+    }
+
+    @Override
+    public BackwardRefinement.Inverse<ExtSignDomain> inverse() {
+        return INVERSE;
+    }
+
+    @Override
+    public ExtSignDomain evalUnary(UnaryOperator operator, ExtSignDomain arg, ProgramPoint pp) {
+        return evalUnaryExpression(operator, arg, pp);
+    }
+
+    @Override
+    public ExtSignDomain evalBinary(BinaryOperator operator, ExtSignDomain left, ExtSignDomain right, ProgramPoint pp) {
+        return evalBinaryExpression(operator, left, right, pp);
+    }
+
+    @Override
+    public SemanticDomain.Satisfiability satisfiesBinary(BinaryOperator operator, ExtSignDomain left, ExtSignDomain right, ProgramPoint pp) {
+        return satisfiesBinaryExpression(operator, left, right, pp);
+    }
+
+    // the code of a value is the mask of its sign
+    @Override
+    public byte code() {
+        return (byte) sign.mask;
+    }
+
+    @Override
+    public ExtSignDomain fromCode(byte code) {
+        return BY_MASK[code];
+    }
+
+    @Override
+    public byte lubCodes(byte left, byte right) {
+        return LUB_CODES[left][right];
+    }
+
+    @Override
+    public boolean lessOrEqualCodes(byte left, byte right) {
+        return LEQ_CODES[left][right];
     }
 
+    /*
+     * all the values produced by the domain are canonical, so equal values are almost always the same object;
+     * the comparison of the signs is kept only for the instance built by the public constructor
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        ExtSignDomain that = (ExtSignDomain) o;
-        return sign == that.sign;
+        return sign == ((ExtSignDomain) o).sign;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(sign);
+        return sign.ordinal();
     }
 
     @Override
@@ -12,15 +12,26 @@ import it.unive.lisa.symbolic.value.operator.binary.*;
 import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
 import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
 
-import java.util.Objects;
-
-public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignParityDomain> {
+public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignParityDomain> implements DenseRefinableDomain<ExtSignParityDomain> {
 
     /*
-     * NB: in the assume binary function, we used forget identifier and then put state because the assign function in some cases
-     * doesn't update the new domain of the variables
+     * NB: in the assume binary function, the new values are met with the previous ones and bound with put state instead
+     * of assign, because the assign function in some cases doesn't update the new domain of the variables. Put state
+     * replaces the previous value of the variable, so there is no need to forget it first
      * */
 
+    private static final int SIGN_BITS = 0b00111;
+
+    // parity bits indexed by ParityDomain.parity, i.e. by the position of the value in ParityLattice
+    private static final byte[] PARITY_BITS = new byte[ParityLattice.SIZE];
+
+    static {
+        PARITY_BITS[ParityLattice.TOP] = 0b11;
+        PARITY_BITS[ParityLattice.BOTTOM] = 0b00;
+        PARITY_BITS[ParityLattice.ODD] = 0b10;
+        PARITY_BITS[ParityLattice.EVEN] = 0b01;
+    }
+
     // Parity EVEN Combinations
     public static final ExtSignParityDomain TOP_EVEN = new ExtSignParityDomain(ExtSignDomain.TOP, ParityDomain.EVEN);
     public static final ExtSignParityDomain BOTTOM_EVEN = new ExtSignParityDomain(ExtSignDomain.BOTTOM, ParityDomain.EVEN);
@@ -57,20 +68,84 @@ public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignPar
     public static final ExtSignParityDomain NEG_TOP = new ExtSignParityDomain(ExtSignDomain.NEG, ParityDomain.TOP);
     public static final ExtSignParityDomain POS_TOP = new ExtSignParityDomain(ExtSignDomain.POS, ParityDomain.TOP);
 
-    private final ExtSignDomain extSignDomain;
-    private final ParityDomain parityDomain;
+    // the combinations above, indexed by their code
+    private static final ExtSignParityDomain[] VALUES = new ExtSignParityDomain[1 << 5];
+
+    // reduction of every code, computed once from reduceProduct
+    private static final ExtSignParityDomain[] REDUCED = new ExtSignParityDomain[1 << 5];
+
+    // parity values indexed by their parity bits
+    private static final ParityDomain[] PARITIES = {ParityDomain.BOTTOM, ParityDomain.EVEN, ParityDomain.ODD, ParityDomain.TOP};
+
+    static {
+        ExtSignParityDomain[] all = {
+                TOP_EVEN, BOTTOM_EVEN, NEG_OR_ZERO_EVEN, POS_OR_ZERO_EVEN, ZERO_EVEN, NEG_EVEN, POS_EVEN,
+                TOP_ODD, BOTTOM_ODD, NEG_OR_ZERO_ODD, POS_OR_ZERO_ODD, ZERO_ODD, NEG_ODD, POS_ODD,
+                TOP_BOTTOM, BOTTOM_BOTTOM, NEG_OR_ZERO_BOTTOM, POS_OR_ZERO_BOTTOM, ZERO_BOTTOM, NEG_BOTTOM, POS_BOTTOM,
+                TOP_TOP, BOTTOM_TOP, NEG_OR_ZERO_TOP, POS_OR_ZERO_TOP, ZERO_TOP, NEG_TOP, POS_TOP
+        };
+        for (ExtSignParityDomain d : all)
+            VALUES[d.code] = d;
+
+        for (int code = 0; code < REDUCED.length; code++) {
+            // {-, +} is not an element of the sign lattice: as in ExtSignDomain, it is approximated by TOP
+            int valid = (code & SIGN_BITS) == 0b101 ? code | 0b010 : code;
+            REDUCED[code] = reduceProduct(VALUES[valid]);
+        }
+    }
 
-    public ExtSignParityDomain(ExtSignDomain extSignDomain, ParityDomain parityDomain) {
-        this.extSignDomain = extSignDomain;
-        this.parityDomain = parityDomain;
+    /*
+     * the pair is packed in a single byte: the lowest three bits are the mask of the sign (see ExtSignDomain.Sign),
+     * the next two bits are the parity as a subset of {even, odd}. Lub, glb and <= are then union, intersection
+     * and inclusion of the bits
+     */
+    private final byte code;
+
+    private ExtSignParityDomain(ExtSignDomain extSignDomain, ParityDomain parityDomain) {
+        this.code = encode(extSignDomain, parityDomain);
     }
 
     public ExtSignParityDomain() {
         this(ExtSignDomain.TOP, ParityDomain.TOP);
     }
 
-    public ExtSignParityDomain(Integer val) {
-        this(ExtSignDomain.fromInt(val), ParityDomain.fromInt(val));
+    private static byte encode(ExtSignDomain extSignDomain, ParityDomain parityDomain) {
+        return (byte) (extSignDomain.sign.mask | PARITY_BITS[parityDomain.parity] << 3);
+    }
+
+    // canonical instance of the given pair: values of this domain are never built outside the constants above
+    static ExtSignParityDomain of(ExtSignDomain extSignDomain, ParityDomain parityDomain) {
+        return VALUES[encode(extSignDomain, parityDomain)];
+    }
+
+    // canonical instance of the reduction of the given pair
+    static ExtSignParityDomain reduced(ExtSignDomain extSignDomain, ParityDomain parityDomain) {
+        return REDUCED[encode(extSignDomain, parityDomain)];
+    }
+
+    public static ExtSignParityDomain fromInt(Integer val) {
+        return reduced(ExtSignDomain.fromInt(val), ParityDomain.fromInt(val));
+    }
+
+    // the reduction of this domain, to combine ExtSignDomain and ParityDomain with other domains in a ReducedProduct
+    public static final ReducedProduct.Reduction<ExtSignDomain, ParityDomain> REDUCTION = new ReducedProduct.Reduction<ExtSignDomain, ParityDomain>() {
+        @Override
+        public ExtSignDomain reduceFirst(ExtSignDomain first, ParityDomain second) {
+            return reduced(first, second).extSignDomain();
+        }
+
+        @Override
+        public ParityDomain reduceSecond(ExtSignDomain first, ParityDomain second) {
+            return reduced(first, second).parityDomain();
+        }
+    };
+
+    ExtSignDomain extSignDomain() {
+        return ExtSignDomain.ofMask(code & SIGN_BITS);
+    }
+
+    ParityDomain parityDomain() {
+        return PARITIES[code >> 3];
     }
 
     private static ExtSignParityDomain reduceProduct(ExtSignParityDomain currentDomain) {
@@ -82,8 +157,8 @@ public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignPar
             _ -> this
          */
 
-        ParityDomain p = currentDomain.parityDomain;
-        switch (currentDomain.extSignDomain.sign) {
+        ParityDomain p = currentDomain.parityDomain();
+        switch (currentDomain.extSignDomain().sign) {
             case BOTTOM:
                 /*
                     TOP     -> (BOTTOM, BOTTOM)   *
@@ -161,43 +236,40 @@ public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignPar
     // x = 5
     @Override
     protected ExtSignParityDomain evalNonNullConstant(Constant constant, ProgramPoint pp) {
-        ExtSignDomain extSign = new ExtSignDomain().evalNonNullConstant(constant, pp);
-        ParityDomain parity = new ParityDomain().evalNonNullConstant(constant, pp);
-        ExtSignParityDomain updatedDomain = new ExtSignParityDomain(extSign, parity);
-        return ExtSignParityDomain.reduceProduct(updatedDomain);
+        ExtSignDomain extSign = ExtSignDomain.TOP.evalNonNullConstant(constant, pp);
+        ParityDomain parity = ParityDomain.TOP.evalNonNullConstant(constant, pp);
+        return reduced(extSign, parity);
     }
 
     // (-x)
     @Override
     protected ExtSignParityDomain evalUnaryExpression(UnaryOperator operator, ExtSignParityDomain arg, ProgramPoint pp) {
-        ExtSignDomain extSign = new ExtSignDomain().evalUnaryExpression(operator, arg.extSignDomain, pp);
-        ParityDomain parity = new ParityDomain().evalUnaryExpression(operator, arg.parityDomain, pp);
-        ExtSignParityDomain updatedDomain = new ExtSignParityDomain(extSign, parity);
-        return ExtSignParityDomain.reduceProduct(updatedDomain);
+        ExtSignDomain extSign = ExtSignDomain.TOP.evalUnaryExpression(operator, arg.extSignDomain(), pp);
+        ParityDomain parity = ParityDomain.TOP.evalUnaryExpression(operator, arg.parityDomain(), pp);
+        return reduced(extSign, parity);
     }
 
     // x + y
     @Override
     protected ExtSignParityDomain evalBinaryExpression(BinaryOperator operator, ExtSignParityDomain left, ExtSignParityDomain right, ProgramPoint pp) {
-        ExtSignDomain extSign = new ExtSignDomain().evalBinaryExpression(operator, left.extSignDomain, right.extSignDomain, pp);
-        ParityDomain parity = new ParityDomain().evalBinaryExpression(operator, left.parityDomain, right.parityDomain, pp);
-        ExtSignParityDomain updatedDomain = new ExtSignParityDomain(extSign, parity);
-        return ExtSignParityDomain.reduceProduct(updatedDomain);
+        ExtSignDomain extSign = ExtSignDomain.TOP.evalBinaryExpression(operator, left.extSignDomain(), right.extSignDomain(), pp);
+        ParityDomain parity = ParityDomain.TOP.evalBinaryExpression(operator, left.parityDomain(), right.parityDomain(), pp);
+        return reduced(extSign, parity);
     }
 
     private SemanticDomain.Satisfiability eq(ExtSignParityDomain other) {
-        if (!parityDomain.equals(other.parityDomain) || !extSignDomain.equals(other.extSignDomain))
+        if (code != other.code)
             return SemanticDomain.Satisfiability.NOT_SATISFIED;
-        else if (extSignDomain.equals(ExtSignDomain.ZERO))
+        else if (extSignDomain().equals(ExtSignDomain.ZERO))
             return SemanticDomain.Satisfiability.SATISFIED;
         else
             return SemanticDomain.Satisfiability.UNKNOWN;
     }
 
     private SemanticDomain.Satisfiability ne(ExtSignParityDomain other) {
-        if (!parityDomain.equals(other.parityDomain) || !extSignDomain.equals(other.extSignDomain))
+        if (code != other.code)
             return SemanticDomain.Satisfiability.SATISFIED;
-        else if (extSignDomain.sign == ExtSignDomain.Sign.ZERO)
+        else if (extSignDomain().sign == ExtSignDomain.Sign.ZERO)
             return SemanticDomain.Satisfiability.NOT_SATISFIED;
         else
             /*same symbol and same domain we can't say anything*/
@@ -207,29 +279,29 @@ public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignPar
     /*we use only extendedsign into the conditions because the parity in this case doesn't change anything. Example (0+,odd)>= (0,even) we see
      * immediatly that all numbers into 0+ (both odd or even) are correct*/
     private SemanticDomain.Satisfiability gt(ExtSignParityDomain other) {
-        if (extSignDomain.sign.equals(other.extSignDomain.sign))
-            return extSignDomain.sign == ExtSignDomain.Sign.ZERO ? SemanticDomain.Satisfiability.NOT_SATISFIED : SemanticDomain.Satisfiability.UNKNOWN;
-        else if (extSignDomain.sign == ExtSignDomain.Sign.NEG) {
-            if (other.extSignDomain.sign == ExtSignDomain.Sign.ZERO || other.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO || other.extSignDomain.sign == ExtSignDomain.Sign.POS) return SemanticDomain.Satisfiability.NOT_SATISFIED;
+        if (extSignDomain().sign.equals(other.extSignDomain().sign))
+            return extSignDomain().sign == ExtSignDomain.Sign.ZERO ? SemanticDomain.Satisfiability.NOT_SATISFIED : SemanticDomain.Satisfiability.UNKNOWN;
+        else if (extSignDomain().sign == ExtSignDomain.Sign.NEG) {
+            if (other.extSignDomain().sign == ExtSignDomain.Sign.ZERO || other.extSignDomain().sign == ExtSignDomain.Sign.POS_OR_ZERO || other.extSignDomain().sign == ExtSignDomain.Sign.POS) return SemanticDomain.Satisfiability.NOT_SATISFIED;
             /* - > 0- we can have true if - > 0 but unknown if - > -3*/
             return SemanticDomain.Satisfiability.UNKNOWN;
-        } else if (extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) {
-            if (other.extSignDomain.sign == ExtSignDomain.Sign.POS) return SemanticDomain.Satisfiability.NOT_SATISFIED;
+        } else if (extSignDomain().sign == ExtSignDomain.Sign.NEG_OR_ZERO) {
+            if (other.extSignDomain().sign == ExtSignDomain.Sign.POS) return SemanticDomain.Satisfiability.NOT_SATISFIED;
             return SemanticDomain.Satisfiability.UNKNOWN;
-        } else if (extSignDomain.sign == ExtSignDomain.Sign.ZERO) {
-            if (other.extSignDomain.sign == ExtSignDomain.Sign.NEG) return SemanticDomain.Satisfiability.SATISFIED;
+        } else if (extSignDomain().sign == ExtSignDomain.Sign.ZERO) {
+            if (other.extSignDomain().sign == ExtSignDomain.Sign.NEG) return SemanticDomain.Satisfiability.SATISFIED;
                 /* 0>0 and 0>0+ nd 0>+ */
-            else if (other.extSignDomain.sign == ExtSignDomain.Sign.POS || other.extSignDomain.sign == ExtSignDomain.Sign.ZERO)
+            else if (other.extSignDomain().sign == ExtSignDomain.Sign.POS || other.extSignDomain().sign == ExtSignDomain.Sign.ZERO)
                 return SemanticDomain.Satisfiability.NOT_SATISFIED;
                 /* 0>0- we can have 0 > -1 that is true but we can have 0>0 that is false and same thing for 0+*/
             else return SemanticDomain.Satisfiability.UNKNOWN;
-        } else if (extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) {
+        } else if (extSignDomain().sign == ExtSignDomain.Sign.POS_OR_ZERO) {
             /*satisfied only with 0+ > -*/
-            if (other.extSignDomain.sign == ExtSignDomain.Sign.NEG) return SemanticDomain.Satisfiability.SATISFIED;
+            if (other.extSignDomain().sign == ExtSignDomain.Sign.NEG) return SemanticDomain.Satisfiability.SATISFIED;
             else return SemanticDomain.Satisfiability.UNKNOWN;
-        } else if (extSignDomain.sign == ExtSignDomain.Sign.POS) {
+        } else if (extSignDomain().sign == ExtSignDomain.Sign.POS) {
             /*always satisfied but not for + > 0+ that is unknown*/
-            if (other.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) return SemanticDomain.Satisfiability.UNKNOWN;
+            if (other.extSignDomain().sign == ExtSignDomain.Sign.POS_OR_ZERO) return SemanticDomain.Satisfiability.UNKNOWN;
             else return SemanticDomain.Satisfiability.SATISFIED;
         } else
             return SemanticDomain.Satisfiability.NOT_SATISFIED;
@@ -237,16 +309,44 @@ public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignPar
 
     @Override
     public boolean isTop() {
-        return extSignDomain.isTop() && parityDomain.isTop();
+        return code == TOP_TOP.code;
     }
 
     @Override
     public boolean isBottom() {
-        return extSignDomain.isBottom() && parityDomain.isBottom();
+        return code == BOTTOM_BOTTOM.code;
+    }
+
+    // results of satisfiesReference indexed by comparison id (see Operators.COMPARISONS) and codes
+    private static final SemanticDomain.Satisfiability[][][] SATISFIABILITY =
+            new SemanticDomain.Satisfiability[Operators.COMPARISONS.length][VALUES.length][VALUES.length];
+
+    static {
+        for (int op = 0; op < Operators.COMPARISONS.length; op++)
+            for (ExtSignParityDomain left : VALUES)
+                for (ExtSignParityDomain right : VALUES)
+                    if (left != null && right != null)
+                        SATISFIABILITY[op][left.code][right.code] = satisfiesReference(Operators.COMPARISONS[op], left, right);
     }
 
     @Override
-    protected SemanticDomain.Satisfiability satisfiesBinaryExpression(BinaryOperator operator, ExtSignParityDomain left, ExtSignParityDomain right, ProgramPoint pp) throws SemanticException {
+    protected SemanticDomain.Satisfiability satisfiesBinaryExpression(BinaryOperator operator, ExtSignParityDomain left, ExtSignParityDomain right, ProgramPoint pp) {
+        int op = Operators.comparison(operator);
+        if (op == Operators.UNSUPPORTED)
+            return SemanticDomain.Satisfiability.UNKNOWN;
+        return SATISFIABILITY[op][left.code][right.code];
+    }
+
+    // REFINEMENT of ExtSignDomain, with any parity: indexed by comparison id and by the sign ordinal of c
+    private static final ExtSignParityDomain[][] REFINEMENT = new ExtSignParityDomain[Operators.COMPARISONS.length][ExtSignDomain.Sign.values().length];
+
+    static {
+        for (int op = 0; op < REFINEMENT.length; op++)
+            for (ExtSignDomain.Sign c : ExtSignDomain.Sign.values())
+                REFINEMENT[op][c.ordinal()] = of(ExtSignDomain.REFINEMENT[op][c.ordinal()], ParityDomain.TOP);
+    }
+
+    static SemanticDomain.Satisfiability satisfiesReference(BinaryOperator operator, ExtSignParityDomain left, ExtSignParityDomain right) {
         if (left.isTop() || right.isTop())
             return SemanticDomain.Satisfiability.UNKNOWN;
 
@@ -279,158 +379,75 @@ public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignPar
         return SemanticDomain.Satisfiability.UNKNOWN;
     }
 
+    // backward transfer functions of the two components, reduced together
+    private static final BackwardRefinement.Inverse<ExtSignParityDomain> INVERSE = new BackwardRefinement.Inverse<ExtSignParityDomain>() {
+        @Override
+        public ExtSignParityDomain operand(UnaryOperator operator, ExtSignParityDomain target) {
+            return reduced(ExtSignDomain.INVERSE.operand(operator, target.extSignDomain()),
+                    ParityDomain.INVERSE.operand(operator, target.parityDomain()));
+        }
+
+        @Override
+        public ExtSignParityDomain left(BinaryOperator operator, ExtSignParityDomain target, ExtSignParityDomain right) {
+            return reduced(ExtSignDomain.INVERSE.left(operator, target.extSignDomain(), right.extSignDomain()),
+                    ParityDomain.INVERSE.left(operator, target.parityDomain(), right.parityDomain()));
+        }
+
+        @Override
+        public ExtSignParityDomain right(BinaryOperator operator, ExtSignParityDomain target, ExtSignParityDomain left) {
+            return reduced(ExtSignDomain.INVERSE.right(operator, target.extSignDomain(), left.extSignDomain()),
+                    ParityDomain.INVERSE.right(operator, target.parityDomain(), left.parityDomain()));
+        }
+    };
+
     @Override
     protected ValueEnvironment<ExtSignParityDomain> assumeBinaryExpression(ValueEnvironment<ExtSignParityDomain> environment, BinaryOperator operator, ValueExpression left, ValueExpression right, ProgramPoint pp) throws SemanticException {
-        if (operator == ComparisonEq.INSTANCE) { // x == c
-            if (left instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(right, environment, pp);
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, extSignParityDomain);
-            } else if (right instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(left, environment, pp);
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, extSignParityDomain);
-            }
-        } else if (operator == ComparisonNe.INSTANCE) { // x != c
-
-            /*In the != case, we always have top_top. We can understand it better in the following example:
-             * If we have the element (+, odd) that represents all positive numbers that are odd: 1,3,5,7,9,11,13,.....
-             * So we can see that (+,odd) is different from (+,even),(0-,even) and (0-,odd) and so both the first part and the second one
-             * can always change and for this it is always top_top
-             * */
-
-            if (left instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(right, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSignParityDomain);
-            } else if (right instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(left, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSignParityDomain);
-            }
-        } else if (operator == ComparisonGe.INSTANCE) {
-            if (left instanceof Identifier) { // x >= c
-                ExtSignParityDomain extSignParityDomain = eval(right, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = POS_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = POS_OR_ZERO_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = POS_OR_ZERO_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSignParityDomain);
-            } else if (right instanceof Identifier) { // c >= x
-                ExtSignParityDomain extSignParityDomain = eval(left, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = NEG_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = NEG_OR_ZERO_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = NEG_OR_ZERO_TOP;
-
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSignParityDomain);
-            }
-        } else if (operator == ComparisonLe.INSTANCE) { // x <= c
-            if (left instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(right, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = NEG_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = NEG_OR_ZERO_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = NEG_OR_ZERO_TOP;
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSignParityDomain);
-            } else if (right instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(left, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = POS_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = POS_OR_ZERO_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = POS_OR_ZERO_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSignParityDomain);
-            }
-        } else if (operator == ComparisonLt.INSTANCE) { // x < c
-            if (left instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(right, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = NEG_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = NEG_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = NEG_TOP;
-
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSignParityDomain);
-            } else if (right instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(left, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = POS_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = POS_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = POS_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSignParityDomain);
-            }
-        } else if (operator == ComparisonGt.INSTANCE) { // x > c
-            if (left instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(right, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = POS_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = POS_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = POS_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-                environment = environment.forgetIdentifier((Identifier) left).putState((Identifier) left, newExtSignParityDomain);
-            } else if (right instanceof Identifier) {
-                ExtSignParityDomain extSignParityDomain = eval(left, environment, pp);
-                ExtSignParityDomain newExtSignParityDomain = new ExtSignParityDomain();
-
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG) newExtSignParityDomain = NEG_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.ZERO) newExtSignParityDomain = NEG_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.POS_OR_ZERO) newExtSignParityDomain = TOP_TOP;
-                if (extSignParityDomain.extSignDomain.sign == ExtSignDomain.Sign.NEG_OR_ZERO) newExtSignParityDomain = NEG_TOP;
-
-                environment = environment.forgetIdentifier((Identifier) right).putState((Identifier) right, newExtSignParityDomain);
-            }
-        }
-        return environment;
+        /*
+         * the parity of c does not say anything on x, apart from ==. E.g. (+, odd) is different from (+, even),
+         * (0-, even) and (0-, odd), so after x != c both the sign and the parity of x stay as they were
+         */
+        int op = Operators.comparison(operator);
+        if (op == Operators.UNSUPPORTED)
+            return environment;
+        return BackwardRefinement.assume(this, environment, op, left, right, pp);
+    }
+
+    // x == c gives c, the other comparisons read REFINEMENT
+    @Override
+    public ExtSignParityDomain comparisonTarget(int op, ExtSignParityDomain other) {
+        return op == Operators.EQ ? other : REFINEMENT[op][other.extSignDomain().sign.ordinal()];
+    }
+
+    @Override
+    public BackwardRefinement.Inverse<ExtSignParityDomain> inverse() {
+        return INVERSE;
+    }
+
+    @Override
+    public ExtSignParityDomain evalUnary(UnaryOperator operator, ExtSignParityDomain arg, ProgramPoint pp) {
+        return evalUnaryExpression(operator, arg, pp);
+    }
+
+    @Override
+    public ExtSignParityDomain evalBinary(BinaryOperator operator, ExtSignParityDomain left, ExtSignParityDomain right, ProgramPoint pp) {
+        return evalBinaryExpression(operator, left, right, pp);
     }
 
+    @Override
+    public SemanticDomain.Satisfiability satisfiesBinary(BinaryOperator operator, ExtSignParityDomain left, ExtSignParityDomain right, ProgramPoint pp) {
+        return satisfiesBinaryExpression(operator, left, right, pp);
+    }
+
+    // union of the bits of both components, then reduction
     @Override
     protected ExtSignParityDomain lubAux(ExtSignParityDomain other) throws SemanticException {
-        ExtSignDomain extSignDomainLub = this.extSignDomain.lubAux(other.extSignDomain);
-        ParityDomain parityDomainLub = this.parityDomain.lubAux(other.parityDomain);
-        ExtSignParityDomain updatedDomain = new ExtSignParityDomain(extSignDomainLub, parityDomainLub);
-        return ExtSignParityDomain.reduceProduct(updatedDomain);
+        return REDUCED[code | other.code];
     }
 
+    // intersection of the bits of both components, then reduction
     @Override
     protected ExtSignParityDomain glbAux(ExtSignParityDomain other) throws SemanticException {
-        ExtSignDomain extSignDomainLub = this.extSignDomain.glbAux(other.extSignDomain);
-        ParityDomain parityDomainLub = this.parityDomain.glbAux(other.parityDomain);
-        ExtSignParityDomain updatedDomain = new ExtSignParityDomain(extSignDomainLub, parityDomainLub);
-        return ExtSignParityDomain.reduceProduct(updatedDomain);
+        return REDUCED[code & other.code];
     }
 
     @Override
@@ -438,19 +455,16 @@ public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignPar
         return this.lubAux(other);
     }
 
-    // <=
+    // <=, inclusion of the bits of both components
     @Override
     protected boolean lessOrEqualAux(ExtSignParityDomain other) throws SemanticException {
-        if (this.parityDomain.equals(other.parityDomain)) // only when parity is same for both
-            return this.extSignDomain.lessOrEqual(other.extSignDomain);
-        else
-            return false; // if parity is different, there are no <= relations (a part from base cases handled by lessOrEqual)
+        return (code & ~other.code) == 0;
     }
 
     // (+, EVEN)
     @Override
     public DomainRepresentation representation() {
-        String representation = String.format("(%s, %s)", extSignDomain.representation(), parityDomain.representation());
+        String representation = String.format("(%s, %s)", extSignDomain().representation(), parityDomain().representation());
         return new StringRepresentation(representation);
     }
 
@@ -464,17 +478,36 @@ public class ExtSignParityDomain extends BaseNonRelationalValueDomain<ExtSignPar
         return BOTTOM_BOTTOM;
     }
 
+    @Override
+    public byte code() {
+        return code;
+    }
+
+    @Override
+    public ExtSignParityDomain fromCode(byte code) {
+        return VALUES[code];
+    }
+
+    @Override
+    public byte lubCodes(byte left, byte right) {
+        return REDUCED[left | right].code;
+    }
+
+    @Override
+    public boolean lessOrEqualCodes(byte left, byte right) {
+        return (left & ~right) == 0;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        ExtSignParityDomain that = (ExtSignParityDomain) o;
-        return Objects.equals(extSignDomain, that.extSignDomain) && Objects.equals(parityDomain, that.parityDomain);
+        return code == ((ExtSignParityDomain) o).code;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(extSignDomain, parityDomain);
+        return code;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,487 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.representation.DomainRepresentation;
+import it.unive.lisa.analysis.representation.StringRepresentation;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.program.cfg.statement.Expression;
+import it.unive.lisa.program.cfg.statement.Literal;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.AdditionOperator;
+import it.unive.lisa.symbolic.value.operator.DivisionOperator;
+import it.unive.lisa.symbolic.value.operator.Module;
+import it.unive.lisa.symbolic.value.operator.Multiplication;
+import it.unive.lisa.symbolic.value.operator.SubtractionOperator;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+ * Intervals [low, high] of integers, with Long.MIN_VALUE and Long.MAX_VALUE standing for -inf and +inf.
+ * The arithmetic saturates to the infinities instead of overflowing.
+ *
+ * The widening moves an unstable bound to the nearest threshold, and to the infinity only past the last one.
+ * The thresholds are fixed when the domain is built: the integer literals of a program, found before the analysis,
+ * or the values given to withThresholds. A loop guard like i < 100 then stops i at 100.
+ * REDUCTION combines the domain with ExtSignParityDomain in a ReducedProduct.
+ */
+public class IntervalDomain extends BaseNonRelationalValueDomain<IntervalDomain> {
+
+    private static final long MINUS_INF = Long.MIN_VALUE;
+
+    private static final long PLUS_INF = Long.MAX_VALUE;
+
+    private final long low;
+
+    private final long high;
+
+    private final Thresholds thresholds;
+
+    public IntervalDomain() {
+        this(new Thresholds(new long[0]));
+    }
+
+    // a domain widening to the integer literals of program
+    public IntervalDomain(Program program) {
+        this(new Thresholds(literals(program)));
+    }
+
+    // a domain widening to the given thresholds
+    public static IntervalDomain withThresholds(long... thresholds) {
+        return new IntervalDomain(new Thresholds(thresholds.clone()));
+    }
+
+    private IntervalDomain(Thresholds thresholds) {
+        this(MINUS_INF, PLUS_INF, thresholds);
+    }
+
+    private IntervalDomain(long low, long high, Thresholds thresholds) {
+        this.low = low;
+        this.high = high;
+        this.thresholds = thresholds;
+    }
+
+    // the interval [low, high] with the thresholds of this domain
+    public IntervalDomain interval(long low, long high) {
+        if (low > high)
+            return thresholds.bottom;
+        if (low == MINUS_INF && high == PLUS_INF)
+            return thresholds.top;
+        return new IntervalDomain(low, high, thresholds);
+    }
+
+    public IntervalDomain constant(long c) {
+        return interval(c, c);
+    }
+
+    // a single finite value
+    private boolean isSingleton() {
+        return low == high && low != MINUS_INF && low != PLUS_INF;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    // a + b as a lower bound: -inf + +inf is -inf
+    private static long addLow(long a, long b) {
+        if (a == MINUS_INF || b == MINUS_INF)
+            return MINUS_INF;
+        return add(a, b);
+    }
+
+    // a + b as an upper bound: -inf + +inf is +inf
+    private static long addHigh(long a, long b) {
+        if (a == PLUS_INF || b == PLUS_INF)
+            return PLUS_INF;
+        return add(a, b);
+    }
+
+    private static long add(long a, long b) {
+        if (a == MINUS_INF || b == MINUS_INF)
+            return MINUS_INF;
+        if (a == PLUS_INF || b == PLUS_INF)
+            return PLUS_INF;
+        long r = a + b;
+        // overflow iff both operands have a sign different from the result
+        if (((a ^ r) & (b ^ r)) < 0)
+            return a < 0 ? MINUS_INF : PLUS_INF;
+        return r;
+    }
+
+    private static long negate(long a) {
+        return a == MINUS_INF ? PLUS_INF : a == PLUS_INF ? MINUS_INF : -a;
+    }
+
+    private static long mul(long a, long b) {
+        if (a == 0 || b == 0)
+            return 0;
+        boolean negative = (a < 0) != (b < 0);
+        if (a == MINUS_INF || a == PLUS_INF || b == MINUS_INF || b == PLUS_INF)
+            return negative ? MINUS_INF : PLUS_INF;
+        long r = a * b;
+        if (r / b != a)
+            return negative ? MINUS_INF : PLUS_INF;
+        return r;
+    }
+
+    // truncating division by a non zero b
+    private static long div(long a, long b) {
+        if (b == MINUS_INF || b == PLUS_INF)
+            return 0;
+        if (a == MINUS_INF || a == PLUS_INF)
+            return (a < 0) != (b < 0) ? MINUS_INF : PLUS_INF;
+        return a / b;
+    }
+
+    public IntervalDomain add(IntervalDomain other) {
+        return interval(addLow(low, other.low), addHigh(high, other.high));
+    }
+
+    public IntervalDomain sub(IntervalDomain other) {
+        return interval(addLow(low, negate(other.high)), addHigh(high, negate(other.low)));
+    }
+
+    public IntervalDomain negate() {
+        return interval(negate(high), negate(low));
+    }
+
+    public IntervalDomain mul(IntervalDomain other) {
+        long a = mul(low, other.low), b = mul(low, other.high), c = mul(high, other.low), d = mul(high, other.high);
+        return interval(Math.min(Math.min(a, b), Math.min(c, d)), Math.max(Math.max(a, b), Math.max(c, d)));
+    }
+
+    public IntervalDomain div(IntervalDomain other) {
+        if (other.low == 0 && other.high == 0)
+            return thresholds.bottom;
+        // the quotients are monotone on each side of zero
+        if (other.low <= 0 && other.high >= 0)
+            return thresholds.top;
+        long a = div(low, other.low), b = div(low, other.high), c = div(high, other.low), d = div(high, other.high);
+        return interval(Math.min(Math.min(a, b), Math.min(c, d)), Math.max(Math.max(a, b), Math.max(c, d)));
+    }
+
+    // the result has the sign of the dividend and is smaller than the largest divisor in absolute value
+    public IntervalDomain mod(IntervalDomain other) {
+        if (other.low == 0 && other.high == 0)
+            return thresholds.bottom;
+        if (isSingleton() && other.isSingleton())
+            return constant(low % other.low);
+        long largest = Math.max(negate(other.low), other.high);
+        long bound = largest == PLUS_INF ? PLUS_INF : largest - 1;
+        return interval(low >= 0 ? 0 : Math.max(low, -bound), high <= 0 ? 0 : Math.min(high, bound));
+    }
+
+    @Override
+    protected IntervalDomain evalNullConstant(ProgramPoint pp) {
+        return thresholds.top;
+    }
+
+    @Override
+    protected IntervalDomain evalNonNullConstant(Constant constant, ProgramPoint pp) {
+        if (constant.getValue() instanceof Integer) {
+            return constant((Integer) constant.getValue());
+        }
+        return thresholds.top;
+    }
+
+    @Override
+    protected IntervalDomain evalUnaryExpression(UnaryOperator operator, IntervalDomain arg, ProgramPoint pp) {
+        if (operator == NumericNegation.INSTANCE)
+            return arg.negate();
+        return thresholds.top;
+    }
+
+    @Override
+    protected IntervalDomain evalBinaryExpression(BinaryOperator operator, IntervalDomain left, IntervalDomain right, ProgramPoint pp) {
+        if (left.isBottom() || right.isBottom())
+            return thresholds.bottom;
+        if (operator instanceof AdditionOperator)
+            return left.add(right);
+        if (operator instanceof SubtractionOperator)
+            return left.sub(right);
+        if (operator instanceof Multiplication)
+            return left.mul(right);
+        if (operator instanceof DivisionOperator)
+            return left.div(right);
+        if (operator instanceof Module)
+            return left.mod(right);
+        return thresholds.top;
+    }
+
+    @Override
+    protected SemanticDomain.Satisfiability satisfiesBinaryExpression(BinaryOperator operator, IntervalDomain left, IntervalDomain right, ProgramPoint pp) {
+        if (operator == ComparisonEq.INSTANCE || operator == ComparisonNe.INSTANCE) {
+            SemanticDomain.Satisfiability eq;
+            if (left.high < right.low || right.high < left.low)
+                eq = SemanticDomain.Satisfiability.NOT_SATISFIED;
+            else if (left.low == left.high && left.equals(right))
+                eq = SemanticDomain.Satisfiability.SATISFIED;
+            else
+                eq = SemanticDomain.Satisfiability.UNKNOWN;
+            return operator == ComparisonEq.INSTANCE ? eq : eq.negate();
+        }
+        if (operator == ComparisonLt.INSTANCE)
+            return lessThan(left, right, 0);
+        if (operator == ComparisonLe.INSTANCE)
+            return lessThan(left, right, 1);
+        if (operator == ComparisonGt.INSTANCE)
+            return lessThan(right, left, 0);
+        if (operator == ComparisonGe.INSTANCE)
+            return lessThan(right, left, 1);
+        return SemanticDomain.Satisfiability.UNKNOWN;
+    }
+
+    // left < right + slack
+    private static SemanticDomain.Satisfiability lessThan(IntervalDomain left, IntervalDomain right, long slack) {
+        if (left.high < addLow(right.low, slack))
+            return SemanticDomain.Satisfiability.SATISFIED;
+        if (left.low >= addHigh(right.high, slack))
+            return SemanticDomain.Satisfiability.NOT_SATISFIED;
+        return SemanticDomain.Satisfiability.UNKNOWN;
+    }
+
+    // id op e: the bounds of e bound id
+    @Override
+    protected ValueEnvironment<IntervalDomain> assumeBinaryExpression(ValueEnvironment<IntervalDomain> environment, BinaryOperator operator, ValueExpression left, ValueExpression right, ProgramPoint pp) throws SemanticException {
+        if (left instanceof Identifier)
+            return refine(environment, (Identifier) left, operator, eval(right, environment, pp));
+        if (right instanceof Identifier)
+            return refine(environment, (Identifier) right, flip(operator), eval(left, environment, pp));
+        return environment;
+    }
+
+    // the operator with swapped operands: e < id is id > e
+    private static BinaryOperator flip(BinaryOperator operator) {
+        if (operator == ComparisonLt.INSTANCE)
+            return ComparisonGt.INSTANCE;
+        if (operator == ComparisonLe.INSTANCE)
+            return ComparisonGe.INSTANCE;
+        if (operator == ComparisonGt.INSTANCE)
+            return ComparisonLt.INSTANCE;
+        if (operator == ComparisonGe.INSTANCE)
+            return ComparisonLe.INSTANCE;
+        return operator;
+    }
+
+    private ValueEnvironment<IntervalDomain> refine(ValueEnvironment<IntervalDomain> environment, Identifier id, BinaryOperator operator, IntervalDomain bound) throws SemanticException {
+        IntervalDomain allowed;
+        if (operator == ComparisonEq.INSTANCE)
+            allowed = bound;
+        else if (operator == ComparisonLt.INSTANCE)
+            allowed = interval(MINUS_INF, addHigh(bound.high, -1));
+        else if (operator == ComparisonLe.INSTANCE)
+            allowed = interval(MINUS_INF, bound.high);
+        else if (operator == ComparisonGt.INSTANCE)
+            allowed = interval(addLow(bound.low, 1), PLUS_INF);
+        else if (operator == ComparisonGe.INSTANCE)
+            allowed = interval(bound.low, PLUS_INF);
+        else
+            return environment;
+
+        IntervalDomain refined = environment.getState(id).glb(allowed);
+        if (refined.isBottom())
+            return environment.bottom();
+        return environment.putState(id, refined);
+    }
+
+    @Override
+    protected IntervalDomain lubAux(IntervalDomain other) {
+        return interval(Math.min(low, other.low), Math.max(high, other.high));
+    }
+
+    @Override
+    protected IntervalDomain glbAux(IntervalDomain other) {
+        return interval(Math.max(low, other.low), Math.min(high, other.high));
+    }
+
+    @Override
+    protected IntervalDomain wideningAux(IntervalDomain other) {
+        long l = other.low < low ? thresholds.atMost(other.low) : low;
+        long h = other.high > high ? thresholds.atLeast(other.high) : high;
+        return interval(l, h);
+    }
+
+    @Override
+    protected boolean lessOrEqualAux(IntervalDomain other) {
+        return other.low <= low && high <= other.high;
+    }
+
+    @Override
+    public IntervalDomain top() {
+        return thresholds.top;
+    }
+
+    @Override
+    public IntervalDomain bottom() {
+        return thresholds.bottom;
+    }
+
+    @Override
+    public boolean isTop() {
+        return low == MINUS_INF && high == PLUS_INF;
+    }
+
+    @Override
+    public boolean isBottom() {
+        return low > high;
+    }
+
+    @Override
+    public DomainRepresentation representation() {
+        if (isBottom())
+            return Lattice.BOTTOM_REPR;
+        if (isTop())
+            return Lattice.TOP_REPR;
+        return new StringRepresentation("[" + (low == MINUS_INF ? "-Inf" : String.valueOf(low)) + ", "
+                + (high == PLUS_INF ? "+Inf" : String.valueOf(high)) + "]");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntervalDomain that = (IntervalDomain) o;
+        return low == that.low && high == that.high;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(low) * 31 + Long.hashCode(high);
+    }
+
+    // the integer literals of the statements of program, and their negations, e.g. the bound of i > -5
+    private static long[] literals(Program program) {
+        Set<Long> literals = new TreeSet<>();
+        for (CFG cfg : program.getAllCFGs())
+            for (Expression expression : Expressions.of(cfg))
+                if (expression instanceof Literal && ((Literal) expression).getValue() instanceof Integer) {
+                    long literal = (Integer) ((Literal) expression).getValue();
+                    literals.add(literal);
+                    literals.add(-literal);
+                }
+        long[] result = new long[literals.size()];
+        int i = 0;
+        for (long literal : literals)
+            result[i++] = literal;
+        return result;
+    }
+
+    // the sorted thresholds of a domain instance, with its top and bottom; they never change after the constructor
+    private static final class Thresholds {
+
+        private final IntervalDomain top = new IntervalDomain(MINUS_INF, PLUS_INF, this);
+
+        private final IntervalDomain bottom = new IntervalDomain(1, 0, this);
+
+        private final long[] values;
+
+        Thresholds(long[] values) {
+            Arrays.sort(values);
+            this.values = values;
+        }
+
+        // the largest threshold <= x, or -inf
+        long atMost(long x) {
+            int position = Arrays.binarySearch(values, x);
+            if (position >= 0)
+                return x;
+            position = -position - 2;
+            return position >= 0 ? values[position] : MINUS_INF;
+        }
+
+        // the smallest threshold >= x, or +inf
+        long atLeast(long x) {
+            int position = Arrays.binarySearch(values, x);
+            if (position >= 0)
+                return x;
+            position = -position - 1;
+            return position < values.length ? values[position] : PLUS_INF;
+        }
+    }
+
+    // the reduction of the product of ExtSignParityDomain and IntervalDomain
+    public static final ReducedProduct.Reduction<ExtSignParityDomain, IntervalDomain> REDUCTION = new ReducedProduct.Reduction<ExtSignParityDomain, IntervalDomain>() {
+        @Override
+        public ExtSignParityDomain reduceFirst(ExtSignParityDomain first, IntervalDomain second) throws SemanticException {
+            if (second.isBottom())
+                return first.bottom();
+            ExtSignDomain sign;
+            if (second.low == 0 && second.high == 0)
+                sign = ExtSignDomain.ZERO;
+            else if (second.low > 0)
+                sign = ExtSignDomain.POS;
+            else if (second.low == 0)
+                sign = ExtSignDomain.POS_OR_ZERO;
+            else if (second.high < 0)
+                sign = ExtSignDomain.NEG;
+            else if (second.high == 0)
+                sign = ExtSignDomain.NEG_OR_ZERO;
+            else
+                sign = ExtSignDomain.TOP;
+            ParityDomain parity = second.low == second.high ? ParityDomain.fromInt((int) (second.low & 1)) : ParityDomain.TOP;
+            return first.glb(ExtSignParityDomain.reduced(sign, parity));
+        }
+
+        @Override
+        public IntervalDomain reduceSecond(ExtSignParityDomain first, IntervalDomain second) {
+            long l = second.low, h = second.high;
+            switch (first.extSignDomain().sign) {
+                case BOTTOM:
+                    return second.bottom();
+                case ZERO:
+                    l = Math.max(l, 0);
+                    h = Math.min(h, 0);
+                    break;
+                case POS:
+                    l = Math.max(l, 1);
+                    break;
+                case POS_OR_ZERO:
+                    l = Math.max(l, 0);
+                    break;
+                case NEG:
+                    h = Math.min(h, -1);
+                    break;
+                case NEG_OR_ZERO:
+                    h = Math.min(h, 0);
+                    break;
+                default:
+                    break;
+            }
+            // move the finite bounds to the nearest value of the right parity
+            ParityDomain parity = first.parityDomain();
+            if (parity.isBottom())
+                return second.bottom();
+            if (!parity.isTop()) {
+                long wanted = parity.isOdd() ? 1 : 0;
+                if (l != MINUS_INF && l != PLUS_INF && (l & 1) != wanted)
+                    l++;
+                if (h != MINUS_INF && h != PLUS_INF && (h & 1) != wanted)
+                    h--;
+            }
+            return second.interval(l, h);
+        }
+    };
+}
@@ -0,0 +1,379 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.Lattice;
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.representation.DomainRepresentation;
+import it.unive.lisa.analysis.representation.StringRepresentation;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.SymbolicExpression;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.AdditionOperator;
+import it.unive.lisa.symbolic.value.operator.DivisionOperator;
+import it.unive.lisa.symbolic.value.operator.Module;
+import it.unive.lisa.symbolic.value.operator.Multiplication;
+import it.unive.lisa.symbolic.value.operator.SubtractionOperator;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
+
+/*
+ * Known bits of a 64 bit two's complement integer (a "tnum"): the bits set in mask are unknown, the other bits
+ * have the value of the same bit in value. ParityDomain is the special case that tracks only bit 0.
+ *
+ * The transfer functions are the usual bitwise formulas, so they never look at the single values.
+ * IMP integers are unbounded: the bits are the ones of the value modulo 2^64, so addition, subtraction and
+ * multiplication are the wrapped 64 bit formulas, and bit 63 is not the sign. A constant is known only modulo 2^64,
+ * so two equal constants do not make a comparison true.
+ * REDUCTION combines the domain with ExtSignDomain in a ReducedProduct, in place of parity: a bit known to be 1
+ * excludes zero, zero fixes all the bits, and the sign of the dividend makes / and % by a power of two precise.
+ */
+public class KnownBitsDomain extends BaseNonRelationalValueDomain<KnownBitsDomain> {
+
+    public static final KnownBitsDomain TOP = new KnownBitsDomain(0, -1);
+
+    // value and mask overlap only here
+    public static final KnownBitsDomain BOTTOM = new KnownBitsDomain(-1, -1);
+
+    public static final KnownBitsDomain ZERO = new KnownBitsDomain(0, 0);
+
+    public static final KnownBitsDomain EVEN = new KnownBitsDomain(0, ~1L);
+
+    public static final KnownBitsDomain ODD = new KnownBitsDomain(1, ~1L);
+
+    private final long value;
+
+    private final long mask;
+
+    public KnownBitsDomain() {
+        this(0, -1);
+    }
+
+    private KnownBitsDomain(long value, long mask) {
+        this.value = value;
+        this.mask = mask;
+    }
+
+    private static KnownBitsDomain of(long value, long mask) {
+        if (mask == -1)
+            return TOP;
+        return new KnownBitsDomain(value & ~mask, mask);
+    }
+
+    public static KnownBitsDomain fromLong(long val) {
+        return val == 0 ? ZERO : new KnownBitsDomain(val, 0);
+    }
+
+    public static KnownBitsDomain fromInt(Integer val) {
+        return fromLong(val);
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getMask() {
+        return mask;
+    }
+
+    public boolean isConstant() {
+        return mask == 0;
+    }
+
+    // the bits known in both this and other, where they disagree
+    private long conflicts(KnownBitsDomain other) {
+        return (value ^ other.value) & ~mask & ~other.mask;
+    }
+
+    public KnownBitsDomain add(KnownBitsDomain other) {
+        if (isBottom() || other.isBottom())
+            return BOTTOM;
+        return add(value, mask, other.value, other.mask);
+    }
+
+    private static KnownBitsDomain add(long value, long mask, long otherValue, long otherMask) {
+        long sm = mask + otherMask;
+        long sv = value + otherValue;
+        long chi = (sm + sv) ^ sv;
+        long mu = chi | mask | otherMask;
+        return of(sv & ~mu, mu);
+    }
+
+    public KnownBitsDomain sub(KnownBitsDomain other) {
+        if (isBottom() || other.isBottom())
+            return BOTTOM;
+        long dv = value - other.value;
+        long alpha = dv + mask;
+        long beta = dv - other.mask;
+        long mu = (alpha ^ beta) | mask | other.mask;
+        return of(dv & ~mu, mu);
+    }
+
+    // long multiplication: each bit of this adds a shifted copy of other
+    public KnownBitsDomain mul(KnownBitsDomain other) {
+        if (isBottom() || other.isBottom())
+            return BOTTOM;
+        long av = value, am = mask;
+        long bv = other.value, bm = other.mask;
+        // the unknown part of the product, as the tnum (unknownValue, unknownMask)
+        long unknownValue = 0, unknownMask = 0;
+        while (av != 0 || am != 0) {
+            long added = (av & 1) != 0 ? bm : (am & 1) != 0 ? bv | bm : 0;
+            long sm = unknownMask + added;
+            long mu = ((sm + unknownValue) ^ unknownValue) | unknownMask | added;
+            unknownValue &= ~mu;
+            unknownMask = mu;
+            av >>>= 1;
+            am >>>= 1;
+            bv <<= 1;
+            bm <<= 1;
+        }
+        return add(value * other.value, 0, unknownValue, unknownMask);
+    }
+
+    public KnownBitsDomain shiftLeft(int bits) {
+        return of(value << bits, mask << bits);
+    }
+
+    public KnownBitsDomain shiftRight(int bits) {
+        return of(value >> bits, mask >> bits);
+    }
+
+    public KnownBitsDomain shiftRightUnsigned(int bits) {
+        return of(value >>> bits, mask >>> bits);
+    }
+
+    // x % d, with d a multiple of 2^k, has the same lowest k bits of x; the other bits are 0 when x >= 0 and d is
+    // exactly 2^k, and unknown otherwise
+    private KnownBitsDomain modPowerOfTwo(int bits, boolean nonNegative) {
+        long low = (1L << bits) - 1;
+        if (nonNegative)
+            return of(value & low, mask & low);
+        return of(value & low, (mask & low) | ~low);
+    }
+
+    // x / 2^k for x >= 0: the bits of x from the k-th, the highest k bits of the result come from beyond bit 63
+    private KnownBitsDomain divPowerOfTwo(int bits) {
+        return of(value >>> bits, (mask >>> bits) | ~(-1L >>> bits));
+    }
+
+    // the exponent of the power of two (modulo 2^64) represented by this value, -1 if this is not a known power of two
+    private int powerOfTwo() {
+        return isConstant() && value > 0 && Long.bitCount(value) == 1 ? Long.numberOfTrailingZeros(value) : -1;
+    }
+
+    // the exponent of the power of two denoted by the integer literal expression, -1 if it is not one
+    private static int powerOfTwo(SymbolicExpression expression) {
+        if (!(expression instanceof Constant) || !(((Constant) expression).getValue() instanceof Integer))
+            return -1;
+        return fromInt((Integer) ((Constant) expression).getValue()).powerOfTwo();
+    }
+
+    @Override
+    protected KnownBitsDomain evalNullConstant(ProgramPoint pp) {
+        return TOP;
+    }
+
+    @Override
+    protected KnownBitsDomain evalNonNullConstant(Constant constant, ProgramPoint pp) {
+        if (constant.getValue() instanceof Integer)
+            return fromInt((Integer) constant.getValue());
+        return TOP;
+    }
+
+    @Override
+    protected KnownBitsDomain evalUnaryExpression(UnaryOperator operator, KnownBitsDomain arg, ProgramPoint pp) {
+        if (operator == NumericNegation.INSTANCE)
+            return ZERO.sub(arg);
+        return TOP;
+    }
+
+    @Override
+    protected KnownBitsDomain evalBinaryExpression(BinaryOperator operator, KnownBitsDomain left, KnownBitsDomain right, ProgramPoint pp) {
+        if (left.isBottom() || right.isBottom())
+            return BOTTOM;
+        if (operator instanceof AdditionOperator)
+            return left.add(right);
+        if (operator instanceof SubtractionOperator)
+            return left.sub(right);
+        if (operator instanceof Multiplication)
+            return left.mul(right);
+
+        // without the sign of left, only the lowest bits of the remainder are known
+        int exponent = right.powerOfTwo();
+        if (operator instanceof Module && exponent >= 0)
+            return left.modPowerOfTwo(exponent, false);
+        return TOP;
+    }
+
+    @Override
+    protected SemanticDomain.Satisfiability satisfiesBinaryExpression(BinaryOperator operator, KnownBitsDomain left, KnownBitsDomain right, ProgramPoint pp) {
+        if (operator == ComparisonEq.INSTANCE) {
+            if (left.conflicts(right) != 0)
+                return SemanticDomain.Satisfiability.NOT_SATISFIED;
+        } else if (operator == ComparisonNe.INSTANCE) {
+            if (left.conflicts(right) != 0)
+                return SemanticDomain.Satisfiability.SATISFIED;
+        }
+        return SemanticDomain.Satisfiability.UNKNOWN;
+    }
+
+    // x == e: the bits of x are the ones known in x or in e
+    @Override
+    protected ValueEnvironment<KnownBitsDomain> assumeBinaryExpression(ValueEnvironment<KnownBitsDomain> environment, BinaryOperator operator, ValueExpression left, ValueExpression right, ProgramPoint pp) throws SemanticException {
+        if (operator == ComparisonEq.INSTANCE) {
+            if (left instanceof Identifier)
+                return refine(environment, (Identifier) left, eval(right, environment, pp));
+            else if (right instanceof Identifier)
+                return refine(environment, (Identifier) right, eval(left, environment, pp));
+        }
+        return environment;
+    }
+
+    private static ValueEnvironment<KnownBitsDomain> refine(ValueEnvironment<KnownBitsDomain> environment, Identifier id, KnownBitsDomain bits) throws SemanticException {
+        KnownBitsDomain refined = environment.getState(id).glb(bits);
+        if (refined.isBottom())
+            return environment.bottom();
+        return environment.putState(id, refined);
+    }
+
+    @Override
+    protected KnownBitsDomain lubAux(KnownBitsDomain other) {
+        long mu = mask | other.mask | (value ^ other.value);
+        return of(value & ~mu, mu);
+    }
+
+    @Override
+    protected KnownBitsDomain glbAux(KnownBitsDomain other) {
+        if (conflicts(other) != 0)
+            return BOTTOM;
+        return of(value | other.value, mask & other.mask);
+    }
+
+    @Override
+    protected KnownBitsDomain wideningAux(KnownBitsDomain other) {
+        return lubAux(other);
+    }
+
+    @Override
+    protected boolean lessOrEqualAux(KnownBitsDomain other) {
+        return (mask & ~other.mask) == 0 && ((value ^ other.value) & ~other.mask) == 0;
+    }
+
+    @Override
+    public KnownBitsDomain top() {
+        return TOP;
+    }
+
+    @Override
+    public KnownBitsDomain bottom() {
+        return BOTTOM;
+    }
+
+    @Override
+    public boolean isTop() {
+        return mask == -1 && value == 0;
+    }
+
+    @Override
+    public boolean isBottom() {
+        return (value & mask) != 0;
+    }
+
+    // e.g. 0...1x0 for the values 4 and 6, the first digit stands for all the higher bits
+    @Override
+    public DomainRepresentation representation() {
+        if (isBottom())
+            return Lattice.BOTTOM_REPR;
+        if (isTop())
+            return Lattice.TOP_REPR;
+        if (isConstant())
+            return new StringRepresentation(String.valueOf(value));
+
+        int highest = 63;
+        while (highest > 0 && bit(highest - 1) == bit(63))
+            highest--;
+        StringBuilder builder = new StringBuilder().append(bit(63)).append("...");
+        for (int i = highest - 1; i >= 0; i--)
+            builder.append(bit(i));
+        return new StringRepresentation(builder.toString());
+    }
+
+    private char bit(int i) {
+        if ((mask >>> i & 1) != 0)
+            return 'x';
+        return (value >>> i & 1) != 0 ? '1' : '0';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        KnownBitsDomain that = (KnownBitsDomain) o;
+        return value == that.value && mask == that.mask;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value) * 31 + Long.hashCode(mask);
+    }
+
+    // the reduction of the product of ExtSignDomain and KnownBitsDomain
+    public static final ReducedProduct.Reduction<ExtSignDomain, KnownBitsDomain> REDUCTION = new ReducedProduct.Reduction<ExtSignDomain, KnownBitsDomain>() {
+        // the bits are the value modulo 2^64, so they only tell that a value with a bit known to be 1 is not zero
+        @Override
+        public ExtSignDomain reduceFirst(ExtSignDomain first, KnownBitsDomain second) throws SemanticException {
+            if (second.isBottom())
+                return ExtSignDomain.BOTTOM;
+            if (second.value == 0)
+                return first;
+            switch (first.sign) {
+                case ZERO:
+                    return ExtSignDomain.BOTTOM;
+                case NEG_OR_ZERO:
+                    return ExtSignDomain.NEG;
+                case POS_OR_ZERO:
+                    return ExtSignDomain.POS;
+                default:
+                    return first;
+            }
+        }
+
+        // any bits are possible for a value with a sign other than zero
+        @Override
+        public KnownBitsDomain reduceSecond(ExtSignDomain first, KnownBitsDomain second) throws SemanticException {
+            switch (first.sign) {
+                case BOTTOM:
+                    return BOTTOM;
+                case ZERO:
+                    return second.glb(ZERO);
+                default:
+                    return second;
+            }
+        }
+
+        @Override
+        public boolean refinesSecond(BinaryOperator operator) {
+            return operator instanceof Module || operator instanceof DivisionOperator;
+        }
+
+        // x % 2^k and x / 2^k for x >= 0 and a literal 2^k, which is the only divisor known exactly and not modulo 2^64
+        @Override
+        public KnownBitsDomain refineSecond(BinaryExpression expression, ReducedProduct<ExtSignDomain, KnownBitsDomain> left,
+                                            ReducedProduct<ExtSignDomain, KnownBitsDomain> right, KnownBitsDomain value) throws SemanticException {
+            int exponent = powerOfTwo(expression.getRight());
+            if (exponent < 0 || !left.getFirst().lessOrEqual(ExtSignDomain.POS_OR_ZERO))
+                return value;
+            if (expression.getOperator() instanceof Module)
+                return value.glb(left.getSecond().modPowerOfTwo(exponent, true));
+            return value.glb(left.getSecond().divPowerOfTwo(exponent));
+        }
+    };
+}
@@ -0,0 +1,93 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.symbolic.value.operator.AdditionOperator;
+import it.unive.lisa.symbolic.value.operator.DivisionOperator;
+import it.unive.lisa.symbolic.value.operator.Module;
+import it.unive.lisa.symbolic.value.operator.Multiplication;
+import it.unive.lisa.symbolic.value.operator.SubtractionOperator;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+
+/*
+ * Small integer ids of the arithmetic and comparison operators, shared by the dense domains and their environments
+ * to index their tables. The operator classes are resolved to their id only the first time they are met, so that
+ * the evaluation does not walk an instanceof chain at every expression.
+ */
+final class Operators {
+
+    // ids of the arithmetic operators
+    static final int ADD = 0;
+    static final int SUB = 1;
+    static final int MUL = 2;
+    static final int DIV = 3;
+    static final int MOD = 4;
+
+    // id of the operators that are neither arithmetic nor comparisons
+    static final int UNSUPPORTED = -1;
+
+    // ids of the comparison operators
+    static final int EQ = 0;
+    static final int NE = 1;
+    static final int GT = 2;
+    static final int GE = 3;
+    static final int LT = 4;
+    static final int LE = 5;
+
+    // the comparison operators, indexed by their id
+    static final BinaryOperator[] COMPARISONS = {
+            ComparisonEq.INSTANCE, ComparisonNe.INSTANCE, ComparisonGt.INSTANCE,
+            ComparisonGe.INSTANCE, ComparisonLt.INSTANCE, ComparisonLe.INSTANCE
+    };
+
+    // c op x is x FLIPPED[op] c
+    static final int[] FLIPPED = {EQ, NE, LT, LE, GT, GE};
+
+    private static final ClassValue<Integer> ARITHMETIC_IDS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            if (AdditionOperator.class.isAssignableFrom(type))
+                return ADD;
+            if (DivisionOperator.class.isAssignableFrom(type))
+                return DIV;
+            if (Multiplication.class.isAssignableFrom(type))
+                return MUL;
+            if (SubtractionOperator.class.isAssignableFrom(type))
+                return SUB;
+            if (Module.class.isAssignableFrom(type))
+                return MOD;
+            return UNSUPPORTED;
+        }
+    };
+
+    private static final ClassValue<Integer> COMPARISON_IDS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            for (int i = 0; i < COMPARISONS.length; i++)
+                if (COMPARISONS[i].getClass() == type)
+                    return i;
+            return UNSUPPORTED;
+        }
+    };
+
+    private Operators() {
+    }
+
+    // id of an arithmetic operator, UNSUPPORTED for the other ones
+    static int arithmetic(BinaryOperator operator) {
+        return ARITHMETIC_IDS.get(operator.getClass());
+    }
+
+    static boolean isArithmetic(BinaryOperator operator) {
+        return arithmetic(operator) != UNSUPPORTED;
+    }
+
+    // id of a comparison operator, UNSUPPORTED for the other ones
+    static int comparison(BinaryOperator operator) {
+        return COMPARISON_IDS.get(operator.getClass());
+    }
+}
@@ -20,26 +20,34 @@ import it.unive.lisa.symbolic.value.operator.binary.*;
 import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
 import it.unive.lisa.symbolic.value.operator.unary.UnaryOperator;
 
-import java.util.Objects;
+public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> implements DenseValueDomain<ParityDomain> {
 
-public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> {
+    // the parity of each value is its position in ParityLattice, generated from src/main/lattices/Parity.lattice
+    public static final ParityDomain EVEN = new ParityDomain((byte) ParityLattice.EVEN);
+    public static final ParityDomain ODD = new ParityDomain((byte) ParityLattice.ODD);
+    public static final ParityDomain TOP = new ParityDomain((byte) ParityLattice.TOP);
+    public static final ParityDomain BOTTOM = new ParityDomain((byte) ParityLattice.BOTTOM);
 
-    public static final ParityDomain EVEN = new ParityDomain((byte) 3);
-    public static final ParityDomain ODD = new ParityDomain((byte) 2);
-    public static final ParityDomain TOP = new ParityDomain((byte) 0);
-    public static final ParityDomain BOTTOM = new ParityDomain((byte) 1);
+    // values indexed by parity
+    private static final ParityDomain[] VALUES = new ParityDomain[ParityLattice.SIZE];
 
-    private final byte parity;
+    static {
+        for (ParityDomain value : new ParityDomain[]{TOP, BOTTOM, ODD, EVEN})
+            VALUES[value.parity] = value;
+    }
+
+    // also the index of the value in the tables of ExtSignParityDomain
+    final byte parity;
 
     /**
      * Builds the parity abstract domain, representing the top of the parity
      * abstract domain.
      */
     public ParityDomain() {
-        this((byte) 0);
+        this((byte) ParityLattice.TOP);
     }
 
-    public ParityDomain(byte parity) {
+    private ParityDomain(byte parity) {
         this.parity = parity;
     }
 
@@ -50,12 +58,12 @@ public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> {
 
     @Override
     public boolean isTop() {
-        return equals(TOP);
+        return parity == TOP.parity;
     }
 
     @Override
     public boolean isBottom() {
-        return equals(BOTTOM);
+        return parity == BOTTOM.parity;
     }
 
     @Override
@@ -86,8 +94,7 @@ public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> {
     @Override
     protected ParityDomain evalNonNullConstant(Constant constant, ProgramPoint pp) {
         if (constant.getValue() instanceof Integer) {
-            Integer i = (Integer) constant.getValue();
-            return i % 2 == 0 ? EVEN : ODD;
+            return fromInt((Integer) constant.getValue());
         }
         return top();
     }
@@ -101,7 +108,7 @@ public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> {
     }
 
     public static ParityDomain fromInt(Integer x) {
-        return x % 2 == 0 ? EVEN : ODD;
+        return VALUES[ParityLattice.fromInt(x)];
     }
 
     public static ParityDomain oppositeFromInt(Integer x) {
@@ -152,14 +159,42 @@ public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> {
         return TOP;
     }
 
+    // backward transfer functions, used by ExtSignParityDomain to refine the parity of the operands of an arithmetic expression
+    static final BackwardRefinement.Inverse<ParityDomain> INVERSE = new BackwardRefinement.Inverse<ParityDomain>() {
+        @Override
+        public ParityDomain operand(UnaryOperator operator, ParityDomain target) {
+            return operator == NumericNegation.INSTANCE ? target : TOP;
+        }
+
+        // x + y and x - y have the parity of x + y, so each operand has the parity of the target plus the other one
+        @Override
+        public ParityDomain left(BinaryOperator operator, ParityDomain target, ParityDomain right) {
+            return inverse(operator, target, right);
+        }
+
+        @Override
+        public ParityDomain right(BinaryOperator operator, ParityDomain target, ParityDomain left) {
+            return inverse(operator, target, left);
+        }
+
+        private ParityDomain inverse(BinaryOperator operator, ParityDomain target, ParityDomain other) {
+            if (operator instanceof AdditionOperator || operator instanceof SubtractionOperator)
+                return other.isBottom() ? BOTTOM : TOP.evalBinaryExpression(operator, target, other, null);
+            // an odd product has odd factors only
+            if (operator instanceof Multiplication)
+                return target.equals(ODD) ? ODD : TOP;
+            return TOP;
+        }
+    };
+
     @Override
     protected ParityDomain lubAux(ParityDomain other) {
-        return TOP;
+        return VALUES[ParityLattice.lub(parity, other.parity)];
     }
 
     @Override
     protected ParityDomain glbAux(ParityDomain other) {
-        return BOTTOM;
+        return VALUES[ParityLattice.glb(parity, other.parity)];
     }
 
     @Override
@@ -169,7 +204,7 @@ public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> {
 
     @Override
     protected boolean lessOrEqualAux(ParityDomain other) {
-        return false;
+        return ParityLattice.lessOrEqual(parity, other.parity);
     }
 
     @Override
@@ -237,6 +272,27 @@ public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> {
         return environment;
     }
 
+    // the code of a value is its parity, i.e. its position in ParityLattice
+    @Override
+    public byte code() {
+        return parity;
+    }
+
+    @Override
+    public ParityDomain fromCode(byte code) {
+        return VALUES[code];
+    }
+
+    @Override
+    public byte lubCodes(byte left, byte right) {
+        return (byte) ParityLattice.lub(left, right);
+    }
+
+    @Override
+    public boolean lessOrEqualCodes(byte left, byte right) {
+        return ParityLattice.lessOrEqual(left, right);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -247,6 +303,6 @@ public class ParityDomain extends BaseNonRelationalValueDomain<ParityDomain> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(parity);
+        return parity;
     }
 }
\ No newline at end of file
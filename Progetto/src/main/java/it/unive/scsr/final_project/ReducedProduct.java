@@ -0,0 +1,267 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.representation.DomainRepresentation;
+import it.unive.lisa.analysis.representation.StringRepresentation;
+import it.unive.lisa.program.cfg.ProgramPoint;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Identifier;
+import it.unive.lisa.symbolic.value.ValueExpression;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Reduced product of two non relational value domains.
+ *
+ * Expressions are evaluated in each component, on the projection of the environment, and the resulting pair is
+ * reduced with the given Reduction. The reduction is iterated until neither component changes, so a product of
+ * three or more domains is written by nesting, e.g. ReducedProduct<A, ReducedProduct<B, C>>: the inner pair is
+ * reduced every time it is built, the outer loop propagates between A and the pair. A reduction may also refine the
+ * value of a binary expression in the second component using the operands in both components, e.g. their sign.
+ *
+ * When both components are finite lattices, finite(...) builds a product that remembers the reduction of every
+ * pair it has seen, so each pair is reduced only once.
+ */
+public class ReducedProduct<A extends BaseNonRelationalValueDomain<A>, B extends BaseNonRelationalValueDomain<B>>
+        extends BaseNonRelationalValueDomain<ReducedProduct<A, B>> {
+
+    // refines one component using the other, the result must be less or equal than the component
+    public interface Reduction<A extends BaseNonRelationalValueDomain<A>, B extends BaseNonRelationalValueDomain<B>> {
+
+        A reduceFirst(A first, B second) throws SemanticException;
+
+        B reduceSecond(A first, B second) throws SemanticException;
+
+        // true if refineSecond may refine the values of operator
+        default boolean refinesSecond(BinaryOperator operator) {
+            return false;
+        }
+
+        // refines the value of expression in the second component with the values of its operands in both components
+        default B refineSecond(BinaryExpression expression, ReducedProduct<A, B> left, ReducedProduct<A, B> right, B value) throws SemanticException {
+            return value;
+        }
+    }
+
+    private final A first;
+
+    private final B second;
+
+    private final Reduction<A, B> reduction;
+
+    // reduction of the pairs seen so far (keyed by the unreduced pair), null for infinite lattices
+    private final Map<List<Object>, ReducedProduct<A, B>> memo;
+
+    public ReducedProduct(A first, B second, Reduction<A, B> reduction) {
+        this(first, second, reduction, null);
+    }
+
+    private ReducedProduct(A first, B second, Reduction<A, B> reduction, Map<List<Object>, ReducedProduct<A, B>> memo) {
+        this.first = first;
+        this.second = second;
+        this.reduction = reduction;
+        this.memo = memo;
+    }
+
+    // product of two finite lattices, with memoized reductions
+    public static <A extends BaseNonRelationalValueDomain<A>, B extends BaseNonRelationalValueDomain<B>>
+    ReducedProduct<A, B> finite(A first, B second, Reduction<A, B> reduction) {
+        return new ReducedProduct<>(first, second, reduction, new ConcurrentHashMap<>()).ofUnchecked(first, second);
+    }
+
+    public A getFirst() {
+        return first;
+    }
+
+    public B getSecond() {
+        return second;
+    }
+
+    // reduction of the pair (first, second), sharing reduction and memo with this product
+    public ReducedProduct<A, B> of(A first, B second) throws SemanticException {
+        if (memo == null)
+            return reduce(first, second);
+
+        List<Object> key = Arrays.asList(first, second);
+        ReducedProduct<A, B> result = memo.get(key);
+        if (result == null) {
+            result = reduce(first, second);
+            ReducedProduct<A, B> previous = memo.putIfAbsent(key, result);
+            if (previous != null)
+                result = previous;
+        }
+        return result;
+    }
+
+    private ReducedProduct<A, B> reduce(A first, B second) throws SemanticException {
+        while (!first.isBottom() && !second.isBottom()) {
+            A reducedFirst = reduction.reduceFirst(first, second);
+            B reducedSecond = reduction.reduceSecond(reducedFirst, second);
+            if (reducedFirst.equals(first) && reducedSecond.equals(second))
+                return new ReducedProduct<>(first, second, reduction, memo);
+            first = reducedFirst;
+            second = reducedSecond;
+        }
+        // a pair with an empty component is empty
+        return new ReducedProduct<>(first.bottom(), second.bottom(), reduction, memo);
+    }
+
+    // for the methods that cannot throw SemanticException: a failure of the reduction is wrapped
+    private ReducedProduct<A, B> ofUnchecked(A first, B second) {
+        try {
+            return of(first, second);
+        } catch (SemanticException e) {
+            throw new IllegalStateException("Unable to reduce " + first + " and " + second, e);
+        }
+    }
+
+    @Override
+    public ReducedProduct<A, B> eval(ValueExpression expression, ValueEnvironment<ReducedProduct<A, B>> environment, ProgramPoint pp) throws SemanticException {
+        A left = first.eval(expression, firstProjection(expression, environment), pp);
+        B right = second.eval(expression, secondProjection(expression, environment), pp);
+        if (expression instanceof BinaryExpression && reduction.refinesSecond(((BinaryExpression) expression).getOperator())) {
+            BinaryExpression binary = (BinaryExpression) expression;
+            ReducedProduct<A, B> leftOperand = eval((ValueExpression) binary.getLeft(), environment, pp);
+            ReducedProduct<A, B> rightOperand = eval((ValueExpression) binary.getRight(), environment, pp);
+            right = reduction.refineSecond(binary, leftOperand, rightOperand, right);
+        }
+        return of(left, right);
+    }
+
+    @Override
+    public SemanticDomain.Satisfiability satisfies(ValueExpression expression, ValueEnvironment<ReducedProduct<A, B>> environment, ProgramPoint pp) throws SemanticException {
+        SemanticDomain.Satisfiability left = first.satisfies(expression, firstProjection(expression, environment), pp);
+        SemanticDomain.Satisfiability right = second.satisfies(expression, secondProjection(expression, environment), pp);
+        // each component is sound, so the most precise answer wins
+        if (left == SemanticDomain.Satisfiability.NOT_SATISFIED || right == SemanticDomain.Satisfiability.NOT_SATISFIED)
+            return SemanticDomain.Satisfiability.NOT_SATISFIED;
+        if (left == SemanticDomain.Satisfiability.SATISFIED || right == SemanticDomain.Satisfiability.SATISFIED)
+            return SemanticDomain.Satisfiability.SATISFIED;
+        return SemanticDomain.Satisfiability.UNKNOWN;
+    }
+
+    @Override
+    public ValueEnvironment<ReducedProduct<A, B>> assume(ValueEnvironment<ReducedProduct<A, B>> environment, ValueExpression expression, ProgramPoint pp) throws SemanticException {
+        if (environment.isBottom())
+            return environment;
+        ValueEnvironment<A> left = first.assume(firstProjection(expression, environment), expression, pp);
+        ValueEnvironment<B> right = second.assume(secondProjection(expression, environment), expression, pp);
+        if (left.isBottom() || right.isBottom())
+            return environment.bottom();
+
+        Set<Identifier> ids = new HashSet<>(left.getKeys());
+        ids.addAll(right.getKeys());
+        for (Identifier id : ids) {
+            // a component that did not bind id knows nothing about it
+            A l = left.getKeys().contains(id) ? left.getState(id) : first.top();
+            B r = right.getKeys().contains(id) ? right.getState(id) : second.top();
+            ReducedProduct<A, B> value = of(l, r);
+            if (value.isBottom())
+                return environment.bottom();
+            environment = environment.putState(id, value);
+        }
+        return environment;
+    }
+
+    // the environment of the first component, restricted to the identifiers of expression
+    private ValueEnvironment<A> firstProjection(ValueExpression expression, ValueEnvironment<ReducedProduct<A, B>> environment) {
+        ValueEnvironment<A> projection = new ValueEnvironment<>(first);
+        if (environment.isTop())
+            return projection.top();
+        if (environment.isBottom())
+            return projection.bottom();
+        for (Identifier id : identifiers(expression, environment))
+            projection = projection.putState(id, environment.getState(id).first);
+        return projection;
+    }
+
+    // the environment of the second component, restricted to the identifiers of expression
+    private ValueEnvironment<B> secondProjection(ValueExpression expression, ValueEnvironment<ReducedProduct<A, B>> environment) {
+        ValueEnvironment<B> projection = new ValueEnvironment<>(second);
+        if (environment.isTop())
+            return projection.top();
+        if (environment.isBottom())
+            return projection.bottom();
+        for (Identifier id : identifiers(expression, environment))
+            projection = projection.putState(id, environment.getState(id).second);
+        return projection;
+    }
+
+    private static List<Identifier> identifiers(ValueExpression expression, ValueEnvironment<?> environment) {
+        List<Identifier> ids = new ArrayList<>();
+        DenseValueEnvironment.collectIdentifiers(expression, ids);
+        ids.retainAll(environment.getKeys());
+        return ids;
+    }
+
+    @Override
+    protected ReducedProduct<A, B> lubAux(ReducedProduct<A, B> other) throws SemanticException {
+        return of(first.lub(other.first), second.lub(other.second));
+    }
+
+    @Override
+    protected ReducedProduct<A, B> glbAux(ReducedProduct<A, B> other) throws SemanticException {
+        return of(first.glb(other.first), second.glb(other.second));
+    }
+
+    // not reduced: reducing after a widening may prevent the termination of the ascending chain
+    @Override
+    protected ReducedProduct<A, B> wideningAux(ReducedProduct<A, B> other) throws SemanticException {
+        return new ReducedProduct<>(first.widening(other.first), second.widening(other.second), reduction, memo);
+    }
+
+    @Override
+    protected boolean lessOrEqualAux(ReducedProduct<A, B> other) throws SemanticException {
+        return first.lessOrEqual(other.first) && second.lessOrEqual(other.second);
+    }
+
+    @Override
+    public ReducedProduct<A, B> top() {
+        return ofUnchecked(first.top(), second.top());
+    }
+
+    @Override
+    public ReducedProduct<A, B> bottom() {
+        return ofUnchecked(first.bottom(), second.bottom());
+    }
+
+    @Override
+    public boolean isTop() {
+        return first.isTop() && second.isTop();
+    }
+
+    @Override
+    public boolean isBottom() {
+        return first.isBottom() || second.isBottom();
+    }
+
+    // (+, EVEN)
+    @Override
+    public DomainRepresentation representation() {
+        return new StringRepresentation(String.format("(%s, %s)", first.representation(), second.representation()));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReducedProduct<?, ?> that = (ReducedProduct<?, ?>) o;
+        return Objects.equals(first, that.first) && Objects.equals(second, that.second);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(first, second);
+    }
+}
@@ -0,0 +1,233 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/*
+ * Input -> output summaries of the functions of a call graph, for the domains implementing DenseValueDomain
+ * (ExtSignDomain, ParityDomain, ExtSignParityDomain).
+ *
+ * The summary of a function maps the codes of its arguments to the value it returns. The domains are finite, so
+ * the tables are small and a call site becomes a lookup instead of a new analysis of the callee. A missing entry is
+ * computed on the first call and kept. The functions of a strongly connected component are solved together: their
+ * calls inside the component read the current approximation, starting from bottom, and the bodies are analyzed
+ * again until no result grows, which terminates since the domains have finite height.
+ *
+ * precompute fills the tables bottom-up: each component is solved on a fork-join pool as soon as the components
+ * it calls are done, so independent components run in parallel. of(program) gives the summaries of the CFGs of a
+ * program, on the call graph of the calls in their statements, with CFGBody as body when no other is given.
+ */
+public final class Summaries<F, T extends BaseNonRelationalValueDomain<T> & DenseValueDomain<T>> {
+
+    // analysis of the body of a function for the given arguments: the calls it meets go through summaries.call
+    public interface Body<F, T extends BaseNonRelationalValueDomain<T> & DenseValueDomain<T>> {
+        T analyze(F function, List<T> arguments, Summaries<F, T> summaries) throws SemanticException;
+    }
+
+    private final CallGraph<F> graph;
+
+    private final T domain;
+
+    private final Body<F, T> body;
+
+    // components of the call graph, bottom-up, and the component of each function
+    private final List<List<F>> components;
+
+    private final Map<F, Integer> componentOf = new HashMap<>();
+
+    private final Map<F, Map<Key, T>> tables = new HashMap<>();
+
+    // fixpoints running on the current thread, by component
+    private final ThreadLocal<Map<Integer, Fixpoint>> running = ThreadLocal.withInitial(HashMap::new);
+
+    public Summaries(CallGraph<F> graph, T domain, Body<F, T> body) {
+        this.graph = graph;
+        this.domain = domain;
+        this.body = body;
+        this.components = graph.components();
+        for (int c = 0; c < components.size(); c++)
+            for (F function : components.get(c)) {
+                componentOf.put(function, c);
+                tables.put(function, new ConcurrentHashMap<>());
+            }
+    }
+
+    // summaries of the CFGs of program, over the calls found in their statements
+    public static <T extends BaseNonRelationalValueDomain<T> & DenseValueDomain<T>> Summaries<CFG, T> of(Program program, T domain,
+                                                                                                       Body<CFG, T> body) {
+        return new Summaries<>(CallGraph.of(program), domain, body);
+    }
+
+    // summaries of the CFGs of program, evaluated over their statements by CFGBody
+    public static <T extends BaseNonRelationalValueDomain<T> & DenseValueDomain<T>> Summaries<CFG, T> of(Program program, T domain) {
+        CallGraph<CFG> graph = CallGraph.of(program);
+        return new Summaries<>(graph, domain, new CFGBody<>(graph, domain));
+    }
+
+    // value returned by function for the given arguments
+    public T call(F function, List<T> arguments) throws SemanticException {
+        Map<Key, T> table = tables.get(function);
+        if (table == null)
+            throw new SemanticException("No summary for " + function + ": it is not in the call graph");
+        Key key = new Key(arguments);
+        T summary = table.get(key);
+        if (summary != null)
+            return summary;
+
+        // a call inside the component being solved on this thread reads the current approximation
+        int component = componentOf.get(function);
+        Fixpoint fixpoint = running.get().get(component);
+        if (fixpoint != null)
+            return fixpoint.approximation(function, key);
+
+        Map<F, Set<Key>> seeds = new HashMap<>();
+        seeds.computeIfAbsent(function, f -> new LinkedHashSet<>()).add(key);
+        solve(component, seeds);
+        return table.get(key);
+    }
+
+    // computes the summaries of every function for the arguments given by entry, bottom-up on pool
+    public void precompute(ForkJoinPool pool, Function<F, List<T>> entry) throws SemanticException {
+        List<CompletableFuture<Void>> done = new ArrayList<>(components.size());
+        for (int c = 0; c < components.size(); c++) {
+            Map<F, Set<Key>> seeds = new HashMap<>();
+            Set<Integer> callees = new LinkedHashSet<>();
+            for (F function : components.get(c)) {
+                seeds.computeIfAbsent(function, f -> new LinkedHashSet<>()).add(new Key(entry.apply(function)));
+                for (F callee : graph.callees(function))
+                    if (componentOf.get(callee) != c)
+                        callees.add(componentOf.get(callee));
+            }
+
+            // the components are bottom-up, so the ones called by c are already in done
+            CompletableFuture<?>[] before = callees.stream().map(done::get).toArray(CompletableFuture[]::new);
+            int component = c;
+            done.add(CompletableFuture.allOf(before).thenRunAsync(() -> {
+                try {
+                    solve(component, seeds);
+                } catch (SemanticException e) {
+                    throw new CompletionException(e);
+                }
+            }, pool));
+        }
+
+        try {
+            CompletableFuture.allOf(done.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SemanticException)
+                throw (SemanticException) e.getCause();
+            throw e;
+        }
+    }
+
+    // least fixpoint of the bodies of component for the seeds and for the calls between its functions they meet
+    private void solve(int component, Map<F, Set<Key>> seeds) throws SemanticException {
+        Fixpoint fixpoint = new Fixpoint();
+        seeds.forEach((function, keys) -> keys.forEach(key -> fixpoint.add(function, key)));
+
+        running.get().put(component, fixpoint);
+        try {
+            do {
+                fixpoint.added = fixpoint.read = fixpoint.grown = false;
+                // the bodies can add new contexts, which are analyzed at the next round
+                for (Map.Entry<F, Map<Key, T>> entry : fixpoint.snapshot().entrySet())
+                    for (Key key : entry.getValue().keySet()) {
+                        F function = entry.getKey();
+                        T result = body.analyze(function, key.arguments(domain), this);
+                        fixpoint.update(function, key, result);
+                    }
+                // a grown result matters only if some body of the component read an approximation
+            } while (fixpoint.added || fixpoint.read && fixpoint.grown);
+        } finally {
+            running.get().remove(component);
+        }
+
+        // only the results of a completed fixpoint are sound, so they are published at the end
+        fixpoint.approximations.forEach((function, results) -> tables.get(function).putAll(results));
+    }
+
+    private final class Fixpoint {
+
+        private final Map<F, Map<Key, T>> approximations = new LinkedHashMap<>();
+
+        private boolean added, read, grown;
+
+        // a context of the component that has not been analyzed yet
+        void add(F function, Key key) {
+            Map<Key, T> results = approximations.computeIfAbsent(function, f -> new LinkedHashMap<>());
+            if (results.putIfAbsent(key, domain.bottom()) == null)
+                added = true;
+        }
+
+        // the current result of a call inside the component
+        T approximation(F function, Key key) {
+            add(function, key);
+            read = true;
+            return approximations.get(function).get(key);
+        }
+
+        void update(F function, Key key, T result) throws SemanticException {
+            Map<Key, T> results = approximations.get(function);
+            T previous = results.get(key);
+            T lub = previous.lub(result);
+            if (!lub.equals(previous)) {
+                results.put(key, lub);
+                grown = true;
+            }
+        }
+
+        Map<F, Map<Key, T>> snapshot() {
+            Map<F, Map<Key, T>> copy = new LinkedHashMap<>();
+            approximations.forEach((function, results) -> copy.put(function, new LinkedHashMap<>(results)));
+            return copy;
+        }
+    }
+
+    // the codes of the arguments of a call
+    private static final class Key {
+
+        private final byte[] codes;
+
+        private final int hash;
+
+        Key(List<? extends DenseValueDomain<?>> arguments) {
+            codes = new byte[arguments.size()];
+            for (int i = 0; i < codes.length; i++)
+                codes[i] = arguments.get(i).code();
+            hash = Arrays.hashCode(codes);
+        }
+
+        <T extends DenseValueDomain<T>> List<T> arguments(T domain) {
+            List<T> arguments = new ArrayList<>(codes.length);
+            for (byte code : codes)
+                arguments.add(domain.fromCode(code));
+            return arguments;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(codes, ((Key) o).codes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
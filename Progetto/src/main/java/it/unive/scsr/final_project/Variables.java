@@ -0,0 +1,38 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.program.cfg.Parameter;
+import it.unive.lisa.program.cfg.statement.Assignment;
+import it.unive.lisa.program.cfg.statement.Statement;
+import it.unive.lisa.program.cfg.statement.VariableRef;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/*
+ * The local variables of a CFG, found before the analysis: its parameters and the variables it assigns.
+ * Any other variable is never bound in the states of the CFG, so these are all the variables an environment
+ * of the CFG can hold.
+ */
+public final class Variables {
+
+    private Variables() {
+    }
+
+    // names of the variables of cfg: the parameters in order, then the assigned variables sorted by name
+    public static List<String> of(CFG cfg) {
+        Set<String> names = new LinkedHashSet<>();
+        for (Parameter parameter : cfg.getDescriptor().getArgs())
+            names.add(parameter.getName());
+
+        Set<String> assigned = new TreeSet<>();
+        for (Statement node : cfg.getNodes())
+            if (node instanceof Assignment && ((Assignment) node).getLeft() instanceof VariableRef)
+                assigned.add(((VariableRef) ((Assignment) node).getLeft()).getName());
+        names.addAll(assigned);
+        return new ArrayList<>(names);
+    }
+}
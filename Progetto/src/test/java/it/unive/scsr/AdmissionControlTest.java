@@ -0,0 +1,169 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+
+public class AdmissionControlTest {
+
+	// acquires cost on a new thread, counting down admitted once admitted and releasing when done is counted down
+	private static Thread job(AdmissionControl admission, long cost, CountDownLatch admitted, CountDownLatch done) {
+		Thread thread = new Thread(() -> {
+			try {
+				long charge = admission.acquire(cost);
+				admitted.countDown();
+				done.await();
+				admission.release(charge);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		thread.start();
+		return thread;
+	}
+
+	@Test
+	public void testSmallJobsRunTogether() throws InterruptedException {
+		AdmissionControl admission = new AdmissionControl(100);
+		CountDownLatch admitted = new CountDownLatch(3), done = new CountDownLatch(1);
+		for (int i = 0; i < 3; i++)
+			job(admission, 30, admitted, done);
+		assertTrue(admitted.await(5, TimeUnit.SECONDS));
+		assertEquals(90, admission.used());
+		done.countDown();
+	}
+
+	@Test
+	public void testJobWaitsForRoom() throws InterruptedException {
+		AdmissionControl admission = new AdmissionControl(100);
+		CountDownLatch firstAdmitted = new CountDownLatch(1), firstDone = new CountDownLatch(1);
+		job(admission, 60, firstAdmitted, firstDone);
+		assertTrue(firstAdmitted.await(5, TimeUnit.SECONDS));
+
+		CountDownLatch secondAdmitted = new CountDownLatch(1), secondDone = new CountDownLatch(1);
+		Thread second = job(admission, 60, secondAdmitted, secondDone);
+		assertFalse(secondAdmitted.await(200, TimeUnit.MILLISECONDS));
+
+		firstDone.countDown();
+		assertTrue(secondAdmitted.await(5, TimeUnit.SECONDS));
+		assertEquals(60, admission.used());
+		secondDone.countDown();
+		second.join();
+		assertEquals(0, admission.used());
+	}
+
+	@Test
+	public void testHugeJobRunsAlone() throws InterruptedException {
+		AdmissionControl admission = new AdmissionControl(100);
+		CountDownLatch smallAdmitted = new CountDownLatch(1), smallDone = new CountDownLatch(1);
+		job(admission, 10, smallAdmitted, smallDone);
+		assertTrue(smallAdmitted.await(5, TimeUnit.SECONDS));
+
+		// larger than the budget: it waits for the running job and no other job is admitted meanwhile
+		CountDownLatch hugeAdmitted = new CountDownLatch(1), hugeDone = new CountDownLatch(1);
+		Thread huge = job(admission, 1000, hugeAdmitted, hugeDone);
+		assertFalse(hugeAdmitted.await(200, TimeUnit.MILLISECONDS));
+		CountDownLatch laterAdmitted = new CountDownLatch(1), laterDone = new CountDownLatch(1);
+		Thread later = job(admission, 10, laterAdmitted, laterDone);
+		assertFalse(laterAdmitted.await(200, TimeUnit.MILLISECONDS));
+
+		smallDone.countDown();
+		assertTrue(hugeAdmitted.await(5, TimeUnit.SECONDS));
+		assertEquals(100, admission.used());
+		assertFalse(laterAdmitted.await(200, TimeUnit.MILLISECONDS));
+
+		hugeDone.countDown();
+		huge.join();
+		assertTrue(laterAdmitted.await(5, TimeUnit.SECONDS));
+		laterDone.countDown();
+		later.join();
+		assertEquals(0, admission.used());
+	}
+
+	// a small job arriving after a large one that does not fit yet waits behind it
+	@Test
+	public void testJobsAreAdmittedInOrder() throws InterruptedException {
+		AdmissionControl admission = new AdmissionControl(100);
+		CountDownLatch firstAdmitted = new CountDownLatch(1), firstDone = new CountDownLatch(1);
+		job(admission, 60, firstAdmitted, firstDone);
+		assertTrue(firstAdmitted.await(5, TimeUnit.SECONDS));
+
+		CountDownLatch largeAdmitted = new CountDownLatch(1), largeDone = new CountDownLatch(1);
+		Thread large = job(admission, 60, largeAdmitted, largeDone);
+		assertFalse(largeAdmitted.await(200, TimeUnit.MILLISECONDS));
+		CountDownLatch smallAdmitted = new CountDownLatch(1), smallDone = new CountDownLatch(1);
+		Thread small = job(admission, 10, smallAdmitted, smallDone);
+		assertFalse(smallAdmitted.await(200, TimeUnit.MILLISECONDS));
+
+		firstDone.countDown();
+		assertTrue(largeAdmitted.await(5, TimeUnit.SECONDS));
+		assertTrue(smallAdmitted.await(5, TimeUnit.SECONDS));
+		assertEquals(70, admission.used());
+		largeDone.countDown();
+		smallDone.countDown();
+		large.join();
+		small.join();
+		assertEquals(0, admission.used());
+	}
+
+	// a waiting job that is interrupted leaves the queue to the jobs behind it
+	@Test
+	public void testInterruptedJobLeavesTheQueue() throws InterruptedException {
+		AdmissionControl admission = new AdmissionControl(100);
+		CountDownLatch firstAdmitted = new CountDownLatch(1), firstDone = new CountDownLatch(1);
+		job(admission, 60, firstAdmitted, firstDone);
+		assertTrue(firstAdmitted.await(5, TimeUnit.SECONDS));
+
+		CountDownLatch largeAdmitted = new CountDownLatch(1);
+		Thread large = job(admission, 60, largeAdmitted, new CountDownLatch(0));
+		assertFalse(largeAdmitted.await(200, TimeUnit.MILLISECONDS));
+		CountDownLatch smallAdmitted = new CountDownLatch(1), smallDone = new CountDownLatch(1);
+		job(admission, 10, smallAdmitted, smallDone);
+		assertFalse(smallAdmitted.await(200, TimeUnit.MILLISECONDS));
+
+		large.interrupt();
+		large.join();
+		assertTrue(smallAdmitted.await(5, TimeUnit.SECONDS));
+		assertEquals(70, admission.used());
+		assertEquals(1, largeAdmitted.getCount());
+		firstDone.countDown();
+		smallDone.countDown();
+	}
+
+	// the variables of a CFG include its parameters: square(x) assigns nothing, but its states bind this and x
+	@Test
+	public void testEstimateCountsParameters() throws ParsingException {
+		Program program = IMPFrontend.processFile("inputs/final_project/summaries.imp");
+		CFG square = program.getAllCFGs().stream()
+				.filter(cfg -> cfg.getDescriptor().getName().equals("square")).findFirst().get();
+		long statements = square.getNodes().size();
+
+		// one byte for each binding of a type, then one for each entry of the environment
+		assertEquals(2 * statements, AdmissionControl.estimate(square, AnalysisDomain.SIGNS, new StateSize(0, 1, 0)));
+		assertEquals(2 * statements, AdmissionControl.estimate(square, AnalysisDomain.SIGNS, new StateSize(0, 0, 1)));
+		// the dataflow domains have an entry for each assignment
+		assertEquals(0, AdmissionControl.estimate(square, AnalysisDomain.REACHING_DEFINITIONS, new StateSize(0, 0, 1)));
+		assertEquals(statements, AdmissionControl.estimate(square, AnalysisDomain.REACHING_DEFINITIONS, new StateSize(1, 0, 0)));
+	}
+
+	@Test
+	public void testStateSize() {
+		assertEquals("256,48,40", StateSize.parse("256, 48,40").toString());
+		assertEquals(AnalysisDomain.EXT_SIGN.defaultSize().toString(), "256,48,40");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMalformedStateSize() {
+		StateSize.parse("256,48");
+	}
+}
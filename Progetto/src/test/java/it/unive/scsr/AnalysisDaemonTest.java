@@ -0,0 +1,52 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+public class AnalysisDaemonTest {
+
+	@Test
+	public void testRequests() throws IOException {
+		AnalysisDaemon daemon = new AnalysisDaemon(Paths.get(""));
+		StringWriter out = new StringWriter();
+		daemon.serve(new BufferedReader(new StringReader(
+				"ext-sign\tinputs/ext-sign-eval.imp\n"
+						+ "\n"
+						+ "reaching-definitions\tinputs/reaching-definitions.imp\toutputs/daemon/rd\n"
+						+ "intervals\tinputs/ext-sign-eval.imp\n"
+						+ "ext-sign\n"
+						+ "ext-sign\tinputs/ext-sign-eval.imp\t../outside\n"
+						+ "ext-sign\t../inputs/ext-sign-eval.imp\n"
+						+ "ext-sign\tinputs/ext-sign-eval.imp\toutputs/daemon/with space\n"
+						+ "quit\n"
+						+ "ext-sign\tinputs/ext-sign-eval.imp\n")), out);
+
+		String[] lines = out.toString().split("\n");
+		assertEquals(7, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("{\"domain\":\"ext-sign\",\"file\":\"inputs/ext-sign-eval.imp\",\"status\":\"ok\",\"cfgs\":5,"));
+		// the report and the results of each CFG are in the response
+		assertTrue(lines[0], lines[0].contains("\"report\":{ \"warnings\" : [ ], \"files\" : [ \"analysis___untyped_extsign.f0(extsign__this).dot\""));
+		for (int i = 0; i < 5; i++)
+			assertTrue(lines[0], lines[0].contains("\"analysis___untyped_extsign.f" + i + "(extsign__this).dot\":\"digraph"));
+		assertTrue(lines[1], lines[1].contains("\"status\":\"ok\"") && lines[1].contains("\"report\":{"));
+		assertTrue(Files.exists(Paths.get("outputs", "daemon", "rd", "report.json")));
+		assertTrue(lines[2], lines[2].contains("\"status\":\"error\"") && lines[2].contains("Unknown domain intervals"));
+		assertTrue(lines[3], lines[3].startsWith("{\"request\":\"ext-sign\",\"status\":\"error\""));
+		assertTrue(lines[4], lines[4].contains("\"status\":\"error\"") && lines[4].contains("is outside of"));
+		assertTrue(!Files.exists(Paths.get("..", "outside")));
+		// the file is resolved against the root as well
+		assertTrue(lines[5], lines[5].contains("\"status\":\"error\"") && lines[5].contains("is outside of"));
+		// the fields are separated by tabs, so the paths can hold spaces
+		assertTrue(lines[6], lines[6].contains("\"status\":\"ok\""));
+		assertTrue(Files.exists(Paths.get("outputs", "daemon", "with space", "report.json")));
+	}
+}
@@ -1,5 +1,9 @@
 package it.unive.scsr;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
 import it.unive.lisa.AnalysisException;
 import it.unive.lisa.LiSA;
 import it.unive.lisa.LiSAConfiguration;
@@ -10,9 +14,21 @@ import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
 import it.unive.lisa.analysis.types.InferredTypes;
 import it.unive.lisa.imp.IMPFrontend;
 import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.outputs.JsonReport;
+import it.unive.lisa.outputs.compare.JsonReportComparer;
 import it.unive.lisa.program.Program;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 public class AvailableExpressionsTest {
 
     @Test
@@ -34,4 +50,75 @@ public class AvailableExpressionsTest {
         lisa.run(program);
     }
 
+    // the bit vector analysis must give the results of AvailableExpressionsSolution
+    @Test
+    public void testBitVectorAvailableExpressions() throws ParsingException, AnalysisException {
+        Program program = IMPFrontend.processFile("inputs/ae-eval.imp");
+
+        LiSAConfiguration conf = new LiSAConfiguration();
+        conf.setJsonOutput(true);
+        conf.setDumpAnalysis(true);
+        conf.setWorkdir("outputs/ae-bitvector");
+        conf.setAbstractState(
+                new SimpleAbstractState<>(
+                        new MonolithicHeap(),
+                        // the universes of the expressions are created on the functions of the analyzed program
+                        new BitVectorAvailableExpressions(program),
+                        new TypeEnvironment<>(new InferredTypes()))
+        );
+
+        LiSA lisa = new LiSA(conf);
+        lisa.run(program);
+
+        Path expectedPath = Paths.get("expected", "available-expressions");
+        Path actualPath = Paths.get("outputs", "ae-bitvector");
+
+        File expFile = Paths.get(expectedPath.toString(), "report.json").toFile();
+        File actFile = Paths.get(actualPath.toString(), "report.json").toFile();
+        try {
+            JsonReport expected = JsonReport.read(new FileReader(expFile));
+            JsonReport actual = JsonReport.read(new FileReader(actFile));
+            assertTrue("Results are different",
+                    JsonReportComparer.compare(expected, actual, expectedPath.toFile(), actualPath.toFile()));
+        } catch (FileNotFoundException e) {
+            e.printStackTrace(System.err);
+            fail("Unable to find report file");
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            fail("Unable to compare reports");
+        }
+    }
+
+    // x + y and y + x must be reported as a single available expression
+    @Test
+    public void testCommutativeAvailableExpressions() throws ParsingException, AnalysisException, IOException {
+        Program program = IMPFrontend.processFile("inputs/available-expressions-commutative.imp");
+
+        LiSAConfiguration conf = new LiSAConfiguration();
+        conf.setJsonOutput(true);
+        conf.setDumpAnalysis(true);
+        conf.setWorkdir("outputs/available-expressions-commutative");
+        conf.setAbstractState(
+                new SimpleAbstractState<>(
+                        new MonolithicHeap(),
+                        new DefiniteForwardDataflowDomain<>(new AvailableExpressions()),
+                        new TypeEnvironment<>(new InferredTypes()))
+        );
+
+        LiSA lisa = new LiSA(conf);
+        lisa.run(program);
+
+        // the statements are dumped as +(y, x), the available expressions as x + y: only the canonical forms must appear
+        StringBuilder dumps = new StringBuilder();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("outputs", "available-expressions-commutative"), "*.dot")) {
+            for (Path file : files)
+                dumps.append(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        }
+        assertTrue(dumps.toString().contains("x + y"));
+        assertFalse(dumps.toString().contains("y + x"));
+        assertFalse(dumps.toString().contains("y * x"));
+        // (x + 1) + (y + 2) and y + (x + 3) are the same expression
+        assertTrue(dumps.toString().contains("x + y + 3"));
+    }
+
 }
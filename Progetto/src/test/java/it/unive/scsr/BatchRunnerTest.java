@@ -0,0 +1,68 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import it.unive.lisa.LiSA;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.program.Program;
+
+public class BatchRunnerTest {
+
+	@Test
+	public void testSummaryHasOneLinePerFile() throws IOException {
+		StringWriter summary = new StringWriter();
+		int failures = new BatchRunner(AnalysisDomain.EXT_SIGN, 2, null).run(Paths.get("inputs"), summary);
+		assertEquals(0, failures);
+
+		long sources;
+		try (Stream<Path> files = Files.walk(Paths.get("inputs"))) {
+			sources = files.filter(file -> file.toString().endsWith(".imp")).count();
+		}
+		String[] lines = summary.toString().split("\n");
+		assertEquals(sources, lines.length);
+		for (String line : lines)
+			assertTrue(line, line.startsWith("{\"file\":") && line.contains("\"status\":\"ok\""));
+		assertTrue(Arrays.stream(lines).anyMatch(line -> line.contains("\"cfgs\":5")));
+	}
+
+	// an error of the virtual machine stops the run: the files after it are not analyzed
+	@Test
+	public void testOutOfMemoryStopsTheRun() throws IOException {
+		AtomicInteger analyses = new AtomicInteger();
+		AdmissionControl exhausted = new AdmissionControl(Long.MAX_VALUE) {
+			@Override
+			public LiSA run(LiSAConfiguration conf, Program program, long estimate) {
+				analyses.incrementAndGet();
+				throw new OutOfMemoryError("no heap left");
+			}
+		};
+		BatchRunner runner = new BatchRunner(AnalysisDomain.EXT_SIGN, 1, null, exhausted, AnalysisDomain.EXT_SIGN.defaultSize());
+		StringWriter summary = new StringWriter();
+		try {
+			runner.run(Paths.get("inputs"), summary);
+			fail("The run went on after an OutOfMemoryError");
+		} catch (OutOfMemoryError e) {
+			assertEquals("no heap left", e.getMessage());
+		}
+		assertEquals(1, analyses.get());
+		assertEquals("", summary.toString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoThreads() throws IOException {
+		new BatchRunner(AnalysisDomain.EXT_SIGN, 0, null);
+	}
+}
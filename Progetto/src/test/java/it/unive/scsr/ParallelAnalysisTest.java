@@ -0,0 +1,79 @@
+package it.unive.scsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import it.unive.scsr.final_project.ExtSignDomain;
+import org.junit.Test;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.MonolithicHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.outputs.JsonReport;
+import it.unive.lisa.outputs.compare.JsonReportComparer;
+import it.unive.lisa.program.Program;
+
+public class ParallelAnalysisTest {
+
+	private static LiSAConfiguration extSignConfiguration() {
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.setJsonOutput(true);
+		conf.setDumpAnalysis(true);
+		conf.setAbstractState(
+				new SimpleAbstractState<>(
+						new MonolithicHeap(),
+						new ValueEnvironment<>(new ExtSignDomain()),
+						new TypeEnvironment<>(new InferredTypes())));
+		return conf;
+	}
+
+	@Test
+	public void testSplit() throws ParsingException {
+		Program program = IMPFrontend.processFile("inputs/ext-sign-eval.imp");
+		assertEquals(5, ParallelAnalysis.split(program).size());
+	}
+
+	// the merged outputs must be the ones of the sequential analysis
+	@Test
+	public void testSameResultsAsSequential() throws ParsingException, AnalysisException {
+		LiSAConfiguration sequential = extSignConfiguration();
+		sequential.setWorkdir("outputs/ext-sign-sequential");
+		new LiSA(sequential).run(IMPFrontend.processFile("inputs/ext-sign-eval.imp"));
+
+		new ParallelAnalysis(ParallelAnalysisTest::extSignConfiguration, 4)
+				.run(IMPFrontend.processFile("inputs/ext-sign-eval.imp"), "outputs/ext-sign-parallel");
+
+		Path expectedPath = Paths.get("outputs", "ext-sign-sequential");
+		Path actualPath = Paths.get("outputs", "ext-sign-parallel");
+
+		File expFile = Paths.get(expectedPath.toString(), "report.json").toFile();
+		File actFile = Paths.get(actualPath.toString(), "report.json").toFile();
+		try {
+			JsonReport expected = JsonReport.read(new FileReader(expFile));
+			JsonReport actual = JsonReport.read(new FileReader(actFile));
+			assertTrue("Results are different",
+					JsonReportComparer.compare(expected, actual, expectedPath.toFile(), actualPath.toFile()));
+		} catch (FileNotFoundException e) {
+			e.printStackTrace(System.err);
+			fail("Unable to find report file");
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+			fail("Unable to compare reports");
+		}
+	}
+}
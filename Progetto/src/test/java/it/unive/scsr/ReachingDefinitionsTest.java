@@ -1,5 +1,15 @@
 package it.unive.scsr;
 
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import org.junit.Test;
 
 import it.unive.lisa.AnalysisException;
@@ -10,8 +20,11 @@ import it.unive.lisa.analysis.dataflow.PossibleForwardDataflowDomain;
 import it.unive.lisa.analysis.heap.MonolithicHeap;
 import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
 import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.ValueDomain;
 import it.unive.lisa.imp.IMPFrontend;
 import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.outputs.JsonReport;
+import it.unive.lisa.outputs.compare.JsonReportComparer;
 import it.unive.lisa.program.Program;
 
 public class ReachingDefinitionsTest {
@@ -34,4 +47,48 @@ public class ReachingDefinitionsTest {
 		LiSA lisa = new LiSA(conf);
 		lisa.run(program);
 	}
+
+	// runs the analysis of program with the given value domain, writing the results in workdir
+	private static <V extends ValueDomain<V>> void analyze(Program program, V domain, Path workdir) throws AnalysisException {
+		LiSAConfiguration conf = new LiSAConfiguration();
+		conf.setJsonOutput(true);
+		conf.setDumpAnalysis(true);
+		conf.setWorkdir(workdir.toString());
+		conf.setAbstractState(
+				new SimpleAbstractState<>(
+						new MonolithicHeap(), 
+						domain,
+						new TypeEnvironment<>(new InferredTypes()))
+				);
+		
+		LiSA lisa = new LiSA(conf);
+		lisa.run(program);
+	}
+
+	@Test
+	public void testBitVectorReachingDefinitions() throws ParsingException, AnalysisException {
+		Path setPath = Paths.get("outputs", "reaching-definitions-bitvector", "set");
+		Path bitVectorPath = Paths.get("outputs", "reaching-definitions-bitvector", "bitvector");
+
+		analyze(IMPFrontend.processFile("inputs/reaching-definitions.imp"),
+				new PossibleForwardDataflowDomain<>(new ReachingDefinitions()), setPath);
+		// the sites of the bit vectors are numbered on the CFGs of the analyzed program
+		Program program = IMPFrontend.processFile("inputs/reaching-definitions.imp");
+		analyze(program, new BitVectorReachingDefinitions(program), bitVectorPath);
+
+		File setFile = Paths.get(setPath.toString(), "report.json").toFile();
+		File bitVectorFile = Paths.get(bitVectorPath.toString(), "report.json").toFile();
+		try {
+			JsonReport set = JsonReport.read(new FileReader(setFile));
+			JsonReport bitVector = JsonReport.read(new FileReader(bitVectorFile));
+			assertTrue("Results are different",
+					JsonReportComparer.compare(set, bitVector, setPath.toFile(), bitVectorPath.toFile()));
+		} catch (FileNotFoundException e) {
+			e.printStackTrace(System.err);
+			fail("Unable to find report file");
+		} catch (IOException e) {
+			e.printStackTrace(System.err);
+			fail("Unable to compare reports");
+		}
+	}
 }
@@ -0,0 +1,83 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.BaseNonRelationalValueDomain;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingDiv;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMod;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingSub;
+
+import java.util.Random;
+import java.util.function.LongFunction;
+
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Soundness of the arithmetic of the numerical domains, shared by their tests: each operator applied to every pair
+ * of values of the arguments is in the abstract result of the operator on the abstractions of the arguments.
+ */
+final class ArithmeticSoundness {
+
+    static final BinaryOperator[] OPERATORS = {NumericNonOverflowingAdd.INSTANCE, NumericNonOverflowingSub.INSTANCE,
+            NumericNonOverflowingMul.INSTANCE, NumericNonOverflowingDiv.INSTANCE, NumericNonOverflowingMod.INSTANCE};
+
+    // the evalBinaryExpression of a domain, which is visible only from its package
+    interface Evaluation<T> {
+        T eval(BinaryOperator operator, T left, T right) throws SemanticException;
+    }
+
+    private ArithmeticSoundness() {
+    }
+
+    static <T extends BaseNonRelationalValueDomain<T>> void assertSound(LongFunction<T> constant, Evaluation<T> evaluation,
+                                                                       long[] left, long[] right) throws SemanticException {
+        T leftValue = abstraction(constant, left);
+        T rightValue = abstraction(constant, right);
+        for (BinaryOperator op : OPERATORS) {
+            T result = evaluation.eval(op, leftValue, rightValue);
+            for (long l : left)
+                for (long r : right) {
+                    if (r == 0 && (op == NumericNonOverflowingDiv.INSTANCE || op == NumericNonOverflowingMod.INSTANCE))
+                        continue;
+                    long concrete = op == NumericNonOverflowingAdd.INSTANCE ? l + r
+                            : op == NumericNonOverflowingSub.INSTANCE ? l - r
+                            : op == NumericNonOverflowingMul.INSTANCE ? l * r
+                            : op == NumericNonOverflowingDiv.INSTANCE ? l / r : l % r;
+                    assertTrue(op + " " + l + " " + r + " not in " + result.representation(),
+                            constant.apply(concrete).lessOrEqual(result));
+                }
+        }
+    }
+
+    // assertSound on 2000 pairs of random sets of one to three samples
+    static <T extends BaseNonRelationalValueDomain<T>> void assertSoundOnSamples(LongFunction<T> constant, Evaluation<T> evaluation,
+                                                                                long[] samples) throws SemanticException {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++)
+            assertSound(constant, evaluation, sample(random, samples), sample(random, samples));
+    }
+
+    // the values from low to high
+    static long[] range(long low, long high) {
+        long[] values = new long[(int) (high - low + 1)];
+        for (int i = 0; i < values.length; i++)
+            values[i] = low + i;
+        return values;
+    }
+
+    private static <T extends BaseNonRelationalValueDomain<T>> T abstraction(LongFunction<T> constant, long[] values) throws SemanticException {
+        T result = constant.apply(0).bottom();
+        for (long v : values)
+            result = result.lub(constant.apply(v));
+        return result;
+    }
+
+    private static long[] sample(Random random, long[] samples) {
+        long[] values = new long[1 + random.nextInt(3)];
+        for (int i = 0; i < values.length; i++)
+            values[i] = samples[random.nextInt(samples.length)];
+        return values;
+    }
+}
@@ -0,0 +1,58 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CongruenceDomainTest {
+
+    private static final long[] SAMPLES = {-12, -9, -4, -3, -1, 0, 1, 2, 3, 4, 5, 8, 9, 12, 20, 36, 1000};
+
+    private static CongruenceDomain abstraction(int... values) throws SemanticException {
+        CongruenceDomain result = CongruenceDomain.BOTTOM;
+        for (int v : values)
+            result = result.lub(CongruenceDomain.fromInt(v));
+        return result;
+    }
+
+    @Test
+    public void testSoundArithmetic() throws SemanticException {
+        ArithmeticSoundness.assertSoundOnSamples(CongruenceDomain::fromLong,
+                (op, left, right) -> new CongruenceDomain().evalBinaryExpression(op, left, right, null), SAMPLES);
+    }
+
+    @Test
+    public void testLatticeOperations() throws SemanticException {
+        CongruenceDomain multiplesOfFour = abstraction(4, 12, 20);
+        assertSame(CongruenceDomain.of(8, 4), abstraction(4, 12, 20, 28));
+        assertEquals(CongruenceDomain.of(4, 0), multiplesOfFour.lub(CongruenceDomain.fromInt(0)));
+        assertTrue(multiplesOfFour.lessOrEqual(CongruenceDomain.EVEN));
+        assertSame(CongruenceDomain.EVEN, abstraction(2, 4));
+        assertSame(CongruenceDomain.TOP, CongruenceDomain.EVEN.lub(CongruenceDomain.ODD));
+
+        // 3 Z + 1 and 4 Z + 2 meet in 12 Z + 10
+        assertEquals(CongruenceDomain.of(12, 10), CongruenceDomain.of(3, 1).glb(CongruenceDomain.of(4, 2)));
+        assertSame(CongruenceDomain.BOTTOM, CongruenceDomain.EVEN.glb(CongruenceDomain.of(4, 1)));
+        assertSame(CongruenceDomain.fromInt(10), CongruenceDomain.of(3, 1).glb(CongruenceDomain.fromInt(10)));
+
+        // i = 0; i = i + 4 stays a multiple of 4
+        CongruenceDomain i = CongruenceDomain.ZERO;
+        for (int step = 0; step < 5; step++)
+            i = i.widening(i.add(CongruenceDomain.fromInt(4)));
+        assertEquals(CongruenceDomain.of(4, 0), i);
+    }
+
+    @Test
+    public void testReductionWithSigns() throws SemanticException {
+        ReducedProduct<ExtSignDomain, CongruenceDomain> product =
+                new ReducedProduct<>(ExtSignDomain.TOP, CongruenceDomain.TOP, CongruenceDomain.REDUCTION);
+
+        assertSame(CongruenceDomain.ZERO, product.of(ExtSignDomain.ZERO, CongruenceDomain.TOP).getSecond());
+        assertSame(ExtSignDomain.POS, product.of(ExtSignDomain.POS_OR_ZERO, CongruenceDomain.of(4, 1)).getFirst());
+        assertSame(ExtSignDomain.POS_OR_ZERO, product.of(ExtSignDomain.POS_OR_ZERO, CongruenceDomain.of(4, 0)).getFirst());
+        assertTrue(product.of(ExtSignDomain.ZERO, CongruenceDomain.ODD).isBottom());
+    }
+}
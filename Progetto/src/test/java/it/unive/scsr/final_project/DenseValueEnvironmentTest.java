@@ -0,0 +1,93 @@
+package it.unive.scsr.final_project;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.MonolithicHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.analysis.value.ValueDomain;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.outputs.JsonReport;
+import it.unive.lisa.outputs.compare.JsonReportComparer;
+import it.unive.lisa.program.Program;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class DenseValueEnvironmentTest {
+
+    private static final String INPUT = "inputs/final_project/extSignParityDomain.imp";
+
+    // runs the analysis of program with the given value domain, writing the results in workdir
+    private static <V extends ValueDomain<V>> void analyze(Program program, V values, Path workdir) throws AnalysisException {
+        LiSAConfiguration config = new LiSAConfiguration();
+        config.setDumpAnalysis(true);
+        config.setJsonOutput(true);
+        config.setWorkdir(workdir.toString());
+        config.setAbstractState(
+                new SimpleAbstractState<>(
+                        new MonolithicHeap(),
+                        values,
+                        new TypeEnvironment<>(new InferredTypes()))
+        );
+
+        LiSA lisa = new LiSA(config);
+        lisa.run(program);
+    }
+
+    // the results of the two runs must be the same
+    private static void compare(Path mapPath, Path densePath) {
+        File mapFile = Paths.get(mapPath.toString(), "report.json").toFile();
+        File denseFile = Paths.get(densePath.toString(), "report.json").toFile();
+        try {
+            JsonReport map = JsonReport.read(new FileReader(mapFile));
+            JsonReport dense = JsonReport.read(new FileReader(denseFile));
+            assertTrue("Results are different",
+                    JsonReportComparer.compare(map, dense, mapPath.toFile(), densePath.toFile()));
+        } catch (FileNotFoundException e) {
+            e.printStackTrace(System.err);
+            fail("Unable to find report file");
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            fail("Unable to compare reports");
+        }
+    }
+
+    @Test
+    public void testDenseExtSign() throws ParsingException, AnalysisException {
+        Path mapPath = Paths.get("outputs", "final_project", "denseExtSign", "map");
+        Path densePath = Paths.get("outputs", "final_project", "denseExtSign", "dense");
+        ExtSignDomain domain = new ExtSignDomain();
+
+        // the slots of the dense environment are numbered on the CFGs of the analyzed program
+        Program program = IMPFrontend.processFile(INPUT);
+        analyze(program, new DenseValueEnvironment<>(domain, program), densePath);
+        analyze(IMPFrontend.processFile(INPUT), new ValueEnvironment<>(domain), mapPath);
+        compare(mapPath, densePath);
+    }
+
+    @Test
+    public void testDenseExtSignParity() throws ParsingException, AnalysisException {
+        Path mapPath = Paths.get("outputs", "final_project", "denseExtSignParity", "map");
+        Path densePath = Paths.get("outputs", "final_project", "denseExtSignParity", "dense");
+        ExtSignParityDomain domain = new ExtSignParityDomain();
+
+        // the slots of the dense environment are numbered on the CFGs of the analyzed program
+        Program program = IMPFrontend.processFile(INPUT);
+        analyze(program, new DenseValueEnvironment<>(domain, program), densePath);
+        analyze(IMPFrontend.processFile(INPUT), new ValueEnvironment<>(domain), mapPath);
+        compare(mapPath, densePath);
+    }
+}
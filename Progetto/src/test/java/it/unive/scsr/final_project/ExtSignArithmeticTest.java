@@ -0,0 +1,157 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticDomain;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.UnaryExpression;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGe;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonLt;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonNe;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingDiv;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMod;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingSub;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import it.unive.lisa.type.common.Int32;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ExtSignArithmeticTest {
+
+    // the tables must give, for every pair of signs, the same result of the methods of ExtSignDomain.Sign
+    @Test
+    public void testTablesMatchSignSemantics() {
+        ExtSignDomain domain = new ExtSignDomain();
+        for (ExtSignDomain.Sign l : ExtSignDomain.Sign.values()) {
+            ExtSignDomain left = ExtSignDomain.of(l);
+            assertEquals("-" + l, l.minus(), domain.evalUnaryExpression(NumericNegation.INSTANCE, left, null).sign);
+
+            for (ExtSignDomain.Sign r : ExtSignDomain.Sign.values()) {
+                ExtSignDomain right = ExtSignDomain.of(r);
+                String pair = "(" + l + ", " + r + ")";
+                assertEquals("add" + pair, l.add(r), domain.evalBinaryExpression(NumericNonOverflowingAdd.INSTANCE, left, right, null).sign);
+                assertEquals("sub" + pair, l.add(r.minus()), domain.evalBinaryExpression(NumericNonOverflowingSub.INSTANCE, left, right, null).sign);
+                assertEquals("mul" + pair, l.mul(r), domain.evalBinaryExpression(NumericNonOverflowingMul.INSTANCE, left, right, null).sign);
+                assertEquals("div" + pair, l.div(r), domain.evalBinaryExpression(NumericNonOverflowingDiv.INSTANCE, left, right, null).sign);
+                assertEquals("mod" + pair, l.mod(r), domain.evalBinaryExpression(NumericNonOverflowingMod.INSTANCE, left, right, null).sign);
+            }
+        }
+    }
+
+    // results are taken from the tables, so no new instance is created
+    @Test
+    public void testResultsAreConstants() {
+        ExtSignDomain domain = new ExtSignDomain();
+        assertSame(ExtSignDomain.POS, domain.evalBinaryExpression(NumericNonOverflowingMul.INSTANCE, ExtSignDomain.NEG, ExtSignDomain.NEG, null));
+        assertSame(ExtSignDomain.NEG_OR_ZERO, domain.evalUnaryExpression(NumericNegation.INSTANCE, ExtSignDomain.POS_OR_ZERO, null));
+    }
+
+    // the comparison tables must give, for every operator and pair of signs, the result of satisfiesReference
+    @Test
+    public void testSatisfiabilityTables() {
+        ExtSignDomain domain = new ExtSignDomain();
+        for (BinaryOperator op : Operators.COMPARISONS)
+            for (ExtSignDomain.Sign l : ExtSignDomain.Sign.values())
+                for (ExtSignDomain.Sign r : ExtSignDomain.Sign.values()) {
+                    ExtSignDomain left = ExtSignDomain.of(l);
+                    ExtSignDomain right = ExtSignDomain.of(r);
+                    assertSame(op + "(" + l + ", " + r + ")", ExtSignDomain.satisfiesReference(op, left, right),
+                            domain.satisfiesBinaryExpression(op, left, right, null));
+                }
+        assertSame(SemanticDomain.Satisfiability.UNKNOWN,
+                domain.satisfiesBinaryExpression(NumericNonOverflowingAdd.INSTANCE, ExtSignDomain.POS, ExtSignDomain.POS, null));
+    }
+
+    // if x op c holds, the refinement of x by the sign of c must contain x
+    @Test
+    public void testRefinementIsSound() throws SemanticException {
+        for (int op = Operators.GT; op <= Operators.LE; op++)
+            for (int x = -3; x <= 3; x++)
+                for (int c = -3; c <= 3; c++) {
+                    boolean holds = op == Operators.GT ? x > c : op == Operators.GE ? x >= c : op == Operators.LT ? x < c : x <= c;
+                    if (!holds)
+                        continue;
+                    ExtSignDomain.Sign sign = ExtSignDomain.fromInt(c).sign;
+                    String pair = x + " " + Operators.COMPARISONS[op] + " " + c;
+                    assertTrue(pair, ExtSignDomain.fromInt(x).lessOrEqual(ExtSignDomain.REFINEMENT[op][sign.ordinal()]));
+                    // and c op' x, with op' flipped, refines c
+                    int flipped = Operators.FLIPPED[op];
+                    assertTrue(pair, ExtSignDomain.fromInt(c).lessOrEqual(ExtSignDomain.REFINEMENT[flipped][ExtSignDomain.fromInt(x).sign.ordinal()]));
+                }
+    }
+
+    private static boolean in(int value, ExtSignDomain.Sign sign) {
+        return (ExtSignDomain.fromInt(value).sign.mask & ~sign.mask) == 0;
+    }
+
+    // if x op y is in t, the inverses must give back x from (t, y) and y from (t, x)
+    @Test
+    public void testInverseIsSound() {
+        BinaryOperator[] operators = {NumericNonOverflowingAdd.INSTANCE, NumericNonOverflowingSub.INSTANCE, NumericNonOverflowingMul.INSTANCE};
+        for (int x = -3; x <= 3; x++) {
+            for (ExtSignDomain.Sign t : ExtSignDomain.Sign.values())
+                if (in(-x, t))
+                    assertTrue("-" + x, in(x, ExtSignDomain.INVERSE.operand(NumericNegation.INSTANCE, ExtSignDomain.of(t)).sign));
+
+            for (int y = -3; y <= 3; y++)
+                for (BinaryOperator op : operators) {
+                    int z = op == NumericNonOverflowingAdd.INSTANCE ? x + y : op == NumericNonOverflowingSub.INSTANCE ? x - y : x * y;
+                    for (ExtSignDomain.Sign t : ExtSignDomain.Sign.values())
+                        for (ExtSignDomain.Sign o : ExtSignDomain.Sign.values()) {
+                            if (!in(z, t))
+                                continue;
+                            String expression = x + " " + op + " " + y + " in " + t + " with " + o;
+                            if (in(y, o))
+                                assertTrue(expression, in(x, ExtSignDomain.INVERSE.left(op, ExtSignDomain.of(t), ExtSignDomain.of(o)).sign));
+                            if (in(x, o))
+                                assertTrue(expression, in(y, ExtSignDomain.INVERSE.right(op, ExtSignDomain.of(t), ExtSignDomain.of(o)).sign));
+                        }
+                }
+        }
+    }
+
+    @Test
+    public void testAssumeRefinesThroughArithmetic() throws SemanticException {
+        ExtSignDomain domain = new ExtSignDomain();
+        Variable x = new Variable(Int32.INSTANCE, "x", SyntheticLocation.INSTANCE);
+        Variable y = new Variable(Int32.INSTANCE, "y", SyntheticLocation.INSTANCE);
+        Constant zero = new Constant(Int32.INSTANCE, 0, SyntheticLocation.INSTANCE);
+        ValueEnvironment<ExtSignDomain> environment = new ValueEnvironment<>(domain).putState(y, ExtSignDomain.POS);
+
+        // x is not bound: x * y < 0 with y positive makes it negative
+        BinaryExpression product = new BinaryExpression(Int32.INSTANCE, x, y, NumericNonOverflowingMul.INSTANCE, SyntheticLocation.INSTANCE);
+        ValueEnvironment<ExtSignDomain> negative = domain.assume(environment,
+                new BinaryExpression(Int32.INSTANCE, product, zero, ComparisonLt.INSTANCE, SyntheticLocation.INSTANCE), null);
+        assertSame(ExtSignDomain.NEG, negative.getState(x));
+        assertSame(ExtSignDomain.POS, negative.getState(y));
+
+        // -x > 0
+        UnaryExpression minus = new UnaryExpression(Int32.INSTANCE, x, NumericNegation.INSTANCE, SyntheticLocation.INSTANCE);
+        assertSame(ExtSignDomain.NEG, domain.assume(environment,
+                new BinaryExpression(Int32.INSTANCE, minus, zero, ComparisonGt.INSTANCE, SyntheticLocation.INSTANCE), null).getState(x));
+
+        // x >= y with x in 0- and y in 0+ refines both to 0
+        ValueEnvironment<ExtSignDomain> bounds = environment.putState(x, ExtSignDomain.NEG_OR_ZERO).putState(y, ExtSignDomain.POS_OR_ZERO);
+        ValueEnvironment<ExtSignDomain> equal = domain.assume(bounds,
+                new BinaryExpression(Int32.INSTANCE, x, y, ComparisonGe.INSTANCE, SyntheticLocation.INSTANCE), null);
+        assertSame(ExtSignDomain.ZERO, equal.getState(x));
+        assertSame(ExtSignDomain.ZERO, equal.getState(y));
+
+        // the refined value is met with the previous one, so != keeps it and a contradiction gives bottom
+        assertSame(bounds, domain.assume(bounds,
+                new BinaryExpression(Int32.INSTANCE, x, zero, ComparisonNe.INSTANCE, SyntheticLocation.INSTANCE), null));
+        assertTrue(domain.assume(negative,
+                new BinaryExpression(Int32.INSTANCE, x, zero, ComparisonEq.INSTANCE, SyntheticLocation.INSTANCE), null).isBottom());
+    }
+}
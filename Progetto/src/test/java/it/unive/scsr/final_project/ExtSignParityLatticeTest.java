@@ -0,0 +1,106 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.symbolic.value.operator.binary.BinaryOperator;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonEq;
+import it.unive.lisa.symbolic.value.operator.binary.ComparisonGt;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingAdd;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.type.common.Int32;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ExtSignParityLatticeTest {
+
+    // the values that can be produced by the domain, i.e., the ones that are not changed by the reduction
+    private static final ExtSignParityDomain[] REDUCED = {
+            ExtSignParityDomain.BOTTOM_BOTTOM, ExtSignParityDomain.ZERO_EVEN,
+            ExtSignParityDomain.TOP_TOP, ExtSignParityDomain.TOP_EVEN, ExtSignParityDomain.TOP_ODD,
+            ExtSignParityDomain.POS_TOP, ExtSignParityDomain.POS_EVEN, ExtSignParityDomain.POS_ODD,
+            ExtSignParityDomain.NEG_TOP, ExtSignParityDomain.NEG_EVEN, ExtSignParityDomain.NEG_ODD,
+            ExtSignParityDomain.POS_OR_ZERO_TOP, ExtSignParityDomain.POS_OR_ZERO_EVEN,
+            ExtSignParityDomain.NEG_OR_ZERO_TOP, ExtSignParityDomain.NEG_OR_ZERO_EVEN
+    };
+
+    private static final ParityDomain[] PARITIES = {ParityDomain.TOP, ParityDomain.BOTTOM, ParityDomain.ODD, ParityDomain.EVEN};
+
+    @Test
+    public void testCanonicalCombinations() {
+        assertSame(ExtSignParityDomain.POS_EVEN, ExtSignParityDomain.of(ExtSignDomain.POS, ParityDomain.EVEN));
+        assertSame(ExtSignParityDomain.ZERO_ODD, ExtSignParityDomain.of(ExtSignDomain.ZERO, ParityDomain.ODD));
+        assertSame(ExtSignParityDomain.TOP_TOP, ExtSignParityDomain.of(ExtSignDomain.TOP, ParityDomain.TOP));
+        assertSame(ExtSignParityDomain.ZERO_EVEN, ExtSignParityDomain.fromInt(0));
+        assertSame(ExtSignParityDomain.POS_ODD, ExtSignParityDomain.fromInt(7));
+        assertSame(ExtSignParityDomain.NEG_EVEN, ExtSignParityDomain.fromInt(-4));
+    }
+
+    @Test
+    public void testLatticeOperations() throws SemanticException {
+        for (ExtSignParityDomain a : REDUCED)
+            for (ExtSignParityDomain b : REDUCED) {
+                String pair = a.representation() + ", " + b.representation();
+                ExtSignParityDomain lub = a.lub(b);
+                ExtSignParityDomain glb = a.glb(b);
+                assertTrue("lub is not an upper bound of " + pair, a.lessOrEqual(lub) && b.lessOrEqual(lub));
+                assertTrue("glb is not a lower bound of " + pair, glb.lessOrEqual(a) && glb.lessOrEqual(b));
+                assertEquals("<= disagrees with lub on " + pair, a.lessOrEqual(b), lub.equals(b));
+            }
+    }
+
+    @Test
+    public void testReduction() throws SemanticException {
+        // (0+, odd) contains no zero, (0, ?) contains only an even number
+        assertSame(ExtSignParityDomain.POS_ODD, ExtSignParityDomain.POS_OR_ZERO_TOP.glb(ExtSignParityDomain.TOP_ODD));
+        assertSame(ExtSignParityDomain.ZERO_EVEN, ExtSignParityDomain.POS_OR_ZERO_TOP.glb(ExtSignParityDomain.NEG_OR_ZERO_TOP));
+        assertSame(ExtSignParityDomain.BOTTOM_BOTTOM, ExtSignParityDomain.POS_EVEN.glb(ExtSignParityDomain.POS_ODD));
+        assertSame(ExtSignParityDomain.POS_OR_ZERO_EVEN, ExtSignParityDomain.ZERO_EVEN.lub(ExtSignParityDomain.POS_EVEN));
+    }
+
+    // the comparison tables must give, for every operator and pair, the result of satisfiesReference
+    @Test
+    public void testSatisfiabilityTables() {
+        ExtSignParityDomain domain = new ExtSignParityDomain();
+        for (BinaryOperator op : Operators.COMPARISONS)
+            for (ExtSignDomain.Sign ls : ExtSignDomain.Sign.values())
+                for (ParityDomain lp : PARITIES)
+                    for (ExtSignDomain.Sign rs : ExtSignDomain.Sign.values())
+                        for (ParityDomain rp : PARITIES) {
+                            ExtSignParityDomain left = ExtSignParityDomain.of(ExtSignDomain.of(ls), lp);
+                            ExtSignParityDomain right = ExtSignParityDomain.of(ExtSignDomain.of(rs), rp);
+                            assertSame(op + "(" + left.representation() + ", " + right.representation() + ")",
+                                    ExtSignParityDomain.satisfiesReference(op, left, right),
+                                    domain.satisfiesBinaryExpression(op, left, right, null));
+                        }
+    }
+
+    // both the sign and the parity of the operands are refined, then reduced together
+    @Test
+    public void testAssumeRefinesThroughArithmetic() throws SemanticException {
+        ExtSignParityDomain domain = new ExtSignParityDomain();
+        Variable x = new Variable(Int32.INSTANCE, "x", SyntheticLocation.INSTANCE);
+        Variable y = new Variable(Int32.INSTANCE, "y", SyntheticLocation.INSTANCE);
+        Constant zero = new Constant(Int32.INSTANCE, 0, SyntheticLocation.INSTANCE);
+        Constant one = new Constant(Int32.INSTANCE, 1, SyntheticLocation.INSTANCE);
+
+        // x + 1 == y with y positive even: x is odd
+        ValueEnvironment<ExtSignParityDomain> environment = new ValueEnvironment<>(domain).putState(y, ExtSignParityDomain.POS_EVEN);
+        BinaryExpression successor = new BinaryExpression(Int32.INSTANCE, x, one, NumericNonOverflowingAdd.INSTANCE, SyntheticLocation.INSTANCE);
+        environment = domain.assume(environment, new BinaryExpression(Int32.INSTANCE, successor, y, ComparisonEq.INSTANCE, SyntheticLocation.INSTANCE), null);
+        assertSame(ExtSignParityDomain.TOP_ODD, environment.getState(x));
+
+        // x * y > 0 with y negative: x is negative, and still odd
+        environment = environment.putState(y, ExtSignParityDomain.NEG_ODD);
+        BinaryExpression product = new BinaryExpression(Int32.INSTANCE, x, y, NumericNonOverflowingMul.INSTANCE, SyntheticLocation.INSTANCE);
+        environment = domain.assume(environment, new BinaryExpression(Int32.INSTANCE, product, zero, ComparisonGt.INSTANCE, SyntheticLocation.INSTANCE), null);
+        assertSame(ExtSignParityDomain.NEG_ODD, environment.getState(x));
+        assertSame(ExtSignParityDomain.NEG_ODD, environment.getState(y));
+    }
+}
@@ -0,0 +1,103 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FiniteLatticeTest {
+
+    @Test
+    public void testLatticeLaws() {
+        int n = ExtSignLattice.SIZE;
+        assertEquals("BOTTOM", ExtSignLattice.name(ExtSignLattice.bottom()));
+        assertEquals("TOP", ExtSignLattice.name(ExtSignLattice.top()));
+        for (int a = 0; a < n; a++)
+            for (int b = 0; b < n; b++) {
+                int lub = ExtSignLattice.lub(a, b);
+                int glb = ExtSignLattice.glb(a, b);
+                assertEquals(lub, ExtSignLattice.lub(b, a));
+                assertTrue(ExtSignLattice.lessOrEqual(a, lub) && ExtSignLattice.lessOrEqual(b, lub));
+                assertTrue(ExtSignLattice.lessOrEqual(glb, a) && ExtSignLattice.lessOrEqual(glb, b));
+                assertEquals(ExtSignLattice.lessOrEqual(a, b), lub == b);
+            }
+    }
+
+    // the generated tables are the union and the intersection of the masks of the signs, and the inclusion of the masks
+    @Test
+    public void testSameAsSignMasks() throws SemanticException {
+        assertEquals(ExtSignDomain.Sign.values().length, ExtSignLattice.SIZE);
+        for (ExtSignDomain.Sign l : ExtSignDomain.Sign.values())
+            for (ExtSignDomain.Sign r : ExtSignDomain.Sign.values()) {
+                ExtSignDomain left = ExtSignDomain.of(l);
+                ExtSignDomain right = ExtSignDomain.of(r);
+                assertSame(ExtSignDomain.ofMask(l.mask | r.mask), left.lub(right));
+                assertSame(ExtSignDomain.ofMask(l.mask & r.mask), left.glb(right));
+                assertEquals((l.mask & ~r.mask) == 0, left.lessOrEqual(right));
+                assertEquals(ExtSignDomain.ofMask(l.mask | r.mask).code(), left.lubCodes(left.code(), right.code()));
+            }
+    }
+
+    @Test
+    public void testAbstractionOfConstants() {
+        assertSame(ExtSignDomain.NEG, ExtSignDomain.fromInt(-3));
+        assertSame(ExtSignDomain.ZERO, ExtSignDomain.fromInt(0));
+        assertSame(ExtSignDomain.POS, ExtSignDomain.fromInt(Integer.MAX_VALUE));
+        assertSame(ParityDomain.ODD, ParityDomain.fromInt(-3));
+        assertSame(ParityDomain.EVEN, ParityDomain.fromInt(0));
+        assertSame(ParityDomain.EVEN, ParityDomain.fromInt(-4));
+    }
+
+    @Test
+    public void testParityDomain() throws SemanticException {
+        assertSame(ParityDomain.TOP, ParityDomain.EVEN.lub(ParityDomain.ODD));
+        assertSame(ParityDomain.BOTTOM, ParityDomain.EVEN.glb(ParityDomain.ODD));
+        assertTrue(ParityDomain.BOTTOM.lessOrEqual(ParityDomain.ODD));
+        assertTrue(!ParityDomain.EVEN.lessOrEqual(ParityDomain.ODD));
+    }
+
+    @Test
+    public void testHeight() {
+        assertEquals(3, ExtSignLattice.HEIGHT);
+        assertEquals(2, ParityLattice.HEIGHT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingLub() {
+        // a and b have two minimal upper bounds
+        new FiniteLattice(new String[]{"bottom", "a", "b", "c", "d", "top"},
+                new String[][]{{"bottom", "a"}, {"bottom", "b"}, {"a", "c"}, {"a", "d"}, {"b", "c"}, {"b", "d"}, {"c", "top"}, {"d", "top"}});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCycle() {
+        new FiniteLattice(new String[]{"a", "b"}, new String[][]{{"a", "b"}, {"b", "a"}});
+    }
+
+    // a constant cannot be abstracted to the bottom
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstantAbstractedToBottom() {
+        LatticeGenerator.Spec spec = LatticeGenerator.parse(Arrays.asList(
+                "package p", "class L", "elements BOTTOM TOP", "BOTTOM < TOP", "BOTTOM if == 0"));
+        LatticeGenerator.generate(spec, "L.lattice");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedAbstraction() {
+        LatticeGenerator.parse(Arrays.asList("package p", "class L", "elements BOTTOM TOP", "TOP if % 0 == 1"));
+    }
+
+    @Test
+    public void testGeneratedSource() {
+        LatticeGenerator.Spec spec = LatticeGenerator.parse(Arrays.asList(
+                "# two values", "package p", "class L", "elements BOTTOM A TOP", "BOTTOM < A", "A < TOP", "A if >= 10"));
+        String source = LatticeGenerator.generate(spec, "L.lattice");
+        assertTrue(source.contains("final class L {"));
+        assertTrue(source.contains("static final int HEIGHT = 2;"));
+        assertTrue(source.contains("if (c >= 10)\n            return A;"));
+    }
+}
@@ -0,0 +1,133 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.AnalysisException;
+import it.unive.lisa.LiSA;
+import it.unive.lisa.LiSAConfiguration;
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.SimpleAbstractState;
+import it.unive.lisa.analysis.heap.MonolithicHeap;
+import it.unive.lisa.analysis.nonrelational.value.TypeEnvironment;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.analysis.types.InferredTypes;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IntervalDomainTest {
+
+    private static final int[] BOUNDS = {-20, -7, -3, -1, 0, 1, 2, 5, 8, 13};
+
+    private final IntervalDomain domain = new IntervalDomain();
+
+    // op on every pair of values of [l1, h1] and [l2, h2] is in the abstract result
+    @Test
+    public void testSoundArithmetic() throws SemanticException {
+        for (int l1 : BOUNDS)
+            for (int h1 : BOUNDS)
+                for (int l2 : BOUNDS)
+                    for (int h2 : BOUNDS)
+                        if (l1 <= h1 && l2 <= h2)
+                            ArithmeticSoundness.assertSound(domain::constant,
+                                    (op, left, right) -> domain.evalBinaryExpression(op, left, right, null),
+                                    ArithmeticSoundness.range(l1, h1), ArithmeticSoundness.range(l2, h2));
+    }
+
+    @Test
+    public void testSaturation() {
+        IntervalDomain huge = domain.interval(Long.MAX_VALUE - 10, Long.MAX_VALUE - 1);
+        IntervalDomain sum = huge.add(domain.constant(100));
+        assertEquals(Long.MAX_VALUE, sum.getHigh());
+        assertEquals(Long.MAX_VALUE, sum.getLow());
+        assertEquals(Long.MIN_VALUE, huge.mul(domain.constant(-3)).getLow());
+        assertSame(domain.top(), domain.interval(0, Long.MAX_VALUE).sub(domain.interval(0, Long.MAX_VALUE)));
+    }
+
+    // the remainder of two constants is folded, the others are bounded by the divisor
+    @Test
+    public void testModulo() {
+        assertEquals(domain.constant(2), domain.constant(17).mod(domain.constant(5)));
+        assertEquals(domain.constant(-2), domain.constant(-17).mod(domain.constant(5)));
+        assertEquals(domain.interval(0, 4), domain.interval(15, 17).mod(domain.constant(5)));
+    }
+
+    // +inf + -inf is +inf as a high bound and -inf as a low bound
+    @Test
+    public void testOppositeInfinities() {
+        assertSame(domain.top(), domain.interval(0, Long.MAX_VALUE).add(domain.interval(Long.MIN_VALUE, 0)));
+        assertSame(domain.top(), domain.interval(Long.MIN_VALUE, 0).add(domain.interval(0, Long.MAX_VALUE)));
+        assertEquals(domain.interval(0, Long.MAX_VALUE), domain.interval(0, Long.MAX_VALUE).sub(domain.interval(Long.MIN_VALUE, 0)));
+    }
+
+    @Test
+    public void testThresholdWidening() throws SemanticException {
+        IntervalDomain bounded = IntervalDomain.withThresholds(-1, 100);
+        // for (i = 0; i < 100; i = i + 1)
+        IntervalDomain i = bounded.constant(0);
+        for (int step = 0; step < 3; step++)
+            i = i.widening(i.lub(i.glb(bounded.interval(Long.MIN_VALUE, 99)).add(bounded.constant(1))));
+        assertEquals(bounded.interval(0, 100), i);
+        assertEquals(bounded.interval(-1, 100), i.widening(bounded.constant(-1)));
+        assertEquals(bounded.interval(Long.MIN_VALUE, 100), i.widening(bounded.constant(-2)));
+        assertEquals(bounded.interval(0, Long.MAX_VALUE), i.widening(bounded.constant(101)));
+    }
+
+    @Test
+    public void testReductionWithExtSignParity() throws SemanticException {
+        ReducedProduct<ExtSignParityDomain, IntervalDomain> product =
+                new ReducedProduct<>(new ExtSignParityDomain(), domain, IntervalDomain.REDUCTION);
+
+        // a positive even number in [-3, 9] is in [2, 8]
+        ReducedProduct<ExtSignParityDomain, IntervalDomain> positiveEven = product.of(ExtSignParityDomain.POS_EVEN, domain.interval(-3, 9));
+        assertEquals(domain.interval(2, 8), positiveEven.getSecond());
+
+        // and the interval [0, 7] makes 0+ and odd positive
+        ReducedProduct<ExtSignParityDomain, IntervalDomain> odd = product.of(ExtSignParityDomain.TOP_ODD, domain.interval(0, 7));
+        assertSame(ExtSignParityDomain.POS_ODD, odd.getFirst());
+        assertEquals(domain.interval(1, 7), odd.getSecond());
+
+        assertSame(ExtSignParityDomain.ZERO_EVEN, product.of(ExtSignParityDomain.TOP_TOP, domain.constant(0)).getFirst());
+        assertTrue(product.of(ExtSignParityDomain.ZERO_ODD, domain.interval(-5, 5)).isBottom());
+        assertTrue(product.of(ExtSignParityDomain.NEG_TOP, domain.interval(0, 5)).isBottom());
+    }
+
+    @Test
+    public void testIntervalDomain() throws ParsingException, AnalysisException, IOException {
+        Program testProgram = IMPFrontend.processFile("inputs/final_project/intervalDomain.imp");
+
+        LiSAConfiguration config = new LiSAConfiguration();
+        config.setDumpAnalysis(true);
+        config.setJsonOutput(true);
+        config.setWorkdir("outputs/final_project/intervalDomain");
+        config.setAbstractState(
+                new SimpleAbstractState<>(
+                        new MonolithicHeap(),
+                        new ValueEnvironment<>(new ReducedProduct<>(new ExtSignParityDomain(), new IntervalDomain(testProgram), IntervalDomain.REDUCTION)),
+                        new TypeEnvironment<>(new InferredTypes()))
+        );
+
+        LiSA lisa = new LiSA(config);
+        lisa.run(testProgram);
+
+        StringBuilder dumps = new StringBuilder();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("outputs", "final_project", "intervalDomain"), "*.dot")) {
+            for (Path file : files)
+                dumps.append(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        }
+        // the widening stops at the literal 100 of the guard, so i is 100 at the exit of the loop of f0
+        assertTrue(dumps.toString().contains("[100, 100]"));
+        // 17 % 5 in f2
+        assertTrue(dumps.toString().contains("[2, 2]"));
+    }
+}
@@ -0,0 +1,119 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.analysis.nonrelational.value.ValueEnvironment;
+import it.unive.lisa.program.SyntheticLocation;
+import it.unive.lisa.symbolic.value.BinaryExpression;
+import it.unive.lisa.symbolic.value.Constant;
+import it.unive.lisa.symbolic.value.Variable;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingDiv;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMod;
+import it.unive.lisa.type.common.Int32;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KnownBitsDomainTest {
+
+    private static final long[] SAMPLES = {-9, -8, -3, -1, 0, 1, 2, 3, 4, 6, 7, 8, 12, 13, 64, 100};
+
+    private static KnownBitsDomain abstraction(int... values) throws SemanticException {
+        KnownBitsDomain result = KnownBitsDomain.BOTTOM;
+        for (int v : values)
+            result = result.lub(KnownBitsDomain.fromInt(v));
+        return result;
+    }
+
+    @Test
+    public void testSoundArithmetic() throws SemanticException {
+        ArithmeticSoundness.assertSoundOnSamples(KnownBitsDomain::fromLong,
+                (op, left, right) -> new KnownBitsDomain().evalBinaryExpression(op, left, right, null), SAMPLES);
+    }
+
+    @Test
+    public void testPrecision() throws SemanticException {
+        KnownBitsDomain fourOrSix = abstraction(4, 6);
+        assertEquals("0...1x0", fourOrSix.representation().toString());
+        // a multiple of 4 times an even number is a multiple of 8, and constants are folded
+        KnownBitsDomain product = abstraction(8, 12).mul(fourOrSix);
+        assertEquals(0, product.getValue() & 0b111);
+        assertEquals(0, product.getMask() & 0b111);
+        assertEquals(KnownBitsDomain.fromInt(42), KnownBitsDomain.fromInt(6).mul(KnownBitsDomain.fromInt(7)));
+        assertEquals(KnownBitsDomain.fromInt(24), KnownBitsDomain.fromInt(6).shiftLeft(2));
+        // the lowest bit is the parity
+        assertTrue(abstraction(1, 3).add(abstraction(5, 7)).lessOrEqual(KnownBitsDomain.EVEN));
+        assertSame(KnownBitsDomain.BOTTOM, KnownBitsDomain.ODD.glb(KnownBitsDomain.EVEN));
+        assertSame(KnownBitsDomain.TOP, KnownBitsDomain.ODD.lub(KnownBitsDomain.EVEN));
+    }
+
+    // IMP integers are unbounded: the bits are the ones of the value modulo 2^64, so the arithmetic wraps around
+    @Test
+    public void testWrappedArithmetic() throws SemanticException {
+        KnownBitsDomain max = KnownBitsDomain.fromLong(Long.MAX_VALUE);
+        KnownBitsDomain min = KnownBitsDomain.fromLong(Long.MIN_VALUE);
+        assertEquals(min, max.add(KnownBitsDomain.fromInt(1)));
+        assertEquals(max, min.sub(KnownBitsDomain.fromInt(1)));
+        assertEquals(KnownBitsDomain.fromLong(-2), max.mul(KnownBitsDomain.fromInt(2)));
+        assertTrue(KnownBitsDomain.ODD.add(KnownBitsDomain.ODD).lessOrEqual(KnownBitsDomain.EVEN));
+
+        // x = 0; while (...) x = x + 4; is stable on the multiples of 4, each step forgets at least one of the 64 bits
+        KnownBitsDomain x = KnownBitsDomain.ZERO;
+        KnownBitsDomain next = x.lub(x.add(KnownBitsDomain.fromInt(4)));
+        for (int i = 0; i < 64 && !next.equals(x); i++) {
+            x = next;
+            next = x.lub(x.add(KnownBitsDomain.fromInt(4)));
+        }
+        assertEquals(x, next);
+        assertEquals(0, x.getValue());
+        assertEquals(~3L, x.getMask());
+    }
+
+    @Test
+    public void testReductionWithSigns() throws SemanticException {
+        ReducedProduct<ExtSignDomain, KnownBitsDomain> product =
+                new ReducedProduct<>(ExtSignDomain.TOP, KnownBitsDomain.TOP, KnownBitsDomain.REDUCTION);
+
+        ReducedProduct<ExtSignDomain, KnownBitsDomain> zero = product.of(ExtSignDomain.ZERO, KnownBitsDomain.TOP);
+        assertEquals(KnownBitsDomain.ZERO, zero.getSecond());
+
+        // a value with a bit set is not zero
+        assertSame(ExtSignDomain.POS, product.of(ExtSignDomain.POS_OR_ZERO, KnownBitsDomain.ODD).getFirst());
+        assertTrue(product.of(ExtSignDomain.ZERO, KnownBitsDomain.ODD).isBottom());
+
+        // bit 63 is not the sign
+        assertSame(ExtSignDomain.TOP, product.of(ExtSignDomain.TOP, KnownBitsDomain.fromInt(-5)).getFirst());
+        assertSame(KnownBitsDomain.TOP, product.of(ExtSignDomain.POS, KnownBitsDomain.TOP).getSecond());
+        assertSame(KnownBitsDomain.TOP, product.of(ExtSignDomain.NEG, KnownBitsDomain.TOP).getSecond());
+    }
+
+    // the sign of the dividend comes from ExtSignDomain
+    @Test
+    public void testDivisionBySign() throws SemanticException {
+        ReducedProduct<ExtSignDomain, KnownBitsDomain> product =
+                new ReducedProduct<>(ExtSignDomain.TOP, KnownBitsDomain.TOP, KnownBitsDomain.REDUCTION);
+        Variable x = new Variable(Int32.INSTANCE, "x", SyntheticLocation.INSTANCE);
+        Constant four = new Constant(Int32.INSTANCE, 4, SyntheticLocation.INSTANCE);
+        BinaryExpression remainder = new BinaryExpression(Int32.INSTANCE, x, four, NumericNonOverflowingMod.INSTANCE, SyntheticLocation.INSTANCE);
+        BinaryExpression quotient = new BinaryExpression(Int32.INSTANCE, x, four, NumericNonOverflowingDiv.INSTANCE, SyntheticLocation.INSTANCE);
+
+        // x in {5, 13}: 0...x101
+        KnownBitsDomain bits = abstraction(5, 13);
+        ValueEnvironment<ReducedProduct<ExtSignDomain, KnownBitsDomain>> positive =
+                new ValueEnvironment<>(product).putState(x, product.of(ExtSignDomain.POS, bits));
+        assertEquals(KnownBitsDomain.fromInt(1), product.eval(remainder, positive, null).getSecond());
+        // x / 4 in {1, 3}, the highest two bits come from beyond bit 63
+        KnownBitsDomain shifted = product.eval(quotient, positive, null).getSecond();
+        assertEquals(1, shifted.getValue());
+        assertEquals(0b10 | 0b11L << 62, shifted.getMask());
+
+        // without the sign, only the lowest bits of the remainder are known
+        ValueEnvironment<ReducedProduct<ExtSignDomain, KnownBitsDomain>> unknown =
+                new ValueEnvironment<>(product).putState(x, product.of(ExtSignDomain.TOP, bits));
+        KnownBitsDomain lowest = product.eval(remainder, unknown, null).getSecond();
+        assertEquals(1, lowest.getValue());
+        assertEquals(~3L, lowest.getMask());
+        assertSame(KnownBitsDomain.TOP, product.eval(quotient, unknown, null).getSecond());
+    }
+}
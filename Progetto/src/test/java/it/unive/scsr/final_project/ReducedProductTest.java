@@ -0,0 +1,85 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ReducedProductTest {
+
+    private static final ExtSignDomain[] SIGNS = {
+            ExtSignDomain.BOTTOM, ExtSignDomain.NEG, ExtSignDomain.ZERO, ExtSignDomain.POS,
+            ExtSignDomain.NEG_OR_ZERO, ExtSignDomain.POS_OR_ZERO, ExtSignDomain.TOP
+    };
+
+    private static final ParityDomain[] PARITIES = {ParityDomain.BOTTOM, ParityDomain.EVEN, ParityDomain.ODD, ParityDomain.TOP};
+
+    private final ReducedProduct<ExtSignDomain, ParityDomain> product =
+            ReducedProduct.finite(ExtSignDomain.TOP, ParityDomain.TOP, ExtSignParityDomain.REDUCTION);
+
+    @Test
+    public void testReduction() throws SemanticException {
+        ReducedProduct<ExtSignDomain, ParityDomain> zero = product.of(ExtSignDomain.ZERO, ParityDomain.TOP);
+        assertSame(ExtSignDomain.ZERO, zero.getFirst());
+        assertSame(ParityDomain.EVEN, zero.getSecond());
+
+        ReducedProduct<ExtSignDomain, ParityDomain> positiveOdd = product.of(ExtSignDomain.POS_OR_ZERO, ParityDomain.ODD);
+        assertSame(ExtSignDomain.POS, positiveOdd.getFirst());
+        assertSame(ParityDomain.ODD, positiveOdd.getSecond());
+
+        assertTrue(product.of(ExtSignDomain.ZERO, ParityDomain.ODD).isBottom());
+        assertTrue(product.top().isTop());
+    }
+
+    // the reduction of a pair is computed once, then the same value is returned
+    @Test
+    public void testMemoizedReduction() throws SemanticException {
+        for (ExtSignDomain s : SIGNS)
+            for (ParityDomain p : PARITIES)
+                assertSame(product.of(s, p), product.of(s, p));
+    }
+
+    @Test
+    public void testLatticeOperations() throws SemanticException {
+        for (ExtSignDomain s1 : SIGNS)
+            for (ParityDomain p1 : PARITIES)
+                for (ExtSignDomain s2 : SIGNS)
+                    for (ParityDomain p2 : PARITIES) {
+                        ReducedProduct<ExtSignDomain, ParityDomain> a = product.of(s1, p1);
+                        ReducedProduct<ExtSignDomain, ParityDomain> b = product.of(s2, p2);
+                        String pair = a.representation() + ", " + b.representation();
+                        ReducedProduct<ExtSignDomain, ParityDomain> lub = a.lub(b);
+                        assertTrue("lub is not an upper bound of " + pair, a.lessOrEqual(lub) && b.lessOrEqual(lub));
+                        assertTrue("widening is not an upper bound of " + pair, a.lessOrEqual(a.widening(b)));
+                    }
+    }
+
+    // the reduction of the outer pair goes through the inner one until nothing changes
+    @Test
+    public void testIteratedReduction() throws SemanticException {
+        ReducedProduct.Reduction<ExtSignDomain, ReducedProduct<ExtSignDomain, ParityDomain>> sameSign =
+                new ReducedProduct.Reduction<ExtSignDomain, ReducedProduct<ExtSignDomain, ParityDomain>>() {
+                    @Override
+                    public ExtSignDomain reduceFirst(ExtSignDomain first, ReducedProduct<ExtSignDomain, ParityDomain> second) throws SemanticException {
+                        return first.glb(second.getFirst());
+                    }
+
+                    @Override
+                    public ReducedProduct<ExtSignDomain, ParityDomain> reduceSecond(ExtSignDomain first, ReducedProduct<ExtSignDomain, ParityDomain> second) throws SemanticException {
+                        return second.of(first.glb(second.getFirst()), second.getSecond());
+                    }
+                };
+        ReducedProduct<ExtSignDomain, ReducedProduct<ExtSignDomain, ParityDomain>> triple =
+                ReducedProduct.finite(ExtSignDomain.TOP, product, sameSign);
+
+        // 0+ and odd: the inner pair becomes (+, odd), then the outer sign becomes + as well
+        ReducedProduct<ExtSignDomain, ReducedProduct<ExtSignDomain, ParityDomain>> value =
+                triple.of(ExtSignDomain.POS_OR_ZERO, product.of(ExtSignDomain.TOP, ParityDomain.ODD));
+        assertSame(ExtSignDomain.POS, value.getFirst());
+        assertEquals(product.of(ExtSignDomain.POS, ParityDomain.ODD), value.getSecond());
+
+        assertTrue(triple.of(ExtSignDomain.ZERO, product.of(ExtSignDomain.TOP, ParityDomain.ODD)).isBottom());
+    }
+}
@@ -0,0 +1,166 @@
+package it.unive.scsr.final_project;
+
+import it.unive.lisa.analysis.SemanticException;
+import it.unive.lisa.imp.IMPFrontend;
+import it.unive.lisa.imp.ParsingException;
+import it.unive.lisa.program.Program;
+import it.unive.lisa.program.cfg.CFG;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingMul;
+import it.unive.lisa.symbolic.value.operator.binary.NumericNonOverflowingSub;
+import it.unive.lisa.symbolic.value.operator.unary.NumericNegation;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SummariesTest {
+
+    private static final ExtSignDomain ONE = ExtSignDomain.POS;
+
+    // bodies of the functions on the signs, counting how many times each one is analyzed
+    private final Map<String, AtomicInteger> analyses = new ConcurrentHashMap<>();
+
+    private final Summaries.Body<String, ExtSignDomain> signs = (function, arguments, summaries) -> {
+        analyses.computeIfAbsent(function, f -> new AtomicInteger()).incrementAndGet();
+        ExtSignDomain x = arguments.get(0);
+        switch (function) {
+            case "square": // x * x
+                return x.evalBinaryExpression(NumericNonOverflowingMul.INSTANCE, x, x, null);
+            case "negSquare": // -square(x)
+                return x.evalUnaryExpression(NumericNegation.INSTANCE, summaries.call("square", arguments), null);
+            case "countdown": // x == 0 ? 0 : countdown(x - 1)
+                ExtSignDomain predecessor = x.evalBinaryExpression(NumericNonOverflowingSub.INSTANCE, x, ONE, null);
+                return ExtSignDomain.ZERO.lub(summaries.call("countdown", Collections.singletonList(predecessor)));
+            default:
+                throw new SemanticException("unknown function " + function);
+        }
+    };
+
+    private static List<ExtSignDomain> args(ExtSignDomain x) {
+        return Collections.singletonList(x);
+    }
+
+    @Test
+    public void testComponentsAreBottomUp() {
+        CallGraph<String> graph = new CallGraph<String>()
+                .addCall("main", "a").addCall("a", "b").addCall("b", "a").addCall("b", "c");
+        List<List<String>> components = graph.components();
+        assertEquals(3, components.size());
+        assertEquals(Collections.singletonList("c"), components.get(0));
+        assertTrue(components.get(1).containsAll(Arrays.asList("a", "b")));
+        assertEquals(Collections.singletonList("main"), components.get(2));
+    }
+
+    // the calls are found in the statements of the CFGs, nested ones included
+    @Test
+    public void testCallGraphOfProgram() throws ParsingException {
+        Program program = IMPFrontend.processFile("inputs/final_project/summaries.imp");
+        CallGraph<CFG> graph = CallGraph.of(program);
+        assertEquals(3, graph.functions().size());
+        CFG square = cfg(graph, "square");
+        CFG countdown = cfg(graph, "countdown");
+        assertTrue(graph.callees(square).isEmpty());
+        assertEquals(Collections.singleton(square), graph.callees(cfg(graph, "negSquare")));
+        assertEquals(Collections.singleton(countdown), graph.callees(countdown));
+        assertEquals(Collections.singletonList(square), graph.components().get(0));
+    }
+
+    // the statements of the CFGs are evaluated, and the calls go through the summaries of their targets
+    @Test
+    public void testSummariesOfProgram() throws ParsingException, SemanticException {
+        Program program = IMPFrontend.processFile("inputs/final_project/summaries.imp");
+        Summaries<CFG, ExtSignDomain> summaries = Summaries.of(program, new ExtSignDomain());
+        CallGraph<CFG> graph = CallGraph.of(program);
+        CFG negSquare = cfg(graph, "negSquare");
+        CFG countdown = cfg(graph, "countdown");
+        assertSame(ExtSignDomain.NEG, summaries.call(negSquare, arguments(negSquare, ExtSignDomain.NEG)));
+        assertSame(ExtSignDomain.NEG, summaries.call(negSquare, arguments(negSquare, ExtSignDomain.POS)));
+        assertSame(ExtSignDomain.ZERO, summaries.call(negSquare, arguments(negSquare, ExtSignDomain.ZERO)));
+        assertSame(ExtSignDomain.ZERO, summaries.call(countdown, arguments(countdown, ExtSignDomain.POS)));
+        assertSame(ExtSignDomain.ZERO, summaries.call(countdown, arguments(countdown, ExtSignDomain.TOP)));
+    }
+
+    // x as the last argument of function, after the receiver of the instance CFGs
+    private static List<ExtSignDomain> arguments(CFG function, ExtSignDomain x) {
+        ExtSignDomain[] arguments = new ExtSignDomain[function.getDescriptor().getArgs().length];
+        Arrays.fill(arguments, ExtSignDomain.TOP);
+        arguments[arguments.length - 1] = x;
+        return Arrays.asList(arguments);
+    }
+
+    private static CFG cfg(CallGraph<CFG> graph, String name) {
+        for (CFG cfg : graph.functions())
+            if (cfg.getDescriptor().getName().equals(name))
+                return cfg;
+        throw new AssertionError("no CFG " + name);
+    }
+
+    // the visit does not recurse, so a long chain of calls does not overflow the stack
+    @Test
+    public void testDeepCallChain() {
+        CallGraph<Integer> graph = new CallGraph<>();
+        int length = 200_000;
+        for (int i = 0; i < length - 1; i++)
+            graph.addCall(i, i + 1);
+        List<List<Integer>> components = graph.components();
+        assertEquals(length, components.size());
+        assertEquals(Collections.singletonList(length - 1), components.get(0));
+        assertEquals(Collections.singletonList(0), components.get(length - 1));
+    }
+
+    @Test
+    public void testCallsAreLookups() throws SemanticException {
+        CallGraph<String> graph = new CallGraph<String>().addCall("negSquare", "square");
+        Summaries<String, ExtSignDomain> summaries = new Summaries<>(graph, new ExtSignDomain(), signs);
+        summaries.precompute(ForkJoinPool.commonPool(), f -> args(ExtSignDomain.NEG));
+        assertEquals(1, analyses.get("square").get());
+        assertEquals(1, analyses.get("negSquare").get());
+
+        // already in the tables
+        assertSame(ExtSignDomain.NEG, summaries.call("negSquare", args(ExtSignDomain.NEG)));
+        assertSame(ExtSignDomain.POS, summaries.call("square", args(ExtSignDomain.NEG)));
+        assertEquals(1, analyses.get("square").get());
+
+        // a new context is analyzed once, then kept
+        assertSame(ExtSignDomain.ZERO, summaries.call("negSquare", args(ExtSignDomain.ZERO)));
+        assertSame(ExtSignDomain.ZERO, summaries.call("negSquare", args(ExtSignDomain.ZERO)));
+        assertEquals(2, analyses.get("square").get());
+        assertEquals(2, analyses.get("negSquare").get());
+    }
+
+    // countdown(+) calls countdown(TOP), which calls itself: the contexts of the component are solved together
+    @Test
+    public void testRecursion() throws SemanticException {
+        CallGraph<String> graph = new CallGraph<String>().addCall("countdown", "countdown");
+        Summaries<String, ExtSignDomain> summaries = new Summaries<>(graph, new ExtSignDomain(), signs);
+        assertSame(ExtSignDomain.ZERO, summaries.call("countdown", args(ExtSignDomain.POS)));
+        assertSame(ExtSignDomain.ZERO, summaries.call("countdown", args(ExtSignDomain.TOP)));
+    }
+
+    // mutual recursion on the product: ping(x) = x == 0 ? (0, even) : pong(x) and pong(x) = ping(x)
+    @Test
+    public void testMutualRecursionOnProduct() throws SemanticException {
+        CallGraph<String> graph = new CallGraph<String>().addCall("ping", "pong").addCall("pong", "ping");
+        Summaries<String, ExtSignParityDomain> summaries = new Summaries<>(graph, new ExtSignParityDomain(),
+                (function, arguments, s) -> function.equals("ping")
+                        ? ExtSignParityDomain.ZERO_EVEN.lub(s.call("pong", arguments))
+                        : s.call("ping", arguments));
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            summaries.precompute(pool, f -> Collections.singletonList(ExtSignParityDomain.TOP_TOP));
+        } finally {
+            pool.shutdown();
+        }
+        assertSame(ExtSignParityDomain.ZERO_EVEN, summaries.call("ping", Collections.singletonList(ExtSignParityDomain.TOP_TOP)));
+        assertSame(ExtSignParityDomain.ZERO_EVEN, summaries.call("pong", Collections.singletonList(ExtSignParityDomain.TOP_TOP)));
+    }
+}